@@ -5,6 +5,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
 
 import android.databasecontroller.server.io.ConnectionHandler;
 import android.databasecontroller.server.io.ConsoleCommandHandler;
@@ -12,6 +13,8 @@ import android.databasecontroller.server.io.ConsoleSenderReceiver;
 import utils.Maths;
 import utils.io.ConfigAdapter;
 import utils.io.Logger;
+import utils.networking.DatabaseController;
+import utils.networking.Procedure;
 import utils.networking.ProcedureLoader;
 
 /**
@@ -33,6 +36,11 @@ public class Server {
 	private static boolean locked = false;
 	private static boolean shuttingDown = false;
 
+	/**
+	 * System-Property with the file a new Server creates when it took over the port on a handover-restart.
+	 */
+	public static final String HANDOVER_PROPERTY = "server.handover";
+
 	static {
 		DEFAULT_CONFIG = "serverdata/server.cfg";
 	}
@@ -92,18 +100,15 @@ public class Server {
 					ConfigAdapter.getDefaultConfig().getConfigString("chName"));
 
 			Logger.gdL().logInfo("Starting ConsoleCommand-Receiver");
-
-			consoleSenderReceiver = new Thread(new Runnable() {
-				@Override
-				public void run() {
-					ConsoleSenderReceiver.start();
-				}
-			});
-			consoleSenderReceiver.start();
+			startConsoleSenderReceiver();
 
 			Logger.gdL().logInfo("Loading active Procedures");
 			ProcedureLoader.initProcedures();
+			if (Boolean.parseBoolean(ConfigAdapter.getDefaultConfig().getConfigString("dbActiveProceduresWatch")))
+				ProcedureLoader.startWatching();
 			Logger.gdL().logInfo("Procedure-Loading finished");
+			if (System.getProperty(HANDOVER_PROPERTY) != null)
+				signalHandover(new File(System.getProperty(HANDOVER_PROPERTY)));
 			// DO SOMETHING E.G. UI
 
 			synchronized (lock) {
@@ -124,34 +129,152 @@ public class Server {
 	public static FileOutputStream getLogFile() {
 		return loggerFile;
 	}
+	
+	public static ConnectionHandler getConnectionHandler() {
+		return connectionHandler;
+	}
+
+	private static void startConsoleSenderReceiver() {
+		consoleSenderReceiver = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				ConsoleSenderReceiver.start();
+			}
+		});
+		consoleSenderReceiver.start();
+	}
 
-	private static void selfRestart(boolean inner) {
+	private static void selfRestart() {
 		Logger.gdL().logInfo("Initializing Restarter");
+		launchSuccessor(null);
+		System.exit(0);
+	}
+
+	/**
+	 * Starts a new Server-Process with the same JVM-Arguments and Classpath.
+	 * 
+	 * @param jvmArg an additional JVM-Argument or <code>null</code>
+	 * @return the new {@link Process} or <code>null</code> if it could not be started
+	 */
+	private static Process launchSuccessor(String jvmArg) {
 		String restarterLoc = ConfigAdapter.getDefaultConfig().getConfigString("automaticRestarter");
-		if (!inner)
-			selfShutdown(false);
 		File restarter = new File(restarterLoc);
-		if (restarter.exists()) {
-			try {
-				StringBuilder cmd = new StringBuilder();
-				cmd.append(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java ");
-				for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments())
-					cmd.append(jvmArg + " ");
-				cmd.append("-cp ").append(ManagementFactory.getRuntimeMXBean().getClassPath()).append(" ");
-				cmd.append(Server.class.getName());
-				Runtime.getRuntime().exec(cmd.toString());
-				System.exit(0);
-			} catch (IOException e) {
-				Logger.gdL().logError("An Error occured while trying to reload program! Execution: exec");
-				Logger.gdL().logException(e);
-			}
-		} else {
+		if (!restarter.exists()) {
 			Logger.gdL().logWarning("\"" + restarterLoc + "\" does not exist... Exiting!");
+			return null;
 		}
-		System.exit(0);
+		try {
+			StringBuilder cmd = new StringBuilder();
+			cmd.append(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java ");
+			for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments())
+				if (!arg.startsWith("-D" + HANDOVER_PROPERTY + "="))
+					cmd.append(arg + " ");
+			if (jvmArg != null)
+				cmd.append(jvmArg + " ");
+			cmd.append("-cp ").append(ManagementFactory.getRuntimeMXBean().getClassPath()).append(" ");
+			cmd.append(Server.class.getName());
+			return Runtime.getRuntime().exec(cmd.toString());
+		} catch (IOException e) {
+			Logger.gdL().logError("An Error occured while trying to reload program! Execution: exec");
+			Logger.gdL().logException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Lets a new Server take over the port before this one stops listening (<code>restartMode=HANDOVER</code>).</br>
+	 * Both Servers listen with <code>SO_REUSEPORT</code> on the same port for a moment, so new Clients are never refused.
+	 * The new Server creates <code>restartHandoverFile</code> as soon as it listens, loaded its {@link Procedure Procedures} and filled its connection-pool.
+	 * Only then this Server may stop listening. If the file does not show up within <code>restartHandoverTimeout</code> milliseconds the new Server gets killed
+	 * and this one keeps the port until it restarts cold.
+	 * 
+	 * @return <code>true</code> if the new Server reported to be ready
+	 */
+	private static boolean handOver() {
+		if (connectionHandler == null || !connectionHandler.REUSE_PORT) {
+			Logger.gdL().logWarning("The port was not opened for a handover. Restarting cold!");
+			return false;
+		}
+		File ready = new File(ConfigAdapter.getDefaultConfig().getConfigString("restartHandoverFile"));
+		long timeout = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("restartHandoverTimeout"));
+		ready.delete();
+		// The new Server has to bind the console-port itself
+		ConsoleSenderReceiver.stop();
+		ConsoleSenderReceiver.report("Starting new Server for the handover");
+		Process successor = launchSuccessor("-D" + HANDOVER_PROPERTY + "=" + ready.getPath());
+		if (successor == null) {
+			abortHandover(null);
+			return false;
+		}
+		long deadline = System.currentTimeMillis() + timeout;
+		try {
+			while (!ready.exists() && successor.isAlive() && System.currentTimeMillis() < deadline)
+				Thread.sleep(100);
+		} catch (InterruptedException e) {
+			Logger.gdL().logException(e);
+		}
+		if (ready.delete()) {
+			ConsoleSenderReceiver.report("New Server is listening. Draining old connections");
+			return true;
+		}
+		Logger.gdL().logError("New Server did not report to be ready within " + timeout + " milliseconds. Restarting cold!");
+		abortHandover(successor);
+		ready.delete();
+		return false;
 	}
 
-	private static void selfShutdown(boolean exit) {
+	/**
+	 * Kills the new Server of a failed handover and lets this one take back the console-port.</br>
+	 * Waits shortly until the {@link ConsoleSenderReceiver} listens again, so it can be closed properly by the cold restart.
+	 * 
+	 * @param successor the new Server or <code>null</code> if it was not started
+	 */
+	private static void abortHandover(Process successor) {
+		try {
+			if (successor != null && !successor.destroyForcibly().waitFor(5, TimeUnit.SECONDS))
+				Logger.gdL().logWarning("The new Server did not stop within 5 seconds");
+			startConsoleSenderReceiver();
+			long deadline = System.currentTimeMillis() + 1000;
+			while (!ConsoleSenderReceiver.isActive() && consoleSenderReceiver.isAlive() && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Logger.gdL().logException(e);
+		}
+	}
+
+	/**
+	 * Tells the old Server of a handover that this Server listens on the port now.</br>
+	 * Waits up to <code>restartHandoverTimeout</code> milliseconds until the {@link ConnectionHandler#DATABASE} is {@link DatabaseController#isReady() ready} first,
+	 * so the old Server keeps serving until this one can answer right away.
+	 * 
+	 * @param ready the file the old Server waits for
+	 */
+	private static void signalHandover(File ready) {
+		if (!connectionHandler.isListening()) {
+			Logger.gdL().logError("Could not take over the port from the old Server!");
+			return;
+		}
+		long deadline = System.currentTimeMillis() + (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("restartHandoverTimeout"));
+		try {
+			while (!connectionHandler.DATABASE.isReady() && System.currentTimeMillis() < deadline)
+				Thread.sleep(100);
+		} catch (InterruptedException e) {
+			Logger.gdL().logException(e);
+		}
+		if (!connectionHandler.DATABASE.isReady())
+			Logger.gdL().logWarning("The connection-pool is not filled yet. Taking over anyway!");
+		try {
+			if (ready.getParentFile() != null)
+				ready.getParentFile().mkdirs();
+			ready.createNewFile();
+			Logger.gdL().logInfo("Took over the port from the old Server");
+		} catch (IOException e) {
+			Logger.gdL().logError("Could not signal the old Server that the port was taken over!");
+			Logger.gdL().logException(e);
+		}
+	}
+
+	private static void selfShutdown(boolean exit, boolean restart) {
 		if (shuttingDown) {
 			System.err.println("Already shutting down!");
 			return;
@@ -159,10 +282,18 @@ public class Server {
 
 		shuttingDown = true;
 
+		automaticRestart = restart || Boolean
+				.parseBoolean(ConfigAdapter.getDefaultConfig().getConfigString("restartOnAutomaticClose"));
+		boolean handedOver = automaticRestart
+				&& ConfigAdapter.getDefaultConfig().getConfigString("restartMode").equals("HANDOVER") && handOver();
+
+		ProcedureLoader.stopWatching();
+
 		if (connectionHandler != null)
 			connectionHandler.stop();
 
-		ConsoleSenderReceiver.stop();
+		if (!handedOver)
+			ConsoleSenderReceiver.stop();
 
 		Logger.gdL().shutdown();
 		if (locked)
@@ -179,21 +310,18 @@ public class Server {
 		if (consoleSenderReceiver.isAlive())
 			consoleSenderReceiver.interrupt();
 
-		automaticRestart = Boolean
-				.parseBoolean(ConfigAdapter.getDefaultConfig().getConfigString("restartOnAutomaticClose"));
-
-		if (automaticRestart)
-			selfRestart(true);
-		else if (exit)
+		if (automaticRestart && !handedOver)
+			selfRestart();
+		else if (exit || handedOver)
 			System.exit(0);
 	}
 
 	public static void restart() {
-		selfRestart(false);
+		selfShutdown(true, true);
 	}
 
 	public static synchronized void shutdown() {
-		selfShutdown(true);
+		selfShutdown(true, false);
 	}
 
 	public static boolean getAutomaticRestart() {
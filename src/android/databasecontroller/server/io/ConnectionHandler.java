@@ -2,7 +2,17 @@ package android.databasecontroller.server.io;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.concurrent.ConcurrentHashMap;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channel;
+import java.nio.channels.ServerSocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLServerSocketFactory;
@@ -14,52 +24,58 @@ import utils.Maths;
 import utils.Vector2D;
 import utils.io.ConfigAdapter;
 import utils.io.Logger;
+import utils.networking.DatabaseController;
 import utils.networking.MultiDatabaseController;
+import utils.networking.ReplicatedDatabaseController;
+import utils.networking.RoutingDatabaseController;
+import utils.networking.ShardedDatabaseController;
 
 /**
  * Lets you open a Server-Port for incoming Connections.</br></br>
- * 
+ *
  * <b>Use:</b> Instantiate a new ConnectionHandler.<br>
  * Use a client to connect to that Server over the specified port.</br></br>
- * 
+ *
+ * The port is served by {@link #ACCEPTORS} {@link Acceptor}-Threads. If there is more than one, every {@link Acceptor} opens its own
+ * {@link SSLServerSocket} on the same port with <code>SO_REUSEPORT</code> so the kernel spreads incoming connections over all of them.
+ * Every {@link Acceptor} has its own connection-counter and DDoS-Protection, {@link #MAX_CONNECTIONS} is enforced over the sum of all counters.</br>
+ * <code>SO_REUSEPORT</code> is also set for <code>restartMode=HANDOVER</code> so a new Server can bind the port before this one stops listening.
+ * If the process inherited a listening channel on {@link #PORT} (e.g. by systemd socket-activation) every {@link Acceptor} accepts on it instead of binding,
+ * as the inherited socket was not opened with <code>SO_REUSEPORT</code>.</br></br>
+ *
  * <i>Next Update brings:</i><ul>
- * <li>basic DDoS-Protection</li>
  * <li>Encryption + Certificates</li>
  * </ul>
- * 
+ *
  * @author Cedric
- * @version 1.0
+ * @version 1.1
  * @category networking
  */
 public class ConnectionHandler {
-	
-	/**
-	 * The Listening-Thread for incoming Connections on the {@link #serverSocket}.
-	 */
-	private Thread worker;
+
 	/**
-	 * The Socket Clients can connect to if {@link #lock} is not blocking them.
+	 * The Listening-Threads for incoming Connections. Every {@link Acceptor} owns one {@link SSLServerSocket} on {@link #PORT}.
 	 */
-	private volatile SSLServerSocket serverSocket;
+	private final Acceptor[] acceptors;
 	/**
 	 * Indicates whether the ConnectionHandler is running or not.
 	 */
 	private volatile boolean running;
 	/**
-	 * When equal to {@link #MAX_CONNECTIONS} the lock will be triggered.
+	 * The running connections. Every {@link Acceptor} counts its connections in its own stripe, the last stripe belongs to the {@link #unixListener}.</br>
+	 * When the sum equals {@link #MAX_CONNECTIONS} the {@link Acceptor Acceptors} get locked.
 	 */
-	private volatile int connections;
+	private final AtomicInteger[] connections;
 	/**
-	 * Indicates whether the limit of {@link #connections} equals {@link #MAX_CONNECTIONS}.
-	 * If so the {@link #serverSocket} will automatically block all incoming connections by {@link Thread#wait()}.
+	 * The amount of {@link Acceptor Acceptors} which are waiting because the sum of {@link #connections} equals {@link #MAX_CONNECTIONS}.
 	 */
-	private volatile boolean locked;
-	
+	private final AtomicInteger locked;
+
 	/**
-	 * Shows how often a person from a certain ip connected
+	 * The optional listener for local Clients on a Unix-Domain-Socket. This is <code>null</code> if <code>chUnixSocket</code> is set to <code>NONE</code>.
 	 */
-	private volatile ConcurrentHashMap<String, Vector2D<Integer, Long>> ddosProtection;
-	
+	private volatile UnixSocketListener unixListener;
+
 	// *************
 	// * Constants *
 	// *************
@@ -79,18 +95,44 @@ public class ConnectionHandler {
 	 * The Name of this ConnectionHandler to recognize logs easier.
 	 */
 	public final String NAME;
-	
+
 	/**
-	 * The {@link MultiDatabaseController} for this {@link ConnectionHandler}.
+	 * The {@link DatabaseController} for this {@link ConnectionHandler}.
+	 * A {@link ReplicatedDatabaseController} if <code>dbReplicas</code> are configured, a {@link MultiDatabaseController} otherwise.
 	 */
-	public final MultiDatabaseController DATABASE;
-	
+	public final DatabaseController DATABASE;
+
 	/**
-	 * 
+	 * The amount of connections one IP-Address may open in one minute on one {@link Acceptor}.
 	 */
 	public final int MAX_CON_ATTEMPTS_PER_MINUTE;
-	
-	
+	/**
+	 * The amount of {@link Acceptor Acceptors} listening on {@link #PORT}.
+	 */
+	public final int ACCEPTORS;
+	/**
+	 * Indicates whether <code>SO_REUSEPORT</code> is set for the Server-Sockets.
+	 */
+	public final boolean REUSE_PORT;
+	/**
+	 * Closes the {@link ServerConnection ServerConnections} of this ConnectionHandler which are idle for too long.
+	 */
+	public final IdleReaper REAPER;
+	/**
+	 * The time in milliseconds {@link #stop()} waits for running requests before the remaining connections get closed.
+	 */
+	public final long DRAIN_TIMEOUT;
+	/**
+	 * The time in seconds after which drained Clients should try to reconnect.
+	 */
+	public final int DRAIN_RETRY_AFTER;
+	/**
+	 * The time in milliseconds a Client waits for the result of a Procedure if it does not send its own deadline.
+	 * Deadlines sent by Clients are limited to it.
+	 */
+	public final long REQUEST_DEADLINE;
+
+
 	/**
 	 * Creates a new ConnectionHandler using: <ul>
 	 * <li>{@link #PORT} as ServerPort</li>
@@ -98,8 +140,8 @@ public class ConnectionHandler {
 	 * <li>{@link #NAME} as a name to recognize a specific ConnectionHandler</li>
 	 * </ul>
 	 * These things can <b>not</b> be changed afterwards to ensure consistency within a Server session.
-	 * 
-	 * @param port equals {@link #PORT} 
+	 *
+	 * @param port equals {@link #PORT}
 	 * @param maxConnections equals {@link #MAX_CONNECTIONS}
 	 * @param name equals {@link #NAME}
 	 */
@@ -107,7 +149,7 @@ public class ConnectionHandler {
 		// Checking parameters for illogical information
 		if (maxConnections < 1) throw new IllegalArgumentException("You need to set the maximum Connections at least to 1");
 		if (port < 1 || port > 65535) throw new IllegalArgumentException("The listening port can just be between 1 and 65535");
-		
+
 		// Loading data for MultiDatabaseConnectionHandler
 		String dbHost = ConfigAdapter.getDefaultConfig().getConfigString("dbHost");
 		int dbPort = Integer.parseInt(ConfigAdapter.getDefaultConfig().getConfigString("dbPort"));
@@ -119,230 +161,582 @@ public class ConnectionHandler {
 		int minBuf = Integer.parseInt(ConfigAdapter.getDefaultConfig().getConfigString("dbConnectionBufferMin"));
 		int maxConAttempts = (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chDDosProtection"));
 		long timeout = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbTimeout"));
-		
+		String unixSocket = ConfigAdapter.getDefaultConfig().getConfigString("chUnixSocket");
+		String unixSocketPermissions = ConfigAdapter.getDefaultConfig().getConfigString("chUnixSocketPermissions");
+		int acceptorCount = (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chAcceptors")
+				.replace("CORES", Runtime.getRuntime().availableProcessors() + ""));
+		long idleTimeout = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("timeout"));
+		long maxLifetime = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chMaxLifetime"));
+		long reaperTick = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chReaperTick"));
+		long drainTimeout = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chDrainTimeout"));
+		int drainRetryAfter = (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chDrainRetryAfter"));
+		long requestDeadline = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("chRequestDeadline"));
+		String restartMode = ConfigAdapter.getDefaultConfig().getConfigString("restartMode");
+
 		// Setting up fields
 		this.MAX_CON_ATTEMPTS_PER_MINUTE = maxConAttempts;
 		this.MAX_CONNECTIONS = maxConnections;
 		this.PORT = port;
 		this.NAME = name;
-		this.DATABASE = new MultiDatabaseController(dbHost, dbPort, dbUsr, dbPwd, dbName, minBuf, targetBuf, maxBuf, timeout, true);
+		this.ACCEPTORS = Math.max(1, acceptorCount);
+		this.REUSE_PORT = ACCEPTORS > 1 || restartMode.equals("HANDOVER");
+		this.DRAIN_TIMEOUT = drainTimeout;
+		this.DRAIN_RETRY_AFTER = drainRetryAfter;
+		this.REQUEST_DEADLINE = requestDeadline;
+		this.DATABASE = createDatabase(dbHost, dbPort, dbUsr, dbPwd, dbName, minBuf, targetBuf, maxBuf, timeout);
 		this.INSTANCE = this;
-		this.connections = 0;
-		this.locked = false;
-		this.ddosProtection = new ConcurrentHashMap<String, Vector2D<Integer, Long>>();
+		this.locked = new AtomicInteger(0);
+		this.connections = new AtomicInteger[ACCEPTORS + 1];
+		for (int i = 0; i < connections.length; i++)
+			connections[i] = new AtomicInteger(0);
 		
-		worker = new Thread(new Runnable() {
-
-			/**
-			 * Removes connections which long enough did not try to connect.</br>
-			 * </br>
-			 * <i>Note: This is just a first implementation of a DDoS-Protection and should be rewritten if used in bigger Applications.</i> 
-			 */
-			private void cleanUpDdos() {
-				for (String s : ddosProtection.keySet())
-					if (ddosProtection.get(s).data2+60000 > System.currentTimeMillis()) ddosProtection.remove(s);
+		Logger.gdL().logInfo("Timeout was set to " + idleTimeout + " milliseconds");
+		this.REAPER = new IdleReaper(idleTimeout, maxLifetime, reaperTick, NAME);
+		REAPER.start();
+
+		// START Setting up Listener
+		Logger.gdL().logInfo("Setting up " + ACCEPTORS + " Server-Socket(s) - " + NAME);
+		loadCertificates();
+
+		running = true;
+		// The sockets are opened here so the port is bound as soon as the ConnectionHandler exists
+		ServerSocketChannel inherited = getInheritedChannel();
+		this.acceptors = new Acceptor[ACCEPTORS];
+		for (int i = 0; i < ACCEPTORS; i++) {
+			acceptors[i] = new Acceptor(i);
+			try {
+				// All acceptors share an inherited channel, binding the port again would fail
+				acceptors[i].openSocket(inherited);
+			} catch (IOException e) {
+				Logger.gdL().logError("An error occured while opening the ServerListener " + i + "! - " + NAME);
+				Logger.gdL().logException(e);
+				acceptors[i].closeSocket();
 			}
-			
-			@Override
-			public void run() {
-				running = true;
-
-				// START Setting up Listener
-				Logger.gdL().logInfo("Setting up Server-Socket - " + NAME);
-				
-				// Load Certificates
-				Logger.gdL().logInfo("Importing SSL-Key and -Truststore");
-				String keyStoreFile = ConfigAdapter.getDefaultConfig().getConfigString("sslKeyStore");
-				String keyStorePassword = ConfigAdapter.getDefaultConfig().getConfigString("sslKeyStorePwd");
-				String keyStoreType = ConfigAdapter.getDefaultConfig().getConfigString("sslKeyStoreType");
-				String trustStore = ConfigAdapter.getDefaultConfig().getConfigString("sslTrustStore").replace("@DEFAULT", System.getProperty("java.home") + "/lib/security/cacerts");
-				String trustStorePassword = ConfigAdapter.getDefaultConfig().getConfigString("sslTrustStorePwd").replace("@DEFAULT", "changeit");
-				String trustStoreType = ConfigAdapter.getDefaultConfig().getConfigString("sslTrustStoreType");
-				System.setProperty("javax.net.ssl.keyStore", keyStoreFile);
-				System.setProperty("javax.net.ssl.keyStorePassword", keyStorePassword);
-				System.setProperty("javax.net.ssl.keyStoreType", keyStoreType);
-				System.setProperty("javax.net.ssl.trustStore", trustStore);
-				System.setProperty("javax.net.ssl.trustStorePassword", trustStorePassword);
-				if (!trustStoreType.equals("@DEFAULT"))
-					System.setProperty("javax.net.ssl.trustStoreType", trustStoreType);
-				
-				try {
-					Logger.gdL().logInfo("Opening Server-Socket on Port " + PORT + " - " + NAME);
-					serverSocket = (SSLServerSocket) ((SSLServerSocketFactory) SSLServerSocketFactory.getDefault()).createServerSocket(port, maxConnections);
-				    serverSocket.setEnabledCipherSuites(serverSocket.getSupportedCipherSuites());
-					serverSocket.setEnabledProtocols(serverSocket.getSupportedProtocols());
-				} catch (IOException e) {
-					Logger.gdL().logError("An error occured while opening the ServerListener! Exiting... - " + NAME);
-					Logger.gdL().logException(e);
-				}
-				// END Setting up Listener
-				
-				Logger.gdL().logInfo("Starting listening on port " + PORT + " - " + NAME);
-				
-				// START Listening
-				while(running) {
-					try {
-						// Wait for incoming Connections which will be given into a new ServerConnection
-						SSLSocket socket = (SSLSocket) serverSocket.accept();
-						
-						// DDoS-Protection
-						cleanUpDdos();
-						
-						// Probing for DDoS
-						String inetAddress = socket.getInetAddress().getHostAddress();
-						if (!ddosProtection.containsKey(inetAddress)) {
-							Vector2D<Integer, Long> vec = new Vector2D<Integer, Long>(0, System.currentTimeMillis());
-							ddosProtection.put(inetAddress, vec);
-						} else {
-							Vector2D<Integer, Long> result = ddosProtection.get(inetAddress);
-							int amounts = result.data1;
-							long time = result.data2;
-							if (amounts > MAX_CON_ATTEMPTS_PER_MINUTE) {
-								Logger.gdL().logWarning("Possible DDoS-Attack detected from " + inetAddress + "! Disconnecting...");
-								new PrintStream(socket.getOutputStream(), true).println("ERROR>>DDOS");
-								socket.close();
-								Logger.gdL().logWarning("Disconnected potential DDoS-Attacker " + inetAddress);
-								// extra Security
-								if (amounts > (MAX_CON_ATTEMPTS_PER_MINUTE + 10)) time += 1000;
-							}
-							amounts++;
-							ddosProtection.put(inetAddress, new Vector2D<Integer, Long>(amounts, time));
-						}
-						try {
-							Thread t = new Thread(new ServerConnection(socket, INSTANCE));
-							t.setDaemon(true);
-							t.start();
-							Logger.gdL().logInfo("Started Connection with " + socket.getInetAddress() + ":" + socket.getPort() + " - " + NAME);
-						} catch(IOException e) {
-							if (e instanceof AuthenticationException) {
-								Logger.gdL().logWarning("Wrong password and/or username for " + socket.getInetAddress() + ":" + socket.getPort() + " - " + NAME);
-							} else {
-								Logger.gdL().logError("An error occured while trying to open new connection to " + socket.getInetAddress() + ":" + socket.getPort() + " - " + NAME);
-								Logger.gdL().logException(e);
-							}
-						}
-
-						// MAX_CONNECTIONS-functionality
-						connections++;
-						if (connections == MAX_CONNECTIONS) {
-							Logger.gdL().logWarning("Max-Connections reached! Setting lock - " + NAME);
-							try {
-								synchronized(INSTANCE) {
-									locked=true;
-									INSTANCE.wait();
-								}
-							} catch (InterruptedException e) {
-								Logger.gdL().logError("An error occured while locking the Server");
-								Logger.gdL().logException(e);
-							}
-							locked=false;
-							Logger.gdL().logInfo("Releasing lock - " + NAME);
-						}
-					} catch (IOException e) {
-						Logger.gdL().logError("An error occured while opening new Connection! Exiting... - " + NAME);
-						Logger.gdL().logException(e);
-						if (!running) {
-							try {
-								serverSocket.close();
-							} catch (IOException e1) {
-								Logger.gdL().logError("Could not close socket on port " + port + "!");
-								Logger.gdL().logException(e1);
-							}
-							return;
-						}
-					}
-				}
-				// END Listening
-				
-				Logger.gdL().logInfo("Stopping listening - " + NAME);
-				
-				// START Closing Socket
+		}
+
+		// Starting ConnectionHandler
+		for (Acceptor acceptor : acceptors)
+			acceptor.start();
+
+		if (!unixSocket.equals("NONE")) {
+			unixListener = new UnixSocketListener(unixSocket, unixSocketPermissions, INSTANCE);
+			unixListener.start();
+		}
+	}
+
+	/**
+	 * Returns the listening channel this process inherited on {@link #PORT}, for example by systemd socket-activation.
+	 * 
+	 * @return the inherited channel or <code>null</code> if there is none
+	 */
+	private ServerSocketChannel getInheritedChannel() {
+		try {
+			Channel channel = System.inheritedChannel();
+			if (!(channel instanceof ServerSocketChannel)) return null;
+			ServerSocketChannel serverChannel = (ServerSocketChannel) channel;
+			if (((InetSocketAddress) serverChannel.getLocalAddress()).getPort() != PORT) {
+				Logger.gdL().logWarning("Inherited channel " + serverChannel.getLocalAddress() + " does not listen on port " + PORT + " and gets ignored - " + NAME);
+				return null;
+			}
+			Logger.gdL().logInfo("Using inherited channel " + serverChannel.getLocalAddress() + " - " + NAME);
+			return serverChannel;
+		} catch (IOException | SecurityException e) {
+			Logger.gdL().logWarning("Could not check for an inherited channel - " + NAME);
+			Logger.gdL().logException(e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns whether at least one {@link Acceptor} is listening on {@link #PORT}.
+	 * 
+	 * @return <code>true</code> if new Clients can connect
+	 */
+	public boolean isListening() {
+		for (Acceptor acceptor : acceptors)
+			if (acceptor.isListening()) return true;
+		return false;
+	}
+	
+	/**
+	 * Loads the SSL-Key- and -Truststore into the System-Properties which are used by the {@link SSLServerSocketFactory#getDefault() default SSLServerSocketFactory}.
+	 */
+	private void loadCertificates() {
+		Logger.gdL().logInfo("Importing SSL-Key and -Truststore");
+		String keyStoreFile = ConfigAdapter.getDefaultConfig().getConfigString("sslKeyStore");
+		String keyStorePassword = ConfigAdapter.getDefaultConfig().getConfigString("sslKeyStorePwd");
+		String keyStoreType = ConfigAdapter.getDefaultConfig().getConfigString("sslKeyStoreType");
+		String trustStore = ConfigAdapter.getDefaultConfig().getConfigString("sslTrustStore").replace("@DEFAULT", System.getProperty("java.home") + "/lib/security/cacerts");
+		String trustStorePassword = ConfigAdapter.getDefaultConfig().getConfigString("sslTrustStorePwd").replace("@DEFAULT", "changeit");
+		String trustStoreType = ConfigAdapter.getDefaultConfig().getConfigString("sslTrustStoreType");
+		System.setProperty("javax.net.ssl.keyStore", keyStoreFile);
+		System.setProperty("javax.net.ssl.keyStorePassword", keyStorePassword);
+		System.setProperty("javax.net.ssl.keyStoreType", keyStoreType);
+		System.setProperty("javax.net.ssl.trustStore", trustStore);
+		System.setProperty("javax.net.ssl.trustStorePassword", trustStorePassword);
+		if (!trustStoreType.equals("@DEFAULT"))
+			System.setProperty("javax.net.ssl.trustStoreType", trustStoreType);
+	}
+
+	/**
+	 * Reserves one of the {@link #MAX_CONNECTIONS} for the given stripe of {@link #connections}.</br>
+	 * If all connections are in use the calling {@link Acceptor} waits until a connection gets closed or the ConnectionHandler stops.
+	 *
+	 * @param shard the stripe of {@link #connections} to count the connection in
+	 * @return <code>false</code> if the ConnectionHandler stopped while waiting
+	 */
+	private boolean reserveConnection(int shard) {
+		boolean logged = false;
+		while (running) {
+			connections[shard].incrementAndGet();
+			if (getConnections() <= MAX_CONNECTIONS) {
+				if (logged) Logger.gdL().logInfo("Releasing lock - " + NAME);
+				return true;
+			}
+			connections[shard].decrementAndGet();
+
+			if (!logged) {
+				Logger.gdL().logWarning("Max-Connections reached! Setting lock - " + NAME);
+				logged = true;
+			}
+			synchronized (INSTANCE) {
+				locked.incrementAndGet();
 				try {
-					Logger.gdL().logInfo("Closing Server-Socket - " + NAME);
-					serverSocket.close();
-				} catch (IOException e) {
-					Logger.gdL().logWarning("Couldn't close Server-Socket safely! - " + NAME);
+					// The timeout protects against a connection closing between the check and the wait
+					if (running && getConnections() >= MAX_CONNECTIONS) INSTANCE.wait(1000);
+				} catch (InterruptedException e) {
+					Logger.gdL().logError("An error occured while locking the Server");
 					Logger.gdL().logException(e);
+				} finally {
+					locked.decrementAndGet();
 				}
-				// END Closing Socket
 			}
-			
-		});
-		
-		// Starting ConnectionHandler
-		worker.start();
-		
+		}
+		return false;
 	}
-	
+
+	/**
+	 * Adds 1 to the running {@link #connections}.</br>
+	 * This is used by the {@link UnixSocketListener} which does not get blocked by {@link #MAX_CONNECTIONS}.
+	 */
+	void addConnection() {
+		connections[ACCEPTORS].incrementAndGet();
+	}
+
 	/**
 	 * Subtracts 1 from the running {@link #connections}.
+	 *
+	 * @param shard the stripe the connection was counted in. This is the index of the {@link Acceptor} or {@link #ACCEPTORS} for the {@link UnixSocketListener}.
+	 */
+	void removeConnection(int shard) {
+		connections[shard].decrementAndGet();
+	}
+
+	/**
+	 * Returns the sum of all running {@link #connections}.
+	 *
+	 * @return amount of running connections
 	 */
-	synchronized void removeConnection() {
-		connections--;
+	public int getConnections() {
+		int sum = 0;
+		for (AtomicInteger stripe : connections)
+			sum += stripe.get();
+		return sum;
+	}
+
+	/**
+	 * Creates the controller used for all calls.</br>
+	 * If <code>dbDataSources</code> lists further Databases as <code>name=host:port/name,minBuffer,targetBuffer,maxBuffer,timeout</code> separated by <code>;</code>
+	 * every one gets its own {@link MultiDatabaseController} behind a {@link RoutingDatabaseController}. Missing values are taken from the main Database.
+	 * See {@link #createMainDatabase(String, int, String, String, String, int, int, int, long)} for the main Database.
+	 *
+	 * @return the controller used for all calls
+	 */
+	private static DatabaseController createDatabase(String host, int port, String usr, String pwd, String name, int minBuf, int targetBuf, int maxBuf, long timeout) {
+		DatabaseController main = createMainDatabase(host, port, usr, pwd, name, minBuf, targetBuf, maxBuf, timeout);
+		String sourceList = ConfigAdapter.getDefaultConfig().getConfigString("dbDataSources").replace(" ", "");
+		if (sourceList.isEmpty()) return main;
+
+		boolean exitOnError = Boolean.parseBoolean(ConfigAdapter.getDefaultConfig().getConfigString("dbExitOnError"));
+		LinkedHashMap<String, DatabaseController> sources = new LinkedHashMap<String, DatabaseController>();
+		for (String source : sourceList.split(";")) {
+			if (!source.contains("=")) continue;
+			String sourceName = source.substring(0, source.indexOf('='));
+			String[] values = source.substring(source.indexOf('=') + 1).split(",");
+			String endpoint = values[0].contains("/") ? values[0].substring(0, values[0].indexOf('/')) : values[0];
+			String dbName = values[0].contains("/") ? values[0].substring(values[0].indexOf('/') + 1) : name;
+			int sourceMin = values.length > 1 ? (int) Maths.calculate(values[1]) : minBuf;
+			int sourceTarget = values.length > 2 ? (int) Maths.calculate(values[2]) : targetBuf;
+			int sourceMax = values.length > 3 ? (int) Maths.calculate(values[3]) : maxBuf;
+			long sourceTimeout = values.length > 4 ? (long) Maths.calculate(values[4]) : timeout;
+			int workers = Integer.parseInt(ConfigAdapter.getDefaultConfig().getConfigString("dbExecuterWorkers").replace("MAX", sourceMax + ""));
+			Logger.gdL().logInfo("Connecting to the data source " + sourceName + " at " + values[0]);
+			sources.put(sourceName, new MultiDatabaseController(getHost(endpoint), getPort(endpoint, port), usr, pwd, dbName,
+					sourceMin, sourceTarget, sourceMax, sourceTimeout, true, exitOnError, workers, null, sourceName));
+		}
+		return new RoutingDatabaseController(main, sources);
+	}
+
+	/**
+	 * Creates the controller of the main Database.</br>
+	 * If <code>dbShards</code> lists <code>host:port/name</code>-entries one {@link MultiDatabaseController} per shard gets created behind a {@link ShardedDatabaseController}.
+	 * Otherwise the {@link MultiDatabaseController} of the primary Database gets created and, if <code>dbReplicas</code> lists <code>host:port</code>-pairs,
+	 * one {@link MultiDatabaseController} per read-replica behind a {@link ReplicatedDatabaseController}.
+	 * Shards and replicas use the credentials and the buffer-sizes of the primary, missing ports and names are taken from it.
+	 *
+	 * @return the controller of the main Database
+	 */
+	private static DatabaseController createMainDatabase(String host, int port, String usr, String pwd, String name, int minBuf, int targetBuf, int maxBuf, long timeout) {
+		String shardList = ConfigAdapter.getDefaultConfig().getConfigString("dbShards").replace(" ", "");
+		String replicaList = ConfigAdapter.getDefaultConfig().getConfigString("dbReplicas").replace(" ", "");
+		boolean exitOnError = Boolean.parseBoolean(ConfigAdapter.getDefaultConfig().getConfigString("dbExitOnError"));
+		int workers = Integer.parseInt(ConfigAdapter.getDefaultConfig().getConfigString("dbExecuterWorkers").replace("MAX", maxBuf + ""));
+
+		if (!shardList.isEmpty()) {
+			if (!replicaList.isEmpty()) Logger.gdL().logWarning("dbReplicas get ignored because dbShards is set");
+			String[] endpoints = shardList.split(",");
+			MultiDatabaseController[] shards = new MultiDatabaseController[endpoints.length];
+			for (int i = 0; i < endpoints.length; i++) {
+				String endpoint = endpoints[i].contains("/") ? endpoints[i].substring(0, endpoints[i].indexOf('/')) : endpoints[i];
+				String shardName = endpoints[i].contains("/") ? endpoints[i].substring(endpoints[i].indexOf('/') + 1) : name;
+				Logger.gdL().logInfo("Connecting to the shard " + endpoints[i]);
+				shards[i] = new MultiDatabaseController(getHost(endpoint), getPort(endpoint, port), usr, pwd, shardName, minBuf, targetBuf, maxBuf, timeout, true, exitOnError, workers);
+			}
+			return new ShardedDatabaseController(shards, endpoints, (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbShardVirtualNodes")));
+		}
+
+		MultiDatabaseController primary = new MultiDatabaseController(host, port, usr, pwd, name, minBuf, targetBuf, maxBuf, timeout, true);
+		if (replicaList.isEmpty()) return primary;
+
+		String[] endpoints = replicaList.split(",");
+		MultiDatabaseController[] replicas = new MultiDatabaseController[endpoints.length];
+		for (int i = 0; i < endpoints.length; i++) {
+			Logger.gdL().logInfo("Connecting to the read-replica " + endpoints[i]);
+			replicas[i] = new MultiDatabaseController(getHost(endpoints[i]), getPort(endpoints[i], port), usr, pwd, name, minBuf, targetBuf, maxBuf, timeout, true, exitOnError, workers, primary);
+		}
+		return new ReplicatedDatabaseController(primary, replicas,
+				(long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbReplicaCheckPeriod")),
+				(long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbReplicaCheckTimeout")),
+				(int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbReplicaMaxFailures")));
+	}
+
+	private static String getHost(String endpoint) {
+		return endpoint.contains(":") ? endpoint.substring(0, endpoint.lastIndexOf(':')) : endpoint;
+	}
+
+	private static int getPort(String endpoint, int defaultPort) {
+		return endpoint.contains(":") ? Integer.parseInt(endpoint.substring(endpoint.lastIndexOf(':') + 1)) : defaultPort;
+	}
+
+	/**
+	 * Returns the statistics of the open connections like the idle-time distribution of the {@link #REAPER}.
+	 * 
+	 * @return statistics for the logs
+	 */
+	public String getStatistics() {
+		StringBuilder builder = new StringBuilder("Statistics of " + NAME + ":" + Logger.SEPERATOR);
+		for (int i = 0; i < connections.length; i++)
+			builder.append(String.format("%1$-20s %2$s", "\t- " + (i == ACCEPTORS ? "Unix-Socket:" : "Acceptor " + i + ":"), connections[i].get()) + Logger.SEPERATOR);
+		builder.append(REAPER.getStatistics() + Logger.SEPERATOR);
+		builder.append(DATABASE.getStatistics());
+		return builder.toString();
 	}
 	
 	/**
 	 * Returns whether the ConnectionHandler is running or not.
-	 * 
+	 *
 	 * @return {@link #running}
 	 */
 	public boolean isRunning() {
 		return running;
 	}
-	
+
 	/**
-	 * Returns whether the ConnectionHandler is {@link #locked} or not.
-	 * 
-	 * @return {@link #locked}
+	 * Returns whether at least one {@link Acceptor} is {@link #locked} or not.
+	 *
+	 * @return whether {@link #locked} is greater than 0
 	 */
 	public boolean isLocked() {
-		return locked;
+		return locked.get() > 0;
 	}
-	
+
 	/**
-	 * Stops the {@link ConnectionHandler}.</br>
-	 * There are 2 possibilities for this:</br>
-	 * <ul><li>If the {@link #lock} has been set then {@link #lock} will just be removed</li>
-	 * <li>Else a Poisoning-Pill-Connection will be used to interrupt the waiting-State of the {@link #serverSocket} which causes {@link #worker} to wait</li></ul>
+	 * Stops the {@link ConnectionHandler} by draining all connections:<ul>
+	 * <li>All {@link Acceptor Acceptors} which are waiting for {@link #MAX_CONNECTIONS} get notified and all Server-Sockets get closed
+	 * which interrupts the waiting-State of {@link SSLServerSocket#accept()}</li>
+	 * <li>Every Client gets told to reconnect after {@link #DRAIN_RETRY_AFTER} seconds. Clients which are waiting for an answer get it first</li>
+	 * <li>After all connections are closed or {@link #DRAIN_TIMEOUT} is reached the {@link #DATABASE} gets stopped</li>
+	 * </ul>
+	 * The progress gets reported to the {@link ConsoleSenderReceiver}.
 	 */
 	public void stop() {
+		ConsoleSenderReceiver.report("Draining " + NAME + " (timeout: " + DRAIN_TIMEOUT + " milliseconds)");
 		running = false;
-		
-		// This will release the lock from the worker
-		SSLSocket poiseningPill;
-		try {
-			// Possible Way 1
-			if (locked) {
-				Logger.gdL().logInfo("Closing the Server by unlocking the [Lock] - " + NAME);
-				synchronized(INSTANCE) {
-					INSTANCE.notify();
-				}
+
+		if (unixListener != null)
+			unixListener.shutdown();
+
+		// This will release the lock from the acceptors
+		if (isLocked()) {
+			Logger.gdL().logInfo("Closing the Server by unlocking the [Lock] - " + NAME);
+			synchronized(INSTANCE) {
+				INSTANCE.notifyAll();
 			}
-			// Possible Way 2
-			else {
-				Logger.gdL().logInfo("Initializing [Poisening-Pill] to close the Server-Socket - " + NAME);
-				poiseningPill = (SSLSocket) SSLSocketFactory.getDefault().createSocket("localhost", PORT);
-				poiseningPill.close();
+		}
+		for (Acceptor acceptor : acceptors)
+			acceptor.closeSocket();
+
+		// Waits until Threads actually died --> The Server will securely be shutdown
+		for (Acceptor acceptor : acceptors) {
+			try {
+				acceptor.join(1000);
+			} catch (InterruptedException e) {
+				Logger.gdL().logError("An Error occured while waiting for the acceptor " + acceptor.SHARD + " to join! - " + NAME);
+				Logger.gdL().logException(e);
 			}
+		}
+		ConsoleSenderReceiver.report("Server-Sockets successfully closed. No new connections are accepted - " + NAME);
+
+		drainConnections();
+		REAPER.shutdown();
 
-			// Waits until Thread actually died --> The Server will securely be shutdown
+		Logger.gdL().logInfo("Shutting down DB-Controller");
+		DATABASE.stop();
+		Logger.gdL().logInfo("DB-Controller successfully closed");
+	}
+
+	/**
+	 * Tells all open connections to go away and waits up to {@link #DRAIN_TIMEOUT} milliseconds for running requests.
+	 */
+	private void drainConnections() {
+		Set<ServerConnection> open = REAPER.getConnections();
+		ConsoleSenderReceiver.report("Telling " + open.size() + " connection(s) to reconnect in " + DRAIN_RETRY_AFTER + " seconds - " + NAME);
+		for (ServerConnection connection : open.toArray(new ServerConnection[0]))
+			connection.drain();
+
+		long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+		int lastReported = -1;
+		while (!open.isEmpty() && System.currentTimeMillis() < deadline) {
+			if (open.size() != lastReported) {
+				lastReported = open.size();
+				int processing = 0;
+				for (ServerConnection connection : open)
+					if (connection.processing) processing++;
+				ConsoleSenderReceiver.report("Waiting for " + lastReported + " connection(s), " + processing + " still processing - " + NAME);
+			}
 			try {
-				worker.join(1000);
+				Thread.sleep(100);
 			} catch (InterruptedException e) {
-				Logger.gdL().logError("An Error occured while waiting for the worker to join! - " + NAME);
+				Logger.gdL().logError("An error occured while draining the connections - " + NAME);
+				Logger.gdL().logException(e);
+				break;
+			}
+		}
+
+		if (!open.isEmpty()) {
+			ConsoleSenderReceiver.report(open.size() + " connection(s) did not finish in time. Closing them - " + NAME);
+			for (ServerConnection connection : open.toArray(new ServerConnection[0]))
+				connection.reap("drain-timeout reached");
+		}
+		ConsoleSenderReceiver.report("All connections drained - " + NAME);
+	}
+
+	/**
+	 * Listens on one {@link SSLServerSocket} of {@link ConnectionHandler#PORT} and starts a {@link ServerConnection} for every accepted Client.</br>
+	 * Every Acceptor has its own stripe of {@link ConnectionHandler#connections} and its own {@link #ddosProtection} so Acceptors never contend with each other.
+	 *
+	 * @author Cedric
+	 * @see ConnectionHandler
+	 */
+	private class Acceptor extends Thread {
+
+		/**
+		 * The Socket Clients can connect to if the Acceptor is not {@link ConnectionHandler#locked locked}.</br>
+		 * This is a {@link SSLServerSocket} unless the Acceptor uses an inherited channel.
+		 */
+		private volatile ServerSocket serverSocket;
+		/**
+		 * Indicates whether TLS has to be layered over the accepted Sockets as the {@link #serverSocket} is an inherited plain socket.
+		 */
+		private boolean layered;
+		/**
+		 * Shows how often a person from a certain ip connected within the last minute on this Acceptor.</br>
+		 * This is only accessed by this Acceptor.
+		 */
+		private final HashMap<String, Vector2D<Integer, Long>> ddosProtection;
+		/**
+		 * The last time {@link #cleanUpDdos()} was executed.
+		 */
+		private long lastCleanUp;
+		/**
+		 * The index of this Acceptor and its stripe of {@link ConnectionHandler#connections}.
+		 */
+		final int SHARD;
+
+		Acceptor(int shard) {
+			super(NAME + "-Acceptor-" + shard);
+			this.SHARD = shard;
+			this.ddosProtection = new HashMap<String, Vector2D<Integer, Long>>();
+			this.lastCleanUp = System.currentTimeMillis();
+		}
+
+		/**
+		 * Removes connections which long enough did not try to connect.</br>
+		 * This runs at most once per second.</br>
+		 * </br>
+		 * <i>Note: This is just a first implementation of a DDoS-Protection and should be rewritten if used in bigger Applications.</i>
+		 */
+		private void cleanUpDdos(long now) {
+			if (now - lastCleanUp < 1000) return;
+			lastCleanUp = now;
+			for (Iterator<Vector2D<Integer, Long>> i = ddosProtection.values().iterator(); i.hasNext();)
+				if (i.next().data2 + 60000 < now) i.remove();
+		}
+
+		/**
+		 * Probes the given address for DDoS.
+		 *
+		 * @param inetAddress the address of the new Client
+		 * @return <code>true</code> if the Client connected more often than {@link ConnectionHandler#MAX_CON_ATTEMPTS_PER_MINUTE}
+		 */
+		private boolean isDdos(String inetAddress) {
+			long now = System.currentTimeMillis();
+			cleanUpDdos(now);
+			Vector2D<Integer, Long> result = ddosProtection.get(inetAddress);
+			if (result == null) {
+				ddosProtection.put(inetAddress, new Vector2D<Integer, Long>(1, now));
+				return false;
+			}
+			int amounts = result.data1 + 1;
+			long time = result.data2;
+			// extra Security
+			if (amounts > (MAX_CON_ATTEMPTS_PER_MINUTE + 10)) time += 1000;
+			ddosProtection.put(inetAddress, new Vector2D<Integer, Long>(amounts, time));
+			return amounts > MAX_CON_ATTEMPTS_PER_MINUTE;
+		}
+
+		/**
+		 * Opens the {@link #serverSocket}. If {@link ConnectionHandler#REUSE_PORT} is set <code>SO_REUSEPORT</code> gets set.
+		 *
+		 * @param inherited an inherited channel to use instead of binding a new socket or <code>null</code>
+		 * @throws IOException if the socket cannot be opened
+		 */
+		void openSocket(ServerSocketChannel inherited) throws IOException {
+			if (inherited != null) {
+				Logger.gdL().logInfo("Listening with Server-Socket " + SHARD + " on inherited channel - " + NAME);
+				serverSocket = inherited.socket();
+				layered = true;
+				return;
+			}
+			Logger.gdL().logInfo("Opening Server-Socket " + SHARD + " on Port " + PORT + " - " + NAME);
+			SSLServerSocket sslSocket = (SSLServerSocket) ((SSLServerSocketFactory) SSLServerSocketFactory.getDefault()).createServerSocket();
+			serverSocket = sslSocket;
+			if (REUSE_PORT) {
+				if (!sslSocket.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+					throw new IOException("SO_REUSEPORT is not supported on this system. Set chAcceptors to 1 and restartMode to COLD!");
+				sslSocket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+			}
+			sslSocket.bind(new InetSocketAddress(PORT), MAX_CONNECTIONS);
+			sslSocket.setEnabledCipherSuites(sslSocket.getSupportedCipherSuites());
+			sslSocket.setEnabledProtocols(sslSocket.getSupportedProtocols());
+		}
+		
+		/**
+		 * Returns whether the {@link #serverSocket} is open.
+		 * 
+		 * @return <code>true</code> if the Acceptor can accept Clients
+		 */
+		boolean isListening() {
+			return serverSocket != null && serverSocket.isBound() && !serverSocket.isClosed();
+		}
+		
+		/**
+		 * Accepts the next Client. If the Acceptor is {@link #layered} TLS gets started on the accepted Socket.
+		 * 
+		 * @return the accepted Client
+		 * @throws IOException if an error occurs while accepting
+		 */
+		private SSLSocket accept() throws IOException {
+			Socket socket = serverSocket.accept();
+			if (!layered) return (SSLSocket) socket;
+			SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(socket, socket.getInetAddress().getHostAddress(), socket.getPort(), true);
+			sslSocket.setUseClientMode(false);
+			sslSocket.setEnabledCipherSuites(sslSocket.getSupportedCipherSuites());
+			sslSocket.setEnabledProtocols(sslSocket.getSupportedProtocols());
+			return sslSocket;
+		}
+
+		/**
+		 * Closes the {@link #serverSocket} so {@link SSLServerSocket#accept()} returns.
+		 */
+		void closeSocket() {
+			try {
+				if (serverSocket != null && !serverSocket.isClosed()) {
+					Logger.gdL().logInfo("Closing Server-Socket " + SHARD + " - " + NAME);
+					serverSocket.close();
+				}
+			} catch (IOException e) {
+				Logger.gdL().logWarning("Couldn't close Server-Socket " + SHARD + " safely! - " + NAME);
 				Logger.gdL().logException(e);
 			}
-			Logger.gdL().logInfo("Server-Socket successfully closed - " + NAME);
-			
-			Logger.gdL().logInfo("Shutting down DB-Controller");
-			DATABASE.stop();
-			Logger.gdL().logInfo("DB-Controller successfully closed");
-			
-		} catch (IOException e) {
-			// The exception gets raised when the ServerSocket is already closed due to a new connection
-			Logger.gdL().logWarning("The connection to the Server is already closed. This means there was an other connection before this one. - " + NAME);
 		}
-			
+
+		@Override
+		public void run() {
+			if (!isListening()) {
+				Logger.gdL().logError("ServerListener " + SHARD + " is not open! Exiting... - " + NAME);
+				return;
+			}
+
+			Logger.gdL().logInfo("Starting listening on port " + PORT + " [" + SHARD + "] - " + NAME);
+
+			// START Listening
+			while (running) {
+				// MAX_CONNECTIONS-functionality
+				if (!reserveConnection(SHARD)) break;
+
+				SSLSocket socket = null;
+				try {
+					// Wait for incoming Connections which will be given into a new ServerConnection
+					socket = accept();
+				} catch (IOException e) {
+					removeConnection(SHARD);
+					if (!running) break;
+					Logger.gdL().logError("An error occured while opening new Connection! - " + NAME);
+					Logger.gdL().logException(e);
+					continue;
+				}
+
+				try {
+					// Probing for DDoS
+					String inetAddress = socket.getInetAddress().getHostAddress();
+					if (isDdos(inetAddress)) {
+						Logger.gdL().logWarning("Possible DDoS-Attack detected from " + inetAddress + "! Disconnecting...");
+						removeConnection(SHARD);
+						new PrintStream(socket.getOutputStream(), true).println("ERROR>>DDOS");
+						socket.close();
+						Logger.gdL().logWarning("Disconnected potential DDoS-Attacker " + inetAddress);
+						continue;
+					}
+
+					Thread t = new Thread(new ServerConnection(socket, INSTANCE, SHARD));
+					t.setDaemon(true);
+					t.start();
+					Logger.gdL().logInfo("Started Connection with " + socket.getInetAddress() + ":" + socket.getPort() + " - " + NAME);
+				} catch(IOException e) {
+					removeConnection(SHARD);
+					if (e instanceof AuthenticationException) {
+						Logger.gdL().logWarning("Wrong password and/or username for " + socket.getInetAddress() + ":" + socket.getPort() + " - " + NAME);
+					} else {
+						Logger.gdL().logError("An error occured while trying to open new connection to " + socket.getInetAddress() + ":" + socket.getPort() + " - " + NAME);
+						Logger.gdL().logException(e);
+					}
+				}
+			}
+			// END Listening
+
+			Logger.gdL().logInfo("Stopping listening [" + SHARD + "] - " + NAME);
+			closeSocket();
+		}
 	}
-	
 }
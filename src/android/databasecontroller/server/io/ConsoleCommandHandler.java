@@ -1,6 +1,8 @@
 package android.databasecontroller.server.io;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
@@ -65,6 +67,7 @@ public class ConsoleCommandHandler {
 		builder.append(String.format("%1$-60s", " - start") + "Starts the Server (equal to call with no args)" + Logger.SEPERATOR);
 		builder.append(String.format("%1$-60s", " - config \"<argToChange>\" \"<newValue>\" [true/y(es)]") + "For permanent changes set the 3rd arg to yes or true" + Logger.SEPERATOR + String.join("", Collections.nCopies(60, " ")) + "NOTE: The Server will automatically start if the change is not permanent!" + Logger.SEPERATOR);
 		builder.append(String.format("%1$-60s", " - reload") + "Reloads active procedures" + Logger.SEPERATOR);
+		builder.append(String.format("%1$-60s", " - stats") + "Logs statistics of the running Server" + Logger.SEPERATOR);
 		// Not implemented yet
 		builder.append(String.format("%1$-60s", " - blacklist <ip>") + "Blacklists a certain IP-Adress (not implemented yet)" + Logger.SEPERATOR);
 		builder.append(String.format("%1$-60s", " - whitelist <ip>") + "Whitelists a certain IP-Adress (not implemented yet)"+ Logger.SEPERATOR);
@@ -85,6 +88,16 @@ public class ConsoleCommandHandler {
 			socket.setEnabledProtocols(socket.getSupportedProtocols());
 			PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
 			writer.println(command);
+			// The Server reports the progress of the command until it closes the connection
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			String line;
+			try {
+				while ((line = reader.readLine()) != null)
+					System.out.println("[I] " + line);
+			} catch (IOException e) {
+				// The Server may exit without closing the connection on STOP or RESTART
+				System.out.println("[I] Connection closed by the Server");
+			}
 			writer.close();
 			socket.close();
 		} catch (NumberFormatException | IOException | KeyManagementException | KeyStoreException | NoSuchAlgorithmException | CertificateException | NoSuchProviderException | UnrecoverableKeyException e) {
@@ -114,6 +127,9 @@ public class ConsoleCommandHandler {
 		case "reload":
 			communicateWithRunningServer("RELOAD");
 			return false;
+		case "stats":
+			communicateWithRunningServer("STATS");
+			return false;
 		case "config":
 			boolean returnVal = false;
 			try {
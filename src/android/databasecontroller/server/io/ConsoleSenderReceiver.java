@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintWriter;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -24,7 +25,11 @@ import utils.networking.Security;
 
 public class ConsoleSenderReceiver {
 	
-	private static SSLServerSocket socket;
+	private static volatile SSLServerSocket socket;
+	/**
+	 * The output of the ConsoleSender whose command is handled at the moment or <code>null</code>.
+	 */
+	private static volatile PrintWriter current;
 	
 	public final static String keyStoreLoc;
 	public final static String keyStoreType;
@@ -56,6 +61,12 @@ public class ConsoleSenderReceiver {
 		case "RELOAD":
 			ProcedureLoader.initProcedures();
 			break;
+		case "STATS":
+			if (Server.getConnectionHandler() != null)
+				report(Server.getConnectionHandler().getStatistics());
+			else
+				Logger.gdL().logWarning("The ConnectionHandler is not running yet");
+			break;
 		default:
 			Logger.gdL().logWarning("Unknown Console-Command " + cmd);
 		}
@@ -80,8 +91,13 @@ public class ConsoleSenderReceiver {
 				while (!socket.isClosed()) {
 					SSLSocket con = (SSLSocket) socket.accept();
 					String cmd = new BufferedReader(new InputStreamReader(con.getInputStream())).readLine();
-					con.close();
-					handle(cmd);
+					current = new PrintWriter(con.getOutputStream(), true);
+					try {
+						handle(cmd);
+					} finally {
+						current = null;
+						con.close();
+					}
 				}
 			} catch(SecurityException e) {
 				Logger.gdL().logWarning("ConsoleSender-Receiver was closed");
@@ -96,6 +112,28 @@ public class ConsoleSenderReceiver {
 		}
 	}
 
+	/**
+	 * Logs the given progress and sends it to the ConsoleSender whose command is handled at the moment.
+	 * 
+	 * @param s the progress to report
+	 */
+	public static void report(String s) {
+		Logger.gdL().logInfo(s);
+		PrintWriter writer = current;
+		if (writer != null)
+			writer.println(s);
+	}
+
+	/**
+	 * Returns whether the {@link ConsoleSenderReceiver} listens on its port at the moment.
+	 * 
+	 * @return <code>true</code> if the {@link SSLServerSocket} is open
+	 */
+	public static boolean isActive() {
+		SSLServerSocket s = socket;
+		return s != null && !s.isClosed();
+	}
+
 	public static void stop() {
 		try {
 			if (socket == null || socket.isClosed())
@@ -0,0 +1,243 @@
+package android.databasecontroller.server.io;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import utils.io.Logger;
+import utils.mechanics.Clock;
+
+/**
+ * Closes {@link ServerConnection ServerConnections} which were quiet for longer than {@link #IDLE_TIMEOUT} or which are open for longer than {@link #MAX_LIFETIME}.</br></br>
+ *
+ * All connections are kept in a hashed timing-wheel of {@link #SLOTS} slots where every slot covers {@link #TICK} milliseconds.
+ * A connection sits in the slot of its next possible deadline. Every tick only the current slot gets checked: connections which were active in the meantime
+ * are moved to the slot of their new deadline, the others get closed. This makes every tick O(1) per visited connection no matter how many connections are open.</br>
+ * The timer-state of a connection are just a few fields of the {@link ServerConnection} itself, there is no {@link Thread} per connection.</br></br>
+ *
+ * <b>Use:</b> {@link #register(ServerConnection)} every new connection and call {@link ServerConnection#touch()} on every activity.
+ * Closed connections get removed lazily when their slot is visited.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category networking
+ */
+public class IdleReaper extends Clock {
+
+	// *************
+	// * Constants *
+	// *************
+	/**
+	 * The amount of slots of the {@link #wheel}. Has to be a power of two.
+	 */
+	public static final int SLOTS = 512;
+	/**
+	 * The upper bounds in milliseconds of the buckets returned by {@link #getIdleDistribution()}.
+	 */
+	public static final long[] DISTRIBUTION_BOUNDS = new long[] {1000, 5000, 15000, 60000, 300000, Long.MAX_VALUE};
+
+	/**
+	 * Time in milliseconds after which a quiet connection gets closed.
+	 */
+	public final long IDLE_TIMEOUT;
+	/**
+	 * Time in milliseconds after which every connection gets closed. <code>0</code> means that connections may live forever.
+	 */
+	public final long MAX_LIFETIME;
+	/**
+	 * Time in milliseconds one slot of the {@link #wheel} covers.
+	 */
+	public final long TICK;
+	/**
+	 * Name of the {@link ConnectionHandler} for the logs.
+	 */
+	private final String NAME;
+
+	// **********
+	// * Fields *
+	// **********
+	/**
+	 * The heads of the slot-lists. This is only accessed by the reaper-thread.
+	 */
+	private final ServerConnection[] wheel;
+	/**
+	 * New connections which get moved into the {@link #wheel} with the next tick.
+	 */
+	private final ConcurrentLinkedQueue<ServerConnection> pending;
+	/**
+	 * All open connections which got {@link #register(ServerConnection) registered}.
+	 */
+	private final Set<ServerConnection> connections;
+	/**
+	 * The last tick which was processed by the reaper-thread.
+	 */
+	private long currentTick;
+	/**
+	 * The amount of connections closed because of {@link #IDLE_TIMEOUT}.
+	 */
+	private volatile long reapedIdle;
+	/**
+	 * The amount of connections closed because of {@link #MAX_LIFETIME}.
+	 */
+	private volatile long reapedLifetime;
+
+	/**
+	 * Creates a new {@link IdleReaper}. Call {@link #start()} to start reaping.
+	 *
+	 * @param idleTimeout equals {@link #IDLE_TIMEOUT}
+	 * @param maxLifetime equals {@link #MAX_LIFETIME}
+	 * @param tick equals {@link #TICK}
+	 * @param name name of the {@link ConnectionHandler} for the logs
+	 */
+	public IdleReaper(long idleTimeout, long maxLifetime, long tick, String name) {
+		super(tick / 1000f);
+		if (idleTimeout < 1 || maxLifetime < 0 || tick < 1) throw new IllegalArgumentException("Illogical arguments for the IdleReaper");
+		this.IDLE_TIMEOUT = idleTimeout;
+		this.MAX_LIFETIME = maxLifetime;
+		this.TICK = tick;
+		this.NAME = name;
+		this.wheel = new ServerConnection[SLOTS];
+		this.pending = new ConcurrentLinkedQueue<ServerConnection>();
+		this.connections = Collections.newSetFromMap(new ConcurrentHashMap<ServerConnection, Boolean>());
+		this.currentTick = System.currentTimeMillis() / tick;
+		setName(name + "-IdleReaper");
+		setDaemon(true);
+	}
+
+	/**
+	 * Starts tracking the given connection.
+	 *
+	 * @param connection the new connection
+	 */
+	public void register(ServerConnection connection) {
+		connections.add(connection);
+		pending.add(connection);
+	}
+
+	/**
+	 * Stops tracking the given connection. It will be dropped from the {@link #wheel} when its slot gets visited.
+	 *
+	 * @param connection the closed connection
+	 */
+	public void unregister(ServerConnection connection) {
+		connections.remove(connection);
+	}
+
+	/**
+	 * Returns all open connections.
+	 *
+	 * @return an unmodifiable view of the registered connections
+	 */
+	public Set<ServerConnection> getConnections() {
+		return Collections.unmodifiableSet(connections);
+	}
+
+	/**
+	 * Returns how long the open connections have been quiet.</br>
+	 * The i-th entry counts the connections which were quiet for less than {@link #DISTRIBUTION_BOUNDS}[i] milliseconds.
+	 *
+	 * @return the idle-time distribution of all open connections
+	 */
+	public long[] getIdleDistribution() {
+		long[] distribution = new long[DISTRIBUTION_BOUNDS.length];
+		long now = System.currentTimeMillis();
+		for (ServerConnection connection : connections) {
+			long idle = now - connection.lastActivity;
+			int i = 0;
+			while (idle >= DISTRIBUTION_BOUNDS[i]) i++;
+			distribution[i]++;
+		}
+		return distribution;
+	}
+
+	/**
+	 * Returns the idle-time distribution of {@link #getIdleDistribution()} together with the reaping statistics as readable {@link String}.
+	 *
+	 * @return statistics for the logs
+	 */
+	public String getStatistics() {
+		long[] distribution = getIdleDistribution();
+		StringBuilder builder = new StringBuilder("Open connections: " + connections.size() + Logger.SEPERATOR);
+		long lower = 0;
+		for (int i = 0; i < distribution.length; i++) {
+			String range = DISTRIBUTION_BOUNDS[i] == Long.MAX_VALUE ? ">= " + lower / 1000 + "s" : lower / 1000 + "s - " + DISTRIBUTION_BOUNDS[i] / 1000 + "s";
+			builder.append(String.format("%1$-20s %2$s", "\t- Idle " + range + ":", distribution[i]) + Logger.SEPERATOR);
+			lower = DISTRIBUTION_BOUNDS[i];
+		}
+		builder.append(String.format("%1$-20s %2$s", "\t- Reaped (idle):", reapedIdle) + Logger.SEPERATOR);
+		builder.append(String.format("%1$-20s %2$s", "\t- Reaped (lifetime):", reapedLifetime));
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the time in milliseconds at which the given connection has to be closed.
+	 */
+	private long getDeadline(ServerConnection connection) {
+		// A connection which is processing a command is never idle
+		long deadline = connection.processing ? Long.MAX_VALUE : connection.lastActivity + IDLE_TIMEOUT;
+		if (MAX_LIFETIME > 0) deadline = Math.min(deadline, connection.OPENED_AT + MAX_LIFETIME);
+		return deadline == Long.MAX_VALUE ? System.currentTimeMillis() + IDLE_TIMEOUT : deadline;
+	}
+
+	/**
+	 * Puts the given connection into the slot of its {@link ServerConnection#reaperDeadline}.
+	 */
+	private void schedule(ServerConnection connection) {
+		// Deadlines before the current tick would land in a slot which will not be visited for a whole round
+		long tick = Math.max(connection.reaperDeadline / TICK, currentTick + 1);
+		int slot = (int) (tick & (SLOTS - 1));
+		connection.reaperNext = wheel[slot];
+		wheel[slot] = connection;
+	}
+
+	/**
+	 * Checks all connections of the given slot.
+	 */
+	private void expire(int slot, long now) {
+		ServerConnection connection = wheel[slot];
+		wheel[slot] = null;
+		while (connection != null) {
+			ServerConnection next = connection.reaperNext;
+			connection.reaperNext = null;
+			if (connections.contains(connection)) {
+				connection.reaperDeadline = getDeadline(connection);
+				if (connection.reaperDeadline > now) {
+					schedule(connection);
+				} else {
+					boolean lifetime = MAX_LIFETIME > 0 && connection.OPENED_AT + MAX_LIFETIME <= now;
+					if (lifetime) reapedLifetime++;
+					else reapedIdle++;
+					connections.remove(connection);
+					connection.reap(lifetime ? "maximal lifetime of " + MAX_LIFETIME + " milliseconds reached" : "idle for " + (now - connection.lastActivity) + " milliseconds");
+				}
+			}
+			connection = next;
+		}
+	}
+
+	@Override
+	public void tick(float delta) {
+		try {
+			long now = System.currentTimeMillis();
+			long nowTick = now / TICK;
+
+			ServerConnection connection;
+			while ((connection = pending.poll()) != null) {
+				connection.reaperDeadline = getDeadline(connection);
+				schedule(connection);
+			}
+
+			// Catches up on all slots which were missed if a tick was late
+			int visited = 0;
+			while (currentTick < nowTick && visited++ < SLOTS) {
+				currentTick++;
+				expire((int) (currentTick & (SLOTS - 1)), now);
+			}
+			currentTick = Math.max(currentTick, nowTick);
+		} catch (Exception e) {
+			Logger.gdL().logError("An error occured while reaping idle connections - " + NAME);
+			Logger.gdL().logException(e);
+		}
+	}
+}
@@ -6,28 +6,42 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.PushbackInputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLSocket;
 
 import android.databasecontroller.server.User;
 import de.gymnasium_hoechstadt.ghschulapp.network.Feedback;
-import utils.Maths;
 import utils.io.CSVConverter;
-import utils.io.ConfigAdapter;
 import utils.io.Logger;
 import utils.io.Serializer;
+import utils.networking.DatabaseController;
+import utils.networking.DatabaseUnavailableException;
 import utils.networking.Procedure;
 import utils.networking.ProcedureLoader;
+import utils.networking.TimeOutException;
 import utils.networking.UnknownCommandException;
 
 /**
  * This class is used to start new Server-Client {@link Socket}.</br>
  * These get Initialized by {@link ConnectionHandler}.</br></br>
- * The class handles the complete Network-Traffic produced by the {@link InputStream} and {@link OutputStream} of the {@link #SOCKET}
+ * The class handles the complete Network-Traffic produced by the {@link InputStream} and {@link OutputStream} of the {@link #SOCKET}.</br>
+ * Clients connected over the {@link UnixSocketListener} use the {@link #CHANNEL} instead and speak the same protocol without TLS.
  * 
  * @author Cedric
  * @version 1.0.0 (developer-version)
@@ -35,6 +49,11 @@ import utils.networking.UnknownCommandException;
  */
 public class ServerConnection implements Runnable {
 	
+	/**
+	 * Time in milliseconds between two checks whether the Client is still connected while it waits for a {@link Procedure}.
+	 */
+	private static final long DISCONNECT_CHECK = 250;
+	
 	/**
 	 * The ID is a by every new connection incrementing number to identify the right {@link Socket} which may causes {@link Exception}.
 	 */
@@ -44,17 +63,26 @@ public class ServerConnection implements Runnable {
 	 */
 	private final String PREFIX;
 	/**
-	 * Incrementing number to make a unique {@link #PREFIX} for each object.
+	 * Incrementing number to make a unique {@link #PREFIX} for each object. Several Acceptors and the {@link UnixSocketListener} create connections at the same time.
 	 */
-	private static long lastId;
+	private static final AtomicLong lastId;
 	/**
-	 * 
+	 * The connected Socket or <code>null</code> if the Client is connected over {@link #CHANNEL}.
 	 */
-	private static int timeout;
+	private final SSLSocket SOCKET;
 	/**
-	 * The connected Socket
+	 * The connected Unix-Domain-Channel or <code>null</code> if the Client is connected over {@link #SOCKET}.
 	 */
-	private final SSLSocket SOCKET;
+	private final SocketChannel CHANNEL;
+	/**
+	 * The stream of the {@link #CHANNEL} below {@link #INPUT} or <code>null</code> if the Client is connected over {@link #SOCKET}.
+	 * A byte {@link #isClientAlive()} peeked gets pushed back into it.
+	 */
+	private final PushbackInputStream PUSHBACK;
+	/**
+	 * The address of the Client which is used for the logs.
+	 */
+	private final String REMOTE;
 	/**
 	 * 
 	 */
@@ -67,6 +95,10 @@ public class ServerConnection implements Runnable {
 	 * 
 	 */
 	private final ConnectionHandler HANDLER;
+	/**
+	 * The stripe of the connection-counter of the {@link #HANDLER} this connection is counted in.
+	 */
+	private final int SHARD;
 	/**
 	 * 
 	 */
@@ -74,39 +106,124 @@ public class ServerConnection implements Runnable {
 	/**
 	 * 
 	 */
-	private volatile Object lock;
+	private volatile boolean listen;
 	/**
 	 * 
 	 */
-	private volatile String listeningMessage;
+	private volatile boolean stopping;
 	/**
-	 * 
+	 * Indicates whether the {@link #HANDLER} is shutting down. The Client gets told to reconnect later as soon as it got its current answer.
 	 */
-	private volatile boolean listen;
+	private volatile boolean draining;
 	/**
-	 * 
+	 * The result of the {@link Procedure} the Client waits for at the moment or <code>null</code>. It gets cancelled if the connection gets closed.
 	 */
-	private volatile boolean stopping;
+	private volatile CompletableFuture<Object> pending;
+	
+	// ************************************
+	// * Timer-state used by the IdleReaper *
+	// ************************************
+	/**
+	 * The time in milliseconds at which the connection was opened.
+	 */
+	final long OPENED_AT;
+	/**
+	 * The time in milliseconds of the last message of the Client.
+	 */
+	volatile long lastActivity;
+	/**
+	 * Indicates whether a message of the Client is processed at the moment. Such a connection is never idle.
+	 */
+	volatile boolean processing;
+	/**
+	 * The deadline the connection is scheduled for in the {@link IdleReaper}. This is only accessed by the reaper-thread.
+	 */
+	long reaperDeadline;
+	/**
+	 * The next connection in the same slot of the {@link IdleReaper}. This is only accessed by the reaper-thread.
+	 */
+	ServerConnection reaperNext;
 	
 	static {
-		lastId = 0;
-		timeout = (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("timeout"));
-		Logger.gdL().logInfo("Timeout was set to " + timeout + " milliseconds");
+		lastId = new AtomicLong(0);
 	}
 	
 	public ServerConnection(SSLSocket socket, ConnectionHandler handler) throws IOException {
-		this.ID = lastId++;
+		this(socket, handler, 0);
+	}
+	
+	/**
+	 * Creates a new {@link ServerConnection} for a Client accepted by the given acceptor of the {@link ConnectionHandler}.
+	 * 
+	 * @param socket the accepted Socket
+	 * @param handler the {@link ConnectionHandler} this connection belongs to
+	 * @param shard the index of the acceptor which accepted the Client
+	 * @throws IOException if the streams of the socket cannot be opened
+	 */
+	public ServerConnection(SSLSocket socket, ConnectionHandler handler, int shard) throws IOException {
+		this(socket, null, socket.getInetAddress() + ":" + socket.getPort(), socket.getInputStream(), socket.getOutputStream(), handler, shard);
+	}
+	
+	/**
+	 * Creates a new {@link ServerConnection} for a Client connected over the {@link UnixSocketListener}.</br>
+	 * These Clients are always local so they get {@link User.Permission#ROOT} just like loopback-Clients.
+	 * 
+	 * @param channel the accepted Unix-Domain-Channel
+	 * @param handler the {@link ConnectionHandler} this connection belongs to
+	 * @throws IOException if the streams of the channel cannot be opened
+	 */
+	public ServerConnection(SocketChannel channel, ConnectionHandler handler) throws IOException {
+		this(null, channel, "unix:" + channel.getLocalAddress(), new PushbackInputStream(Channels.newInputStream(channel), 1), new ChannelOutputStream(channel), handler, handler.ACCEPTORS);
+	}
+	
+	private ServerConnection(SSLSocket socket, SocketChannel channel, String remote, InputStream in, OutputStream out, ConnectionHandler handler, int shard) {
+		this.ID = lastId.getAndIncrement();
 		this.PREFIX = "[" + ID + "] ";
 		this.HANDLER = handler;
+		this.SHARD = shard;
 		this.SOCKET = socket;
-		this.listeningMessage = null;
+		this.CHANNEL = channel;
+		this.PUSHBACK = channel == null ? null : (PushbackInputStream) in;
+		this.REMOTE = remote;
 		this.listen = true;
 		this.stopping = false;
-		this.INPUT = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-		this.OUTPUT = new PrintWriter(socket.getOutputStream(), true);
+		this.draining = false;
+		this.INPUT = new BufferedReader(new InputStreamReader(in));
+		this.OUTPUT = new PrintWriter(out, true);
+		this.OPENED_AT = System.currentTimeMillis();
+		this.lastActivity = OPENED_AT;
+		this.processing = false;
 
-		this.lock = new Object();
-		logInfo("Giving id " + ID + " to " + SOCKET.getInetAddress() + ":" + SOCKET.getPort());
+		logInfo("Giving id " + ID + " to " + REMOTE);
+	}
+	
+	/**
+	 * Returns whether the Client is still connected.
+	 * 
+	 * @return <code>true</code> if the {@link #SOCKET} or the {@link #CHANNEL} is still open
+	 */
+	private boolean isConnected() {
+		if (CHANNEL != null) return CHANNEL.isOpen();
+		return SOCKET.isConnected() && !SOCKET.isClosed();
+	}
+	
+	/**
+	 * Returns whether the Client can no longer send messages.
+	 * 
+	 * @return <code>true</code> if the input of the connection got shut down
+	 */
+	private boolean isInputShutdown() {
+		if (CHANNEL != null) return !CHANNEL.isOpen();
+		return SOCKET.isInputShutdown();
+	}
+	
+	/**
+	 * Returns whether the Client is connected from this machine.
+	 * 
+	 * @return <code>true</code> for Unix-Domain-Clients and loopback-Clients
+	 */
+	private boolean isLocal() {
+		return CHANNEL != null || SOCKET.getInetAddress().isLoopbackAddress();
 	}
 	
 	private boolean authenticate(String username, String password) {
@@ -132,39 +249,57 @@ public class ServerConnection implements Runnable {
 		return authenticated;
 	}
 	
-	private synchronized String listen() {
-		Thread listeningThread = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					listeningMessage = null;
-					listeningMessage = INPUT.readLine(); // takes about 2 sec. for a devices first connect
-				} catch (IOException e) {
-					if (listen && !stopping && !SOCKET.isInputShutdown()) {
-						logError("An error occured while listening");
-						logException(e);
-					}
-				}
-				synchronized(lock) {
-					lock.notifyAll();
-				}
-			}
-		});
-		listeningThread.start();
-		synchronized(lock) {
-			try {
-				lock.wait(timeout);
-				if (listeningMessage == null || SOCKET.isInputShutdown() || !listen) {
-					listeningThread.interrupt();
-					if (!stopping) close();
-				} else
-					return listeningMessage;
-			} catch (InterruptedException e) {
-				logError("An Error occured while awaiting incoming messages!");
+	/**
+	 * Blocks until the Client sends the next message.</br>
+	 * Idle Clients get closed by the {@link IdleReaper} of the {@link #HANDLER} which also ends the blocking.
+	 * 
+	 * @return the received message or <code>"fff"</code> if the connection got closed
+	 */
+	private String listen() {
+		String listeningMessage = null;
+		try {
+			listeningMessage = INPUT.readLine(); // takes about 2 sec. for a devices first connect
+		} catch (IOException e) {
+			if (listen && !stopping && !isInputShutdown()) {
+				logError("An error occured while listening");
 				logException(e);
 			}
 		}
-		return listeningMessage == null ? "fff" : listeningMessage;
+		if (listeningMessage == null || isInputShutdown() || !listen) {
+			if (!stopping) close();
+			return "fff";
+		}
+		touch();
+		return listeningMessage;
+	}
+	
+	/**
+	 * Marks the connection as active for the {@link IdleReaper}.
+	 */
+	void touch() {
+		lastActivity = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Tells the Client to reconnect after {@link ConnectionHandler#DRAIN_RETRY_AFTER} seconds and closes the connection.</br>
+	 * If a message is {@link #processing processed} at the moment this happens after the answer was sent.
+	 */
+	synchronized void drain() {
+		draining = true;
+		if (processing || stopping) return;
+		send("STOP>>DRAIN<>" + HANDLER.DRAIN_RETRY_AFTER);
+		close();
+	}
+	
+	/**
+	 * Closes the connection on behalf of the {@link IdleReaper}.
+	 * 
+	 * @param reason why the connection gets closed
+	 */
+	synchronized void reap(String reason) {
+		if (stopping) return;
+		logInfo("Closing connection with " + REMOTE + ": " + reason);
+		close();
 	}
 	
 	private boolean send(String msg) {
@@ -192,6 +327,19 @@ public class ServerConnection implements Runnable {
 			if (usr.PERMISSION.equals(User.Permission.ROOT)) {
 			}
 			if (msg.length() > 6 && msg.substring(0, 4).equals("PROC") && usr.PERMISSION.isAuthenticated()) {
+				// PROC>>name<>arg1<>arg2... or PROC@millis>>name<>arg1<>arg2... with the time the Client waits for the result
+				int start = msg.indexOf(">>");
+				if (start < 0) throw new UnknownCommandException("Unknown command!");
+				long deadline = getDeadline(msg.substring(4, start));
+				String[] parts = msg.substring(start + 2).split("<>");
+				Procedure proc = ProcedureLoader.getProcedureByName(parts[0]);
+				if (proc == null) throw new UnknownCommandException("Unknown procedure " + parts[0] + "!");
+				if (!HANDLER.DATABASE.isRunning()) msg = "ERR>>DB_OFFLINE";
+				else {
+					Object result = await(HANDLER.DATABASE.callUserProcAsync(usr.USERNAME, deadline, proc, Arrays.copyOfRange(parts, 1, parts.length, Object[].class)), deadline);
+					if (proc.isScalar()) msg = "PROC>>" + result;
+					else msg = result instanceof ResultSet ? "PROC>>" + CSVConverter.toCSV((ResultSet) result) : "PROC>>SUC";
+				}
 			} else {
 				throw new UnknownCommandException("Unknown command!");
 			}
@@ -205,6 +353,25 @@ public class ServerConnection implements Runnable {
 			logException(e);
 			send("STOP>>UNK_ERR"); // --> The Client should automatically disconnect
 			close();
+		} catch (TimeoutException | CancellationException e) {
+			logWarning("No result for " + msg + " before the deadline");
+			msg = "ERR>>TIMEOUT";
+		} catch (ExecutionException | InterruptedException e) {
+			if (e.getCause() instanceof TimeoutException || e.getCause() instanceof TimeOutException || e.getCause() instanceof CancellationException) {
+				logWarning("No result for " + msg + " before the deadline");
+				msg = "ERR>>TIMEOUT";
+			} else if (e.getCause() instanceof IllegalArgumentException) {
+				logWarning("Invalid arguments in " + msg + ": " + e.getCause().getMessage());
+				msg = "ERR>>INV_ARGS";
+			} else if (e.getCause() instanceof DatabaseUnavailableException) {
+				// Rejected at once, the Client may retry later
+				logWarning(e.getCause().getMessage());
+				msg = "ERR>>DB_UNAVAILABLE";
+			} else {
+				logError("The Database could not execute " + msg + ".");
+				logException(e);
+				msg = "ERR>>DB_ERR";
+			}
 		}
 		
 		if (msg.equals("fff"))
@@ -217,6 +384,122 @@ public class ServerConnection implements Runnable {
 			logWarning("Message \"" + msg + "\" could not be sent.");
 	}
 	
+	/**
+	 * Returns the deadline of a {@link Procedure} sent with the given options.
+	 * 
+	 * @param options the part between <code>PROC</code> and <code>&gt;&gt;</code>, empty or <code>@millis</code> with the time the Client waits
+	 * @return the absolute time in milliseconds, limited to {@link ConnectionHandler#REQUEST_DEADLINE} after the message was received
+	 * @throws UnknownCommandException if the options are not in the right format
+	 */
+	private long getDeadline(String options) throws UnknownCommandException {
+		long budget = HANDLER.REQUEST_DEADLINE;
+		if (!options.isEmpty()) {
+			if (options.charAt(0) != '@') throw new UnknownCommandException("Unknown command!");
+			try {
+				long requested = Long.parseLong(options.substring(1));
+				if (requested < 1) throw new NumberFormatException(options);
+				budget = budget > 0 ? Math.min(budget, requested) : requested;
+			} catch (NumberFormatException e) {
+				throw new UnknownCommandException("Invalid deadline " + options.substring(1) + "!");
+			}
+		}
+		// Counted from the receipt of the message, so the time the message waited is included
+		return budget > 0 ? lastActivity + budget : DatabaseController.NO_DEADLINE;
+	}
+	
+	/**
+	 * Waits for the result of a {@link Procedure} until the given deadline.</br>
+	 * The request gets cancelled if the deadline passes or the Client disconnects in the meantime, so it does not take a connection of the Database
+	 * for an answer nobody reads.
+	 * 
+	 * @param future the result of the {@link Procedure}
+	 * @param deadline the absolute time in milliseconds the Client waits for the result
+	 * @return the result
+	 * @throws ExecutionException if the {@link Procedure} failed
+	 * @throws InterruptedException if the thread got interrupted
+	 * @throws TimeoutException if the deadline passed
+	 * @throws CancellationException if the Client disconnected
+	 */
+	private Object await(CompletableFuture<Object> future, long deadline) throws ExecutionException, InterruptedException, TimeoutException {
+		pending = future;
+		try {
+			if (stopping) future.cancel(true);
+			while (true) {
+				long left = deadline - System.currentTimeMillis();
+				if (left <= 0) {
+					future.cancel(true);
+					throw new TimeoutException("The deadline passed");
+				}
+				try {
+					return future.get(Math.min(left, DISCONNECT_CHECK), TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					if (!isClientAlive()) {
+						future.cancel(true);
+						throw new CancellationException("The Client disconnected");
+					}
+				}
+			}
+		} finally {
+			pending = null;
+		}
+	}
+	
+	/**
+	 * Checks whether the Client is still connected while no message gets {@link #listen() listened} for.</br>
+	 * A Socket gets peeked for one character without consuming it: a closed connection returns the end of the stream at once.
+	 * A Channel gets read for one byte without blocking, which gets pushed back into {@link #PUSHBACK} for {@link #listen()}.
+	 * 
+	 * @return <code>false</code> if the Client disconnected
+	 */
+	private boolean isClientAlive() {
+		if (stopping || !isConnected() || isInputShutdown()) return false;
+		if (CHANNEL != null) return isChannelAlive();
+		try {
+			int timeout = SOCKET.getSoTimeout();
+			SOCKET.setSoTimeout(1);
+			try {
+				INPUT.mark(1);
+				if (INPUT.read() < 0) return false;
+				// The Client already sent its next message, it gets read by listen()
+				INPUT.reset();
+			} finally {
+				SOCKET.setSoTimeout(timeout);
+			}
+		} catch (SocketTimeoutException e) {
+			// Nothing sent, but still connected
+		} catch (IOException e) {
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Like {@link #isClientAlive()} for Clients connected over the {@link #CHANNEL}.
+	 * 
+	 * @return <code>false</code> if the end of the stream was reached
+	 */
+	private boolean isChannelAlive() {
+		try {
+			// The Client already sent its next message
+			if (PUSHBACK.available() > 0) return true;
+			ByteBuffer peek = ByteBuffer.allocate(1);
+			int read;
+			synchronized (CHANNEL.blockingLock()) {
+				CHANNEL.configureBlocking(false);
+				try {
+					read = CHANNEL.read(peek);
+				} finally {
+					CHANNEL.configureBlocking(true);
+				}
+			}
+			if (read < 0) return false;
+			if (read > 0) PUSHBACK.unread(peek.get(0));
+		} catch (IOException e) {
+			return false;
+		}
+		return true;
+	}
+	
 	public void logInfo(String s) {
 		Logger.gdL().logInfo(PREFIX+s);
 	}
@@ -235,9 +518,6 @@ public class ServerConnection implements Runnable {
 	
 	public synchronized void close() {
 		listen = false;
-		synchronized (lock) {
-			lock.notifyAll();	
-		}
 		if(stopping) {
 			StringBuilder builder = new StringBuilder();
 			for (StackTraceElement element : Thread.currentThread().getStackTrace())
@@ -245,23 +525,27 @@ public class ServerConnection implements Runnable {
 			logWarning("You can stop the Connection just once!" + builder.toString());
 			return;
 		}
-		logInfo("Connection with " + SOCKET.getInetAddress() + ":" + SOCKET.getPort() + " will be closed");
+		logInfo("Connection with " + REMOTE + " will be closed");
 		stopping = true;
-		if (SOCKET.isConnected() && !SOCKET.isClosed())
+		CompletableFuture<Object> request = pending;
+		if (request != null) request.cancel(true);
+		if (isConnected())
 			try {
-				SOCKET.close();
+				if (CHANNEL != null) CHANNEL.close();
+				else SOCKET.close();
 			} catch (IOException e) {
-				logError("An Error occured while disconnecting from the Client " + SOCKET.getInetAddress() + ":" + SOCKET.getPort());
+				logError("An Error occured while disconnecting from the Client " + REMOTE);
 				logException(e);
 			}
-		HANDLER.removeConnection();
+		HANDLER.removeConnection(SHARD);
+		HANDLER.REAPER.unregister(this);
 		if (HANDLER.isLocked()) {
 			synchronized(HANDLER) {
 				HANDLER.notifyAll();
 			}
 		}
 		
-		logInfo("Connection with " + SOCKET.getInetAddress() + ":" + SOCKET.getPort() + " successfully closed");
+		logInfo("Connection with " + REMOTE + " successfully closed");
 	}
 	
 	public long getId() {
@@ -270,9 +554,10 @@ public class ServerConnection implements Runnable {
 	
 	@Override
 	public void run() {
+		HANDLER.REAPER.register(this);
 		try {
 			// Intializing User with authentification-process if it is not a localhost attempt. In this case the user is considered to have root permissions!
-			if (SOCKET.getInetAddress().isLoopbackAddress()) {
+			if (isLocal()) {
 				this.usr = new User("root", User.Permission.ROOT);
 				send("AUTH>>ROOT");
 			} else {
@@ -294,23 +579,61 @@ public class ServerConnection implements Runnable {
 			}
 			
 			logInfo("Starting listening...");
-			while (listen && (SOCKET.isConnected() && !SOCKET.isClosed()) && HANDLER.isRunning()) {
+			while (listen && isConnected() && HANDLER.isRunning()) {
 				String msg = listen();
 				if (!listen) break;
-				process(msg);
+				synchronized (this) {
+					if (draining) break;
+					processing = true;
+				}
+				try {
+					process(msg);
+				} finally {
+					synchronized (this) {
+						processing = false;
+					}
+					touch();
+				}
 			}
 			logInfo("Stopping listening...");
 			
+			if (!HANDLER.isRunning()) drain();
+			
 			if (!stopping) close();
 			
 			logInfo("Disconnected Client");
 		} catch (Exception | Error e) {
-			if ((SOCKET.isConnected() && !SOCKET.isClosed())) {
+			if (isConnected()) {
 				logError("An unexpected exception occured!");
 				logException(e);
 				if (!stopping) close();
 			} else
-				logWarning("Client " + SOCKET.getInetAddress() + ":" + SOCKET.getPort() + " disconnected");
+				logWarning("Client " + REMOTE + " disconnected");
+		}
+	}
+	
+	/**
+	 * Writes directly into a {@link SocketChannel}.</br>
+	 * {@link Channels#newOutputStream(java.nio.channels.WritableByteChannel)} cannot be used here as it shares the blocking-lock with
+	 * {@link Channels#newInputStream(java.nio.channels.ReadableByteChannel)} so no message could be sent while {@link #listen()} is reading.
+	 */
+	private static class ChannelOutputStream extends OutputStream {
+		private final SocketChannel channel;
+		
+		ChannelOutputStream(SocketChannel channel) {
+			this.channel = channel;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+			while (buffer.hasRemaining())
+				channel.write(buffer);
 		}
 	}
 
@@ -0,0 +1,185 @@
+package android.databasecontroller.server.io;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import utils.io.Logger;
+
+/**
+ * Lets Clients on the same host connect over a Unix-Domain-Socket instead of the {@link javax.net.ssl.SSLServerSocket} of the {@link ConnectionHandler}.</br></br>
+ *
+ * The Socket speaks the same protocol as the {@link ConnectionHandler} but without TLS, so local tools like dashboards or batch-jobs
+ * save the handshake and the encryption of every request. Access is protected by the file-permissions of the socket-file ({@link #PERMISSIONS}).
+ * If they cannot be applied the listener does not open the socket at all.</br>
+ * Every accepted Client is handled by a normal {@link ServerConnection} and is considered to be a local {@link android.databasecontroller.server.User.Permission#ROOT ROOT}-User.</br></br>
+ *
+ * <i>Note: Unix-Domain-Connections are counted by the {@link ConnectionHandler} but never get blocked by {@link ConnectionHandler#MAX_CONNECTIONS} so the Server can always be administrated locally.</i>
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category networking
+ */
+public class UnixSocketListener extends Thread {
+
+	/**
+	 * The Channel Clients connect to.
+	 */
+	private volatile ServerSocketChannel serverChannel;
+	/**
+	 * Indicates whether the listener is running or not.
+	 */
+	private volatile boolean running;
+	/**
+	 * The file-key of the socket-file this listener created. A new Server may have replaced the file while this one is still draining.
+	 */
+	private volatile Object fileKey;
+
+	// *************
+	// * Constants *
+	// *************
+	/**
+	 * The location of the socket-file.
+	 */
+	public final Path PATH;
+	/**
+	 * The posix-permissions of the socket-file, e.g. <code>rw-rw----</code>.
+	 */
+	public final String PERMISSIONS;
+	/**
+	 * The {@link ConnectionHandler} the accepted connections belong to.
+	 */
+	private final ConnectionHandler HANDLER;
+
+	/**
+	 * Creates a new {@link UnixSocketListener}. Call {@link #start()} to bind the socket-file.
+	 *
+	 * @param path location of the socket-file
+	 * @param permissions posix-permissions of the socket-file
+	 * @param handler the {@link ConnectionHandler} the accepted connections belong to
+	 */
+	public UnixSocketListener(String path, String permissions, ConnectionHandler handler) {
+		this.PATH = Paths.get(path);
+		this.PERMISSIONS = permissions;
+		this.HANDLER = handler;
+		this.running = false;
+		setDaemon(true);
+	}
+
+	/**
+	 * Basically like {@link Thread#start()}.</br>
+	 * The difference is that this also sets {@link #running} to <code>true</code>.
+	 */
+	@Override
+	public synchronized void start() {
+		running = true;
+		super.start();
+	}
+
+	/**
+	 * Stops listening, closes the {@link #serverChannel} and removes the socket-file if it was not replaced by a new Server.
+	 */
+	public synchronized void shutdown() {
+		running = false;
+		try {
+			if (serverChannel != null && serverChannel.isOpen()) {
+				Logger.gdL().logInfo("Closing Unix-Socket " + PATH + " - " + HANDLER.NAME);
+				serverChannel.close();
+			}
+			if (fileKey != null && Files.exists(PATH) && fileKey.equals(Files.readAttributes(PATH, BasicFileAttributes.class).fileKey()))
+				Files.deleteIfExists(PATH);
+		} catch (IOException e) {
+			Logger.gdL().logWarning("Couldn't close Unix-Socket " + PATH + " safely! - " + HANDLER.NAME);
+			Logger.gdL().logException(e);
+		}
+	}
+
+	/**
+	 * Returns whether the listener is running or not.
+	 *
+	 * @return {@link #running}
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public void run() {
+		Path dir = null;
+		try {
+			Logger.gdL().logInfo("Opening Unix-Socket " + PATH + " - " + HANDLER.NAME);
+			Path parent = PATH.toAbsolutePath().getParent();
+			Files.createDirectories(parent);
+			// Bind in a directory only this user can enter and move the finished socket-file to PATH, so it never exists with looser permissions.
+			// The move also replaces the socket-file of a crashed or handing over Server.
+			dir = Files.createTempDirectory(parent, ".socket", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+			Path bound = dir.resolve(PATH.getFileName());
+			serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+			serverChannel.bind(UnixDomainSocketAddress.of(bound));
+			Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString(PERMISSIONS));
+			Files.move(bound, PATH, StandardCopyOption.ATOMIC_MOVE);
+			fileKey = Files.readAttributes(PATH, BasicFileAttributes.class).fileKey();
+		} catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+			// Without the permissions everyone who can access the file could connect as root
+			Logger.gdL().logError("An error occured while opening the Unix-Socket " + PATH + " with permissions " + PERMISSIONS + "! Local Clients have to use port " + HANDLER.PORT + " - " + HANDLER.NAME);
+			Logger.gdL().logException(e);
+			running = false;
+			try {
+				if (serverChannel != null) serverChannel.close();
+			} catch (IOException e1) {
+				Logger.gdL().logException(e1);
+			}
+			return;
+		} finally {
+			deleteBindDirectory(dir);
+		}
+
+		Logger.gdL().logInfo("Starting listening on " + PATH + " - " + HANDLER.NAME);
+		while (running) {
+			SocketChannel channel = null;
+			try {
+				channel = serverChannel.accept();
+				Thread t = new Thread(new ServerConnection(channel, HANDLER));
+				t.setDaemon(true);
+				HANDLER.addConnection();
+				t.start();
+				Logger.gdL().logInfo("Started Connection with local Client on " + PATH + " - " + HANDLER.NAME);
+			} catch (IOException e) {
+				if (!running) break;
+				Logger.gdL().logError("An error occured while opening new local Connection - " + HANDLER.NAME);
+				Logger.gdL().logException(e);
+				if (channel != null)
+					try {
+						channel.close();
+					} catch (IOException e1) {
+						Logger.gdL().logException(e1);
+					}
+			}
+		}
+		Logger.gdL().logInfo("Stopping listening on " + PATH + " - " + HANDLER.NAME);
+	}
+
+	/**
+	 * Deletes the private directory the socket-file got bound in together with the socket-file if it was not moved.
+	 *
+	 * @param dir the directory or <code>null</code> if it was not created
+	 */
+	private void deleteBindDirectory(Path dir) {
+		if (dir == null) return;
+		try {
+			Files.deleteIfExists(dir.resolve(PATH.getFileName()));
+			Files.deleteIfExists(dir);
+		} catch (IOException e) {
+			Logger.gdL().logWarning("Couldn't delete " + dir + " - " + HANDLER.NAME);
+			Logger.gdL().logException(e);
+		}
+	}
+}
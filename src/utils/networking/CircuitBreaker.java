@@ -0,0 +1,253 @@
+package utils.networking;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import utils.io.Logger;
+
+/**
+ * Stops calls to a Database which is down or overloaded, so they fail at once instead of waiting for the timeout.</br></br>
+ *
+ * The breaker remembers the outcomes of the last {@link #WINDOW} calls. Once at least {@link #MIN_CALLS} are known and the share of failed calls reaches
+ * {@link #FAILURE_RATE} or the share of calls slower than {@link #SLOW_CALL} milliseconds reaches {@link #SLOW_RATE} it gets {@link State#OPEN open}
+ * and {@link #allowRequest()} rejects every call. After {@link #OPEN_TIME} milliseconds it gets {@link State#HALF_OPEN half-open} and lets {@link #PROBES} calls through.
+ * If all of them succeed it gets {@link State#CLOSED closed} again, the first failed or slow one opens it again.</br>
+ * Only failures of the connection count, errors raised by a {@link Procedure} itself show a working Database.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public class CircuitBreaker {
+
+	/**
+	 * The states of a {@link CircuitBreaker}.
+	 * <ul>
+	 * <li>{@link #CLOSED}: All calls are allowed and their outcomes are counted.</li>
+	 * <li>{@link #OPEN}: All calls get rejected.</li>
+	 * <li>{@link #HALF_OPEN}: A few calls are allowed to check whether the Database recovered.</li>
+	 * </ul>
+	 *
+	 * @author Cedric
+	 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN;
+	}
+
+	private static final byte SUCCEEDED = 0, SLOW = 1, FAILED = 2;
+
+	/**
+	 * The name of the breaker for the logs.
+	 */
+	public final String NAME;
+	/**
+	 * The amount of recent calls whose outcomes are considered.
+	 */
+	public final int WINDOW;
+	/**
+	 * The amount of known outcomes needed before the breaker can open.
+	 */
+	public final int MIN_CALLS;
+	/**
+	 * The share of failed calls from <code>0</code> to <code>1</code> which opens the breaker.
+	 */
+	public final float FAILURE_RATE;
+	/**
+	 * Time in milliseconds after which a call counts as slow.
+	 */
+	public final long SLOW_CALL;
+	/**
+	 * The share of slow calls from <code>0</code> to <code>1</code> which opens the breaker.
+	 */
+	public final float SLOW_RATE;
+	/**
+	 * Time in milliseconds the breaker stays open before it lets {@link #PROBES} through.
+	 */
+	public final long OPEN_TIME;
+	/**
+	 * The amount of calls which have to succeed while {@link State#HALF_OPEN half-open} to close the breaker.
+	 */
+	public final int PROBES;
+
+	/**
+	 * The outcomes of the recent calls as ring-buffer.
+	 */
+	private final byte[] outcomes;
+	private int next, known, failed, slow;
+	private State state;
+	/**
+	 * The time in milliseconds the breaker got opened or half-opened.
+	 */
+	private long changedAt;
+	/**
+	 * The probes let through and the probes which succeeded since the breaker got half-open.
+	 */
+	private int probing, probed;
+	/**
+	 * Statistics.
+	 */
+	private final AtomicLong rejected, opened;
+
+	/**
+	 * Creates a new closed {@link CircuitBreaker}.
+	 *
+	 * @param name equals {@link #NAME}
+	 * @param window equals {@link #WINDOW}
+	 * @param minCalls equals {@link #MIN_CALLS}
+	 * @param failureRate equals {@link #FAILURE_RATE}
+	 * @param slowCall equals {@link #SLOW_CALL}
+	 * @param slowRate equals {@link #SLOW_RATE}
+	 * @param openTime equals {@link #OPEN_TIME}
+	 * @param probes equals {@link #PROBES}
+	 */
+	public CircuitBreaker(String name, int window, int minCalls, float failureRate, long slowCall, float slowRate, long openTime, int probes) {
+		if (window < 1 || minCalls < 1 || minCalls > window || failureRate <= 0 || slowRate <= 0 || openTime < 0 || probes < 1)
+			throw new IllegalArgumentException("Illogical arguments for the CircuitBreaker " + name);
+		this.NAME = name;
+		this.WINDOW = window;
+		this.MIN_CALLS = minCalls;
+		this.FAILURE_RATE = failureRate;
+		this.SLOW_CALL = slowCall;
+		this.SLOW_RATE = slowRate;
+		this.OPEN_TIME = openTime;
+		this.PROBES = probes;
+		this.outcomes = new byte[window];
+		this.state = State.CLOSED;
+		this.rejected = new AtomicLong();
+		this.opened = new AtomicLong();
+	}
+
+	/**
+	 * Returns whether a call may run now. A call which is allowed while {@link State#HALF_OPEN half-open} is one of the {@link #PROBES}.</br>
+	 * If the probes never report back, because they got cancelled before they ran, new ones are let through after {@link #OPEN_TIME} milliseconds.
+	 *
+	 * @return <code>false</code> if the call has to be rejected
+	 */
+	public synchronized boolean allowRequest() {
+		long now = System.currentTimeMillis();
+		if (state == State.OPEN && now - changedAt >= OPEN_TIME) {
+			state = State.HALF_OPEN;
+			changedAt = now;
+			probing = probed = 0;
+			Logger.gdL().logInfo("The CircuitBreaker " + NAME + " is half-open and lets " + PROBES + " probes through");
+		}
+		if (state == State.CLOSED) return true;
+		if (state == State.HALF_OPEN && (probing < PROBES || now - changedAt >= OPEN_TIME)) {
+			if (probing >= PROBES) {
+				probing = probed = 0;
+				changedAt = now;
+			}
+			probing++;
+			return true;
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Counts a call which reached the Database.
+	 *
+	 * @param latency time in milliseconds the call took
+	 */
+	public void recordSuccess(long latency) {
+		record(latency >= SLOW_CALL ? SLOW : SUCCEEDED);
+	}
+
+	/**
+	 * Counts a call which failed because the Database could not be reached, like a failed connection-attempt.
+	 */
+	public void recordFailure() {
+		record(FAILED);
+	}
+
+	/**
+	 * Forgets a call which was allowed but did not finish because its caller gave up, e.g. because the deadline of the caller passed.
+	 * It counts neither as success nor as failure. A probe which got cancelled frees its place for the next call.
+	 */
+	public synchronized void recordCancelled() {
+		if (state == State.HALF_OPEN && probing > probed) probing--;
+	}
+	
+	/**
+	 * Counts the outcome of a call which failed with the given exception as failure if it shows an unreachable Database, otherwise as success.
+	 *
+	 * @param e the cause of the failure
+	 * @param latency time in milliseconds the call took
+	 */
+	public void record(Throwable e, long latency) {
+		if (isUnavailable(e)) recordFailure();
+		else recordSuccess(latency);
+	}
+
+	private synchronized void record(byte outcome) {
+		if (state == State.OPEN) return;
+		if (state == State.HALF_OPEN) {
+			if (outcome != SUCCEEDED) open("a probe " + (outcome == SLOW ? "was slow" : "failed"));
+			else if (++probed >= PROBES) close();
+			return;
+		}
+		if (known == WINDOW) {
+			if (outcomes[next] == FAILED) failed--;
+			else if (outcomes[next] == SLOW) slow--;
+		} else known++;
+		outcomes[next] = outcome;
+		next = (next + 1) % WINDOW;
+		if (outcome == FAILED) failed++;
+		else if (outcome == SLOW) slow++;
+		if (known < MIN_CALLS) return;
+		if (failed >= FAILURE_RATE * known) open(failed + " of " + known + " calls failed");
+		else if (slow >= SLOW_RATE * known) open(slow + " of " + known + " calls took longer than " + SLOW_CALL + " milliseconds");
+	}
+
+	private void open(String reason) {
+		state = State.OPEN;
+		changedAt = System.currentTimeMillis();
+		opened.incrementAndGet();
+		Logger.gdL().logWarning("The CircuitBreaker " + NAME + " opened for " + OPEN_TIME + " milliseconds because " + reason);
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		next = known = failed = slow = 0;
+		Logger.gdL().logInfo("The CircuitBreaker " + NAME + " closed again");
+	}
+
+	/**
+	 * Returns the current {@link State}. An open breaker whose {@link #OPEN_TIME} passed is still reported open until the next {@link #allowRequest()}.
+	 *
+	 * @return the {@link State}
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Returns the state and the rates of the breaker as readable {@link String}.
+	 *
+	 * @return statistics for the logs
+	 */
+	public synchronized String getStatistics() {
+		return "CircuitBreaker " + NAME + ":" + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- State:", state + " (opened " + opened.get() + " times)") + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Recent calls:", known + " (" + failed + " failed, " + slow + " slow)") + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Rejected:", rejected.get());
+	}
+
+	/**
+	 * Returns whether the given exception shows that the Database cannot be reached or does not answer in time.
+	 */
+	private static boolean isUnavailable(Throwable e) {
+		for (; e != null; e = e.getCause()) {
+			if (e instanceof TimeOutException || e instanceof SQLTimeoutException || e instanceof SQLTransientConnectionException
+					|| e instanceof SQLNonTransientConnectionException || e instanceof SQLRecoverableException || e instanceof IOException) return true;
+			// SQL-State class 08 are connection-exceptions
+			if (e instanceof SQLException && ((SQLException) e).getSQLState() != null && ((SQLException) e).getSQLState().startsWith("08")) return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,158 @@
+package utils.networking;
+
+import java.sql.ResultSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The operations the Server uses to talk to its Database.</br>
+ * Implemented by the {@link MultiDatabaseController} for one pool and by controllers which route every call to one of several pools.
+ * 
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ * @see MultiDatabaseController
+ * @see ReplicatedDatabaseController
+ * @see ShardedDatabaseController
+ */
+public interface DatabaseController {
+
+	/**
+	 * The deadline of calls whose caller waits as long as the timeout of the Database allows.
+	 */
+	public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	/**
+	 * Returns whether the controller got started and not stopped yet.
+	 * 
+	 * @return whether the controller is running
+	 */
+	public boolean isRunning();
+
+	/**
+	 * Returns whether the controller is running and its pools hold enough connections to serve requests right away.
+	 * 
+	 * @return whether the controller is ready
+	 */
+	public default boolean isReady() {
+		return isRunning();
+	}
+
+	/**
+	 * Starts the pools of the controller.
+	 */
+	public void start();
+
+	/**
+	 * Stops the pools of the controller.
+	 */
+	public void stop();
+
+	/**
+	 * Executes the given {@link Procedure} and returns its result.
+	 * 
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return the result of the {@link Procedure}
+	 */
+	public Object callProc(Procedure proc, Object...args);
+
+	/**
+	 * Queues the given {@link Procedure} without waiting for it.
+	 * 
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 */
+	public void callNoRetSql(Procedure proc, Object...args);
+
+	/**
+	 * Executes the given SQL-Query and returns its result.
+	 * 
+	 * @param query to execute
+	 * @return the {@link ResultSet} of the query
+	 */
+	public ResultSet executeSql(String query);
+
+	/**
+	 * Queues the given SQL-Query without waiting for it.
+	 * 
+	 * @param query to execute
+	 */
+	public void executeNoRetSql(String query);
+
+	/**
+	 * Queues the given {@link Procedure} without blocking the caller.
+	 * 
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	public default CompletableFuture<Object> callProcAsync(Procedure proc, Object...args) {
+		return callProcAsync(null, proc, args);
+	}
+
+	/**
+	 * Queues the given {@link Procedure} without blocking the caller.
+	 * 
+	 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code>
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	public CompletableFuture<Object> callProcAsync(Executor executor, Procedure proc, Object...args);
+
+	/**
+	 * Queues the given {@link Procedure} called by the given User without blocking the caller.</br>
+	 * See {@link #callUserProcAsync(String, long, Executor, Procedure, Object...)}.
+	 * 
+	 * @param user the name of the calling User or <code>null</code>
+	 * @param deadline the absolute time in milliseconds the caller waits for the result or {@link #NO_DEADLINE}
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	public default CompletableFuture<Object> callUserProcAsync(String user, long deadline, Procedure proc, Object...args) {
+		return callUserProcAsync(user, deadline, null, proc, args);
+	}
+
+	/**
+	 * Queues the given {@link Procedure} called by the given User without blocking the caller.</br>
+	 * Controllers which route by User like the {@link ShardedDatabaseController} use the name, all others ignore it.
+	 * The returned {@link CompletableFuture} fails at the <code>deadline</code> and a running execution gets cancelled then or if the {@link CompletableFuture} gets
+	 * {@link CompletableFuture#cancel(boolean) cancelled}, e.g. because the Client disconnected.
+	 * 
+	 * @param user the name of the calling User or <code>null</code>
+	 * @param deadline the absolute time in milliseconds the caller waits for the result or {@link #NO_DEADLINE}
+	 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code>
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	public CompletableFuture<Object> callUserProcAsync(String user, long deadline, Executor executor, Procedure proc, Object...args);
+
+	/**
+	 * Queues the given SQL-Query without blocking the caller.
+	 * 
+	 * @param query to execute
+	 * @return a {@link CompletableFuture} which gets completed with the {@link ResultSet} of the query
+	 */
+	public default CompletableFuture<ResultSet> executeSqlAsync(String query) {
+		return executeSqlAsync(query, null);
+	}
+
+	/**
+	 * Queues the given SQL-Query without blocking the caller.
+	 * 
+	 * @param query to execute
+	 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code>
+	 * @return a {@link CompletableFuture} which gets completed with the {@link ResultSet} of the query
+	 */
+	public CompletableFuture<ResultSet> executeSqlAsync(String query, Executor executor);
+
+	/**
+	 * Returns the statistics of the controller as readable {@link String}.
+	 * 
+	 * @return statistics for the logs
+	 */
+	public String getStatistics();
+}
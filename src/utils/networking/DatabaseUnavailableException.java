@@ -0,0 +1,19 @@
+package utils.networking;
+
+/**
+ * Thrown for calls which get rejected without trying because the {@link CircuitBreaker} of the Database is open.
+ * 
+ * @author Cedric
+ * @see CircuitBreaker
+ */
+@SuppressWarnings("serial")
+public class DatabaseUnavailableException extends Exception {
+	
+	public DatabaseUnavailableException() {
+		super("The Database is unavailable");
+	}
+	
+	public DatabaseUnavailableException(String msg) {
+		super(msg);
+	}
+}
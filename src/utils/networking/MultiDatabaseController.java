@@ -1,13 +1,36 @@
 package utils.networking;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import utils.Maths;
 import utils.io.ConfigAdapter;
 import utils.io.Logger;
+import utils.mechanics.Clock;
 
 /**
  * 
@@ -29,7 +52,7 @@ import utils.io.Logger;
  * 
  * @see Logger
  */
-public class MultiDatabaseController {
+public class MultiDatabaseController implements DatabaseController {
 	
 	// These variables are protected that you can always overwrite MultiDatabaseController to integrate it into your project
 	// ***********************
@@ -37,6 +60,11 @@ public class MultiDatabaseController {
 	// *************************
 	// * Multi-threading-safe! *
 	// *************************
+	/**
+	 * Handles the {@link Procedure Procedures}.
+	 * 
+	 * @see ProcedureExecuter
+	 */
 	protected volatile ProcedureExecuter procExecuter;
 	/**
 	 * Handles the SQL-Queries.
@@ -50,6 +78,54 @@ public class MultiDatabaseController {
 	 * @see DatabaseConnectionHandler
 	 */
 	protected volatile DatabaseConnectionHandler conHandler;
+	/**
+	 * Validates, evicts and retires the idle connections of the {@link #conHandler}.
+	 * 
+	 * @see PoolHousekeeper
+	 */
+	protected volatile PoolHousekeeper housekeeper;
+	/**
+	 * Caches the results of {@link Procedure Procedures} with a {@link Procedure#CACHE_TTL}.
+	 * 
+	 * @see ResultCache
+	 */
+	protected volatile ResultCache resultCache;
+	/**
+	 * The on-disk tier of the {@link #resultCache} or <code>null</code> if <code>dbResultCacheFile</code> is empty.
+	 * 
+	 * @see PersistentResultCache
+	 */
+	protected volatile PersistentResultCache persistentCache;
+	/**
+	 * Computes the results of the {@link Procedure Procedures} with a {@link Procedure#PRECOMPUTE} interval in the background.
+	 * 
+	 * @see PrecomputeScheduler
+	 */
+	protected volatile PrecomputeScheduler precomputer;
+	/**
+	 * Queues the open batches of fire-and-forget calls after {@link #BATCH_WINDOW} milliseconds or <code>null</code> if batching is disabled.
+	 * 
+	 * @see BatchFlusher
+	 */
+	protected volatile BatchFlusher batchFlusher;
+	/**
+	 * The published results of the precomputed {@link Procedure Procedures} by {@link Procedure#NAME}.
+	 */
+	protected final ConcurrentHashMap<String, Snapshot> snapshots;
+	/**
+	 * Rejects all requests at once while the Database is down or overloaded.
+	 * 
+	 * @see CircuitBreaker
+	 */
+	protected final CircuitBreaker breaker;
+	/**
+	 * The files of the {@link #persistentCache persistentCaches} opened in this process (see {@link #claimCacheFile(String)}).
+	 */
+	private static final HashSet<String> CACHE_FILES = new HashSet<String>();
+	/**
+	 * The {@link MultiDatabaseController} whose {@link #resultCache} and {@link #snapshots} this one shares or <code>null</code> if it owns them.
+	 */
+	protected final MultiDatabaseController primary;
 	/**
 	 * Shows whether {@link #start()} and/or {@link #stop()} already got called.</br>
 	 * The active state of <code>running</code> can be checked by calling {@link #isRunning()}.
@@ -89,6 +165,24 @@ public class MultiDatabaseController {
 	 * @see ConfigAdapter
 	 */
 	public final boolean EXIT_ON_ERROR;
+	/**
+	 * Whether identical running <code>SELECT</code>-queries share their result (see {@link SqlExecuter#isCoalescable(String)}).
+	 */
+	public final boolean COALESCE_SELECTS;
+	/**
+	 * The name of the data source this controller serves or <code>null</code> for the main Database.
+	 * Only {@link Procedure Procedures} of this data source get {@link PrecomputeScheduler precomputed}.
+	 */
+	public final String DATA_SOURCE;
+	/**
+	 * Time in milliseconds fire-and-forget calls get gathered before they run as one batch (see {@link RequestExecuter#batch(Object, Procedure, Object)}).
+	 * <code>0</code> disables batching.
+	 */
+	public final long BATCH_WINDOW;
+	/**
+	 * The amount of calls after which a batch runs at once without waiting for the end of the {@link #BATCH_WINDOW}.
+	 */
+	public final int BATCH_SIZE;
 	
 	
 	/**
@@ -150,6 +244,67 @@ public class MultiDatabaseController {
 	 * @param exitOnClose
 	 */
 	public MultiDatabaseController(String host, int port, String username, String password, String name, int minBuffer, int targetBuffer, int maxBuffer, long dbTimeout, boolean connect, boolean exitOnClose) {
+		this(host, port, username, password, name, minBuffer, targetBuffer, maxBuffer, dbTimeout, connect, exitOnClose,
+				Integer.parseInt(ConfigAdapter.getDefaultConfig().getConfigString("dbExecuterWorkers").replace("MAX", maxBuffer + "")));
+	}
+	
+	/**
+	 * 
+	 * @param host
+	 * @param port
+	 * @param username
+	 * @param password
+	 * @param name
+	 * @param minBuffer
+	 * @param targetBuffer
+	 * @param maxBuffer
+	 * @param dbTimeout
+	 * @param connect
+	 * @param exitOnClose
+	 * @param executerWorkers Initializes {@link RequestExecuter#WORKERS} of the {@link SqlExecuter} and the {@link ProcedureExecuter}
+	 */
+	public MultiDatabaseController(String host, int port, String username, String password, String name, int minBuffer, int targetBuffer, int maxBuffer, long dbTimeout, boolean connect, boolean exitOnClose, int executerWorkers) {
+		this(host, port, username, password, name, minBuffer, targetBuffer, maxBuffer, dbTimeout, connect, exitOnClose, executerWorkers, null);
+	}
+	
+	/**
+	 * 
+	 * @param host
+	 * @param port
+	 * @param username
+	 * @param password
+	 * @param name
+	 * @param minBuffer
+	 * @param targetBuffer
+	 * @param maxBuffer
+	 * @param dbTimeout
+	 * @param connect
+	 * @param exitOnClose
+	 * @param executerWorkers Initializes {@link RequestExecuter#WORKERS} of the {@link SqlExecuter} and the {@link ProcedureExecuter}
+	 * @param primary equals {@link #primary}. A read-replica shares the caches of its primary, so writes on the primary invalidate them, and does not precompute itself.
+	 */
+	public MultiDatabaseController(String host, int port, String username, String password, String name, int minBuffer, int targetBuffer, int maxBuffer, long dbTimeout, boolean connect, boolean exitOnClose, int executerWorkers, MultiDatabaseController primary) {
+		this(host, port, username, password, name, minBuffer, targetBuffer, maxBuffer, dbTimeout, connect, exitOnClose, executerWorkers, primary, primary == null ? null : primary.DATA_SOURCE);
+	}
+	
+	/**
+	 * 
+	 * @param host
+	 * @param port
+	 * @param username
+	 * @param password
+	 * @param name
+	 * @param minBuffer
+	 * @param targetBuffer
+	 * @param maxBuffer
+	 * @param dbTimeout
+	 * @param connect
+	 * @param exitOnClose
+	 * @param executerWorkers Initializes {@link RequestExecuter#WORKERS} of the {@link SqlExecuter} and the {@link ProcedureExecuter}
+	 * @param primary equals {@link #primary}. A read-replica shares the caches of its primary, so writes on the primary invalidate them, and does not precompute itself.
+	 * @param dataSource equals {@link #DATA_SOURCE}
+	 */
+	public MultiDatabaseController(String host, int port, String username, String password, String name, int minBuffer, int targetBuffer, int maxBuffer, long dbTimeout, boolean connect, boolean exitOnClose, int executerWorkers, MultiDatabaseController primary, String dataSource) {
 		// Check for illogical args
 		if (port > 65535 || port < 0 || username == null || name == null || host == null) {
 			throw new IllegalArgumentException("Illogical Network arguments for MultiDatabaseController!");
@@ -163,15 +318,65 @@ public class MultiDatabaseController {
 		this.DB_TIMEOUT = dbTimeout;
 		this.DB_NAME = name;
 		this.EXIT_ON_ERROR = exitOnClose;
+		this.DATA_SOURCE = dataSource;
+		this.COALESCE_SELECTS = Boolean.parseBoolean(ConfigAdapter.getDefaultConfig().getConfigString("dbCoalesceSelects"));
+		this.BATCH_WINDOW = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBatchWindow"));
+		this.BATCH_SIZE = (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBatchMaxSize"));
 		
 		// Creating the Handlers
-		procExecuter = new ProcedureExecuter();
-		sqlExecuter = new SqlExecuter();
+		breaker = new CircuitBreaker(host + ":" + port + "/" + name,
+				(int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerWindow")),
+				(int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerMinCalls")),
+				(float) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerFailureRate")),
+				(long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerSlowCall")),
+				(float) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerSlowRate")),
+				(long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerOpenTime")),
+				(int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbBreakerProbes")));
+		procExecuter = new ProcedureExecuter(executerWorkers);
+		sqlExecuter = new SqlExecuter(executerWorkers);
 		conHandler = new DatabaseConnectionHandler(minBuffer, targetBuffer, maxBuffer);
+		this.primary = primary;
+		if (primary != null) {
+			resultCache = primary.resultCache;
+			snapshots = primary.snapshots;
+			if (connect) start();
+			return;
+		}
+		snapshots = new ConcurrentHashMap<String, Snapshot>();
+		String cacheFile = claimCacheFile(ConfigAdapter.getDefaultConfig().getConfigString("dbResultCacheFile"));
+		if (cacheFile != null && !cacheFile.isEmpty()) {
+			try {
+				persistentCache = new PersistentResultCache(new File(cacheFile), (int) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbResultCacheFileSize")));
+			} catch (IOException e) {
+				Logger.gdL().logError("Could not open the result-cache " + cacheFile + ". Caching in memory only.");
+				Logger.gdL().logException(e);
+			}
+		}
+		resultCache = new ResultCache((long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbResultCacheSize")), persistentCache);
 		
 		if (connect) start();
 	}
 	
+	/**
+	 * Returns the file of the {@link #persistentCache}. The first {@link MultiDatabaseController} gets the configured file,
+	 * every further one which does not share the caches, like the one of another shard, gets its own file named after its Database and data source,
+	 * numbered if even that one is taken already.
+	 * 
+	 * @param cacheFile the configured <code>dbResultCacheFile</code>
+	 * @return the file to use or <code>cacheFile</code> if it is empty
+	 */
+	private String claimCacheFile(String cacheFile) {
+		if (cacheFile == null || cacheFile.isEmpty()) return cacheFile;
+		synchronized (CACHE_FILES) {
+			if (CACHE_FILES.add(cacheFile)) return cacheFile;
+			int dot = cacheFile.lastIndexOf('.') > cacheFile.lastIndexOf('/') ? cacheFile.lastIndexOf('.') : cacheFile.length();
+			String base = cacheFile.substring(0, dot) + "-" + (DB_HOST + "_" + DB_PORT + "_" + DB_NAME + (DATA_SOURCE == null ? "" : "_" + DATA_SOURCE)).replaceAll("[^A-Za-z0-9_.-]", "_");
+			String own = base + cacheFile.substring(dot);
+			for (int i = 2; !CACHE_FILES.add(own); i++) own = base + "-" + i + cacheFile.substring(dot);
+			return own;
+		}
+	}
+	
 	/**
 	 * Returns whether {@link #start()} and/or {@link #stop()} have been called.
 	 * 
@@ -181,6 +386,25 @@ public class MultiDatabaseController {
 		return running;
 	}
 	
+	/**
+	 * Returns whether the {@link MultiDatabaseController} is running and the {@link #conHandler} filled its buffer up to {@link DatabaseConnectionHandler#MIN_BUFFER}.
+	 * 
+	 * @return <code>true</code> if {@link DatabaseConnectionHandler#isReady()}
+	 */
+	@Override
+	public boolean isReady() {
+		return running && conHandler.isReady();
+	}
+	
+	/**
+	 * Returns whether the {@link MultiDatabaseController} is running and its {@link #breaker} is not open.
+	 * 
+	 * @return <code>true</code> if requests are accepted
+	 */
+	public boolean isAvailable() {
+		return running && breaker.getState() != CircuitBreaker.State.OPEN;
+	}
+	
 	/**
 	 * Starts the MultiDatabaseController by setting {@link #running} to <code>true</code>.</br>
 	 * With this call also the {@link DatabaseConnectionHandler} and the {@link SqlExecuter} get started by calling {@link #conHandler}.{@link DatabaseConnectionHandler#start() start()} and {@link #sqlExecuter}.{@link SqlExecuter#start() start()}.
@@ -195,20 +419,44 @@ public class MultiDatabaseController {
 					+ String.format("%1$-15s %2$s", "\t- DB: ", DB_NAME) + Logger.SEPERATOR);
 		running = true;
 		conHandler.start();
+		housekeeper = new PoolHousekeeper((long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbHousekeepingPeriod")));
+		housekeeper.start();
+		if (primary == null) {
+			precomputer = new PrecomputeScheduler((long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbPrecomputeTick")));
+			precomputer.start();
+		}
+		if (persistentCache != null)
+			persistentCache.startCompactor((long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbResultCacheCompactPeriod")));
 		procExecuter.start();
 		sqlExecuter.start();
+		if (isBatching()) {
+			batchFlusher = new BatchFlusher(BATCH_WINDOW);
+			batchFlusher.start();
+		}
 		Logger.gdL().logInfo("Successfully started the MultiDatabaseController.");
 	}
 	
 	/**
 	 * Stops the {@link MultiDatabaseController} by calling {@link #sqlExecuter}.{@link SqlExecuter#shutdown() shutdown()} and {@link #conHandler}.{@link DatabaseConnectionHandler#shutdown() shutdown()}.</br>
+	 * Queued requests and open batches of fire-and-forget calls still get executed for up to {@link #DB_TIMEOUT} milliseconds before the connections get closed.</br>
 	 * This also sets {@link #running} to <code>false</code>.
 	 */
 	public synchronized void stop() {
 		if (running) {
 			Logger.gdL().logInfo("Shutting down the MultiDatabaseController");
-			procExecuter.shutdown();
-			sqlExecuter.shutdown();
+			if (batchFlusher != null)
+				batchFlusher.shutdown();
+			// Both executers drain their queued requests and open batches at the same time
+			long deadline = System.currentTimeMillis() + DB_TIMEOUT;
+			procExecuter.close();
+			sqlExecuter.close();
+			procExecuter.shutdown(deadline);
+			sqlExecuter.shutdown(deadline);
+			housekeeper.shutdown();
+			if (precomputer != null)
+				precomputer.shutdown();
+			if (persistentCache != null)
+				persistentCache.stopCompactor();
 			conHandler.shutdown();
 			running = false;
 			Logger.gdL().logInfo("MultiDatabaseController successfully shut down");
@@ -259,90 +507,359 @@ public class MultiDatabaseController {
 	}
 	
 	/**
+	 * Queues the given {@link Procedure} without blocking the caller.</br>
+	 * See {@link #callProcAsync(Executor, Procedure, Object...)} for the behaviour of the returned {@link CompletableFuture}.
+	 * 
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	public CompletableFuture<Object> callProcAsync(Procedure proc, Object...args) {
+		return callProcAsync(null, proc, args);
+	}
+	
+	/**
+	 * Queues the given {@link Procedure} without blocking the caller.</br>
+	 * The returned {@link CompletableFuture} fails with an {@link IllegalArgumentException} if the arguments do not match the {@link Procedure#PARAM_TYPES}
+	 * and with a {@link TimeoutException} after {@link #DB_TIMEOUT} milliseconds.
+	 * {@link CompletableFuture#cancel(boolean) Cancelling} it removes the {@link Procedure} from the queue if it was not executed yet.
+	 * 
+	 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code> to complete it on the database-worker
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	public CompletableFuture<Object> callProcAsync(Executor executor, Procedure proc, Object...args) {
+		return callUserProcAsync(null, NO_DEADLINE, executor, proc, args);
+	}
+	
+	/**
+	 * Queues the given {@link Procedure} like {@link #callProcAsync(Executor, Procedure, Object...)} but gives up at the given deadline.</br>
+	 * The time the {@link Procedure} waits in the queue is subtracted from its query-timeout. If the deadline passes or the returned {@link CompletableFuture}
+	 * gets {@link CompletableFuture#cancel(boolean) cancelled} while the {@link Procedure} runs, its statement gets cancelled and the connection is free again.
+	 * {@link Procedure#COALESCE Coalesced} calls are shared by other callers, so they run up to {@link #DB_TIMEOUT} milliseconds and only the returned
+	 * {@link CompletableFuture} fails at the deadline.
+	 * 
+	 * @param user the name of the calling User, not used by this controller
+	 * @param deadline the absolute time in milliseconds the caller waits for the result, at most {@link #DB_TIMEOUT} milliseconds from now are used
+	 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code> to complete it on the database-worker
+	 * @param proc {@link Procedure} to execute
+	 * @param args parameters for the {@link Procedure}
+	 * @return a {@link CompletableFuture} which gets completed with the result of the {@link Procedure}
+	 */
+	@Override
+	public CompletableFuture<Object> callUserProcAsync(String user, long deadline, Executor executor, Procedure proc, Object...args) {
+		if (proc == null) return CompletableFuture.completedFuture(null);
+		try {
+			// Wrong arguments get rejected before a connection is borrowed
+			args = proc.convertArguments(args);
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		Object cached = getPrecomputed(proc);
+		if (cached == ResultCache.MISS) cached = procExecuter.getCached(proc, args);
+		if (cached != ResultCache.MISS) return CompletableFuture.completedFuture(cached);
+		if (proc.COALESCE)
+			// The shared call runs for every waiter, so only the future of this caller gets its deadline
+			return procExecuter.submitSharedAsync(procExecuter.getKey(proc, args), new DatabaseRequest<Object>(proc, args, DB_TIMEOUT), deadline, executor);
+		return procExecuter.submitAsync(new DatabaseRequest<Object>(proc, args, DB_TIMEOUT, deadline), executor);
+	}
+	
+	/**
+	 * Queues the given SQL-Query without blocking the caller.</br>
+	 * See {@link #executeSqlAsync(String, Executor)} for the behaviour of the returned {@link CompletableFuture}.
+	 * 
+	 * @param query to execute
+	 * @return a {@link CompletableFuture} which gets completed with the {@link ResultSet} of the query
+	 */
+	public CompletableFuture<ResultSet> executeSqlAsync(String query) {
+		return executeSqlAsync(query, null);
+	}
+	
+	/**
+	 * Queues the given SQL-Query without blocking the caller.</br>
+	 * The returned {@link CompletableFuture} fails with a {@link TimeoutException} after {@link #DB_TIMEOUT} milliseconds.
+	 * {@link CompletableFuture#cancel(boolean) Cancelling} it removes the query from the queue if it was not executed yet.
+	 * 
+	 * @param query to execute
+	 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code> to complete it on the database-worker
+	 * @return a {@link CompletableFuture} which gets completed with the {@link ResultSet} of the query
+	 */
+	public CompletableFuture<ResultSet> executeSqlAsync(String query, Executor executor) {
+		if (sqlExecuter.isCoalescable(query))
+			return sqlExecuter.submitSharedAsync(query, new DatabaseRequest<ResultSet>(query, DB_TIMEOUT), NO_DEADLINE, executor);
+		return sqlExecuter.submitAsync(new DatabaseRequest<ResultSet>(query, DB_TIMEOUT), executor);
+	}
+	
+	/**
+	 * Returns whether the given query only reads data. This is the case for plain <code>SELECT</code>-queries without locking-clauses.
+	 * 
+	 * @param query the SQL-Query
+	 * @return <code>true</code> if the query may share its result or run on a read-replica
+	 */
+	public static boolean isReadOnlyQuery(String query) {
+		String q = query.trim().toUpperCase();
+		return q.startsWith("SELECT") && !q.contains(" FOR UPDATE") && !q.contains(" LOCK IN SHARE MODE");
+	}
+	
+	/**
+	 * Returns whether the given query only changes rows and returns no result, so it can run in a batch.
+	 * This is the case for <code>INSERT</code>-, <code>UPDATE</code>-, <code>DELETE</code>- and <code>REPLACE</code>-queries.
+	 * 
+	 * @param query the SQL-Query
+	 * @return <code>true</code> if the query can be batched
+	 */
+	public static boolean isBatchableQuery(String query) {
+		String q = query.trim().toUpperCase();
+		return q.startsWith("INSERT") || q.startsWith("UPDATE") || q.startsWith("DELETE") || q.startsWith("REPLACE");
+	}
+	
+	/**
+	 * Returns whether fire-and-forget calls get gathered into batches.
+	 * 
+	 * @return <code>true</code> if {@link #BATCH_WINDOW} and {@link #BATCH_SIZE} allow batches
+	 */
+	public boolean isBatching() {
+		return BATCH_WINDOW > 0 && BATCH_SIZE > 1;
+	}
+	
+	/**
+	 * Returns a copy of the published result of the given precomputed {@link Procedure}.
+	 * 
+	 * @param proc the called {@link Procedure}
+	 * @return the result or {@link ResultCache#MISS} if the {@link Procedure} is not precomputed or was not computed yet
+	 */
+	public Object getPrecomputed(Procedure proc) {
+		if (proc.PRECOMPUTE <= 0) return ResultCache.MISS;
+		Snapshot snapshot = snapshots.get(proc.NAME);
+		if (snapshot == null) return ResultCache.MISS;
+		try {
+			return ResultCache.copy(snapshot.VALUE);
+		} catch (SQLException e) {
+			Logger.gdL().logException(e);
+			return ResultCache.MISS;
+		}
+	}
+	
+	/**
+	 * Returns the statistics of the {@link DatabaseConnectionHandler}, the {@link SqlExecuter} and the {@link ProcedureExecuter} as readable {@link String}.
+	 * 
+	 * @return statistics for the logs
+	 */
+	public String getStatistics() {
+		String statistics = conHandler.getStatistics() + Logger.SEPERATOR + sqlExecuter.getStatistics() + Logger.SEPERATOR + procExecuter.getStatistics() + Logger.SEPERATOR + breaker.getStatistics();
+		// A replica shares the caches of its primary
+		if (primary != null) return statistics;
+		return statistics + Logger.SEPERATOR + resultCache.getStatistics() + (precomputer == null ? "" : Logger.SEPERATOR + precomputer.getStatistics());
+	}
+	
+	/**
+	 * Executes the {@link DatabaseRequest DatabaseRequests} of one kind with {@link #WORKERS} {@link RequestWorker RequestWorkers} which drain one shared {@link #queue}.</br>
+	 * Every worker borrows its own {@link SingleDatabaseController} from the {@link DatabaseConnectionHandler} so up to {@link #WORKERS} requests run in parallel.</br>
+	 * Every call gets its own {@link DatabaseRequest} with its own {@link CompletableFuture}, so identical calls at the same time do not interfere.</br>
+	 * The time a request waits in the {@link #queue} and the time it takes to execute are measured separately (see {@link #getStatistics()}).
 	 * 
 	 * @author Cedric
-	 *
+	 * @param <T> the result-type of the requests
+	 * @see SqlExecuter
+	 * @see ProcedureExecuter
 	 */
-	protected class ProcedureExecuter extends Thread {
+	protected abstract class RequestExecuter<T> {
 		/**
-		 * 
+		 * Indicates whether the {@link RequestWorker RequestWorkers} are running.
 		 */
 		protected volatile boolean running;
 		/**
-		 * 
+		 * Indicates whether new requests get accepted. It is <code>false</code> while the executer drains its {@link #queue} before it stops.
 		 */
-		protected volatile Object lock;
+		protected volatile boolean accepting;
 		/**
-		 * 
+		 * Queued once per {@link RequestWorker} behind all other requests when the executer {@link #shutdown() shuts down}, so every worker stops after the {@link #queue} is drained.
 		 */
-		protected volatile boolean locked;
+		protected final DatabaseRequest<T> stopSignal;
 		/**
-		 * 
+		 * The requests waiting for a free {@link RequestWorker}.
 		 */
-		protected volatile HashMap<Procedure, Object[]> linking;
+		protected volatile LinkedBlockingQueue<DatabaseRequest<T>> queue;
 		/**
-		 * 
+		 * The {@link RequestWorker RequestWorkers} draining the {@link #queue}.
 		 */
-		protected volatile HashMap<Procedure, Object> proUncared;
+		protected volatile Thread[] workers;
 		/**
-		 * 
+		 * The amount of {@link RequestWorker RequestWorkers} which are executing a request right now.
+		 */
+		protected final AtomicInteger busy;
+		/**
+		 * The amount of executed requests.
+		 */
+		protected final AtomicLong executed;
+		/**
+		 * The sum of the time in milliseconds all executed requests waited in the {@link #queue}.
+		 */
+		protected final AtomicLong queueTime;
+		/**
+		 * The sum of the time in milliseconds all executed requests took to execute including borrowing the connection.
+		 */
+		protected final AtomicLong executionTime;
+		/**
+		 * The longest time in milliseconds a request waited in the {@link #queue}.
+		 */
+		protected final AtomicLong maxQueueTime;
+		/**
+		 * The running shared requests by their key (see {@link #submitShared(Object, DatabaseRequest)}).
+		 */
+		protected final ConcurrentHashMap<Object, DatabaseRequest<T>> inFlight;
+		/**
+		 * The amount of calls which got attached to a running shared request instead of being queued.
+		 */
+		protected final AtomicLong coalesced;
+		/**
+		 * The open batches of fire-and-forget calls by their key (see {@link #batch(Object, Procedure, Object)}). Guarded by itself.
+		 */
+		protected final HashMap<Object, DatabaseRequest<T>> batches;
+		/**
+		 * The amount of executed batches and the calls they contained.
+		 */
+		protected final AtomicLong batchCount, batchedCalls;
+		/**
+		 * The sum and the maximum of the time in milliseconds from the first call of a batch until the batch was executed.
+		 */
+		protected final AtomicLong flushLatency, maxFlushLatency;
+		/**
+		 * The most calls an executed batch contained.
+		 */
+		protected final AtomicLong maxBatchSize;
+		
+		// *************
+		// * CONSTANTS *
+		// *************
+		/**
+		 * The amount of {@link RequestWorker RequestWorkers}.
+		 */
+		public final int WORKERS;
+		/**
+		 * The name of the executer for the logs and the worker-threads.
 		 */
-		protected volatile HashMap<Procedure, Object> proCared;
+		public final String NAME;
 		
 		/**
+		 * Creates a new {@link RequestExecuter}. Call {@link #start()} to start the {@link RequestWorker RequestWorkers}.
 		 * 
+		 * @param name equals {@link #NAME}
+		 * @param workers equals {@link #WORKERS}
 		 */
-		public ProcedureExecuter() {
+		public RequestExecuter(String name, int workers) {
+			if (workers < 1) throw new IllegalArgumentException("Illogical worker argument for MultiDatabaseConnector." + name);
+			this.NAME = name;
+			this.WORKERS = workers;
+			this.busy = new AtomicInteger();
+			this.executed = new AtomicLong();
+			this.queueTime = new AtomicLong();
+			this.executionTime = new AtomicLong();
+			this.maxQueueTime = new AtomicLong();
+			this.inFlight = new ConcurrentHashMap<Object, DatabaseRequest<T>>();
+			this.coalesced = new AtomicLong();
+			this.batches = new HashMap<Object, DatabaseRequest<T>>();
+			this.batchCount = new AtomicLong();
+			this.batchedCalls = new AtomicLong();
+			this.flushLatency = new AtomicLong();
+			this.maxFlushLatency = new AtomicLong();
+			this.maxBatchSize = new AtomicLong();
+			this.stopSignal = new DatabaseRequest<T>("STOP", 0);
 			setUp();
 		}
-		
+
 		/**
-		 * 
+		 * Creates a new {@link #queue} and new {@link #workers}.
 		 */
 		protected synchronized void setUp() {
-			lock = new Object();
-			locked = false;
 			running = false;
-			linking = new HashMap<Procedure, Object[]>();
-			proUncared = new HashMap<Procedure, Object>();
-			proCared = new HashMap<Procedure, Object>();
+			queue = new LinkedBlockingQueue<DatabaseRequest<T>>();
+			workers = new Thread[WORKERS];
+			for (int i = 0; i < WORKERS; i++)
+				workers[i] = new RequestWorker(i);
 		}
 		
 		/**
-		 * 
+		 * Starts all {@link #workers}.
 		 */
-		@Override
-		public void start() {
-			Logger.gdL().logInfo("Starting the Procedure-Executer");
+		public synchronized void start() {
+			Logger.gdL().logInfo("Starting the " + NAME + " with " + WORKERS + " workers");
 			running = true;
-			super.start();
-			Logger.gdL().logInfo("Successfully started the Procedure-Executer");
+			accepting = true;
+			for (Thread worker : workers)
+				worker.start();
+			Logger.gdL().logInfo("Successfully started the " + NAME);
+		}
+		
+		/**
+		 * Stops all {@link #workers} after they executed the queued requests and the open batches, at most {@link MultiDatabaseController#DB_TIMEOUT} milliseconds.
+		 */
+		public void shutdown() {
+			close();
+			shutdown(System.currentTimeMillis() + DB_TIMEOUT);
+		}
+		
+		/**
+		 * Stops accepting new requests and queues the open batches, so they still get executed by {@link #shutdown(long)}.
+		 */
+		public void close() {
+			synchronized (batches) {
+				accepting = false;
+				flushBatches();
+			}
 		}
 		
 		/**
+		 * Lets the {@link #workers} drain the {@link #queue} and stops them. Call {@link #close()} first.</br>
+		 * Requests which are still in the {@link #queue} at the given time get completed with <code>null</code>.
 		 * 
+		 * @param deadline the time in milliseconds the workers get stopped at the latest
 		 */
-		public synchronized void shutdown() {
-			Logger.gdL().logInfo("Shutting down the Procedure-Executer");
+		public synchronized void shutdown(long deadline) {
+			Logger.gdL().logInfo("Shutting down " + NAME);
+			accepting = false;
+			for (int i = 0; i < workers.length; i++)
+				queue.add(stopSignal);
+			for (Thread worker : workers) {
+				long left = deadline - System.currentTimeMillis();
+				// A worker stopping the MultiDatabaseController cannot wait for itself
+				if (left <= 0 || worker == Thread.currentThread()) continue;
+				try {
+					worker.join(left);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
 			running = false;
+			for (Thread worker : workers)
+				if (worker != Thread.currentThread()) worker.interrupt();
+			int dropped = 0;
+			DatabaseRequest<T> request;
+			while ((request = queue.poll()) != null) {
+				if (request == stopSignal || request.FUTURE.isDone()) continue;
+				dropped += request.BATCH == null ? 1 : request.BATCH.size();
+				request.FUTURE.completeExceptionally(new DatabaseUnavailableException(NAME + " stopped before " + request + " could run"));
+			}
+			if (dropped > 0) Logger.gdL().logWarning(NAME + " dropped " + dropped + " calls which did not run within the shutdown-timeout");
 		}
 		
 		/**
-		 * 
+		 * Restarts the executer with new {@link #workers} after the old ones drained the {@link #queue} (see {@link #shutdown()}).
 		 */
 		public synchronized void restart() {
-			Logger.gdL().logInfo("Restarting Procedure-Excuter");
+			Logger.gdL().logInfo("Restarting " + NAME);
 			Thread restarter = new Thread(new Runnable() {
 				@Override
 				public void run() {
 					if (MultiDatabaseController.this.running) {
 						shutdown();
-						MultiDatabaseController.ProcedureExecuter.super.interrupt();
 						setUp();
 						start();
-						Logger.gdL().logInfo("Successfully restarted Procedure-Executer");
+						Logger.gdL().logInfo("Successfully restarted " + NAME);
 					} else
-						Logger.gdL().logWarning("MultiDatabaseController is not running so Procedure-Executer cannot be started!");
+						Logger.gdL().logWarning("MultiDatabaseController is not running so " + NAME + " cannot be started!");
 				}
 			});
 			restarter.setDaemon(true);
@@ -350,331 +867,685 @@ public class MultiDatabaseController {
 		}
 		
 		/**
+		 * Puts the given request into the {@link #queue}.
+		 * While the {@link MultiDatabaseController#breaker breaker} is open or the executer is stopped or draining the request fails at once with a {@link DatabaseUnavailableException},
+		 * so callers can tell a call which did not run from one without a result.
 		 * 
-		 * @param proc
-		 * @param args
-		 * @return
+		 * @param request to execute
+		 * @return the given request
 		 */
-		public Object callProc(Procedure proc, Object[] args) {
-			return proc == null ? null : callProc(proc, args, args.length != 0);
+		public DatabaseRequest<T> submit(DatabaseRequest<T> request) {
+			if (!running || !accepting) request.FUTURE.completeExceptionally(new DatabaseUnavailableException(NAME + " does not accept " + request + " anymore"));
+			else enqueue(request);
+			return request;
+		}
+		
+		/**
+		 * Puts the given request into the {@link #queue} unless the {@link MultiDatabaseController#breaker breaker} is open.
+		 */
+		private void enqueue(DatabaseRequest<T> request) {
+			if (!breaker.allowRequest()) request.FUTURE.completeExceptionally(new DatabaseUnavailableException("The CircuitBreaker " + breaker.NAME + " rejected " + request));
+			else queue.add(request);
 		}
 		
 		/**
+		 * Adds a fire-and-forget call to the open batch with the given key instead of queueing it on its own.
+		 * The batch gets queued as one request as soon as it holds {@link MultiDatabaseController#BATCH_SIZE} calls,
+		 * otherwise the {@link BatchFlusher} queues it within {@link MultiDatabaseController#BATCH_WINDOW} milliseconds.
+		 * All calls of a batch run on one connection with one round trip.
 		 * 
-		 * @param proc
-		 * @param args
-		 * @param waitForAnswer
-		 * @return
+		 * @param key identifies the calls which can run in the same batch
+		 * @param proc the {@link Procedure} of the calls or <code>null</code> for SQL-Queries
+		 * @param call the {@link Procedure#convertArguments(Object...) converted} arguments of the call or the SQL-Query
 		 */
-		public Object callProc(Procedure proc, Object[] args, boolean waitForAnswer) {
-			if (proc == null) return null;
-			if (waitForAnswer) {
-				Object o = new Object();
-				linking.put(proc, args);
-				proUncared.put(proc, o);
-				if (locked) synchronized (lock) {lock.notifyAll();}
-				synchronized (o) {
-					try {
-						o.wait(DB_TIMEOUT);
-					} catch (InterruptedException e) {
-						Logger.gdL().logError("An error occured while waiting for the Procedure-Result.");
-						Logger.gdL().logException(e);
-						linking.remove(proc);
-						proUncared.remove(proc);
-						proCared.remove(proc);
-						if (EXIT_ON_ERROR)
-							MultiDatabaseController.this.stop();
-						return null;
-					}
-					return proCared.remove(proc);
+		public void batch(Object key, Procedure proc, Object call) {
+			// Queued under the lock, so a closing executer cannot queue its stopSignal in between
+			synchronized (batches) {
+				if (!running || !accepting) {
+					Logger.gdL().logWarning(NAME + " is not running and rejected a fire-and-forget call");
+					return;
 				}
-			} else {
-				proUncared.put(proc, null);
-				if (locked) synchronized (lock) {lock.notifyAll();}
-				return null;
+				DatabaseRequest<T> request = batches.get(key);
+				if (request == null) batches.put(key, request = new DatabaseRequest<T>(proc, new ArrayList<Object>(), DB_TIMEOUT));
+				request.BATCH.add(call);
+				if (request.BATCH.size() >= BATCH_SIZE) enqueue(batches.remove(key));
+			}
+		}
+		
+		/**
+		 * Queues all open batches (see {@link #batch(Object, Procedure, Object)}).
+		 */
+		public void flushBatches() {
+			synchronized (batches) {
+				for (DatabaseRequest<T> request : batches.values())
+					enqueue(request);
+				batches.clear();
 			}
 		}
 		
 		/**
+		 * Puts the given request into the {@link #queue} and returns a {@link CompletableFuture} for its result.</br>
+		 * The {@link CompletableFuture} fails with a {@link TimeoutException} at the {@link DatabaseRequest#DEADLINE} and cancelling it removes the request from the {@link #queue}.
 		 * 
+		 * @param request to execute
+		 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code>
+		 * @return the {@link CompletableFuture} of the request
 		 */
-		@Override
-		public void run() {
-			while (running) {
-				if (proUncared.size() == 0) {
-					locked = true;
-					synchronized (lock) {
-						try {
-							lock.wait();
-						} catch (InterruptedException e) {
-							Logger.gdL().logError("An error occured while waiting for incoming Procedures.");
-							Logger.gdL().logException(e);
-							
-							if (running) {
-								if (EXIT_ON_ERROR)
-									restart();
-								else
-									MultiDatabaseController.this.stop();
-								return;
-							}
-						} finally {
-							locked = false;
+		public CompletableFuture<T> submitAsync(DatabaseRequest<T> request, Executor executor) {
+			request.FUTURE.orTimeout(Math.max(0, request.DEADLINE - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			request.FUTURE.whenComplete((result, e) -> {
+				if (request.FUTURE.isCancelled()) queue.remove(request);
+			});
+			submit(request);
+			if (executor == null) return request.FUTURE;
+			CompletableFuture<T> future = request.FUTURE.whenCompleteAsync((result, e) -> {}, executor);
+			// Dependent futures do not cancel their source on their own
+			future.whenComplete((result, e) -> {
+				if (future.isCancelled()) request.FUTURE.cancel(false);
+			});
+			return future;
+		}
+		
+		/**
+		 * Puts the given request into the {@link #queue} unless an identical request with the same key is still running.
+		 * In that case the running request is returned and the given one gets dropped, so identical reads run only once.</br>
+		 * Only use this for requests which do not change data. Everyone using the result of a shared request has to use a {@link ResultCache#copy(Object) copy}.
+		 * 
+		 * @param key identifies identical requests
+		 * @param request to execute
+		 * @return the request whose result to use
+		 */
+		public DatabaseRequest<T> submitShared(Object key, DatabaseRequest<T> request) {
+			while (true) {
+				DatabaseRequest<T> shared = inFlight.putIfAbsent(key, request);
+				if (shared == null) {
+					request.FUTURE.whenComplete((result, e) -> inFlight.remove(key, request));
+					return submit(request);
+				}
+				if (!shared.FUTURE.isDone()) {
+					coalesced.incrementAndGet();
+					return shared;
+				}
+				inFlight.remove(key, shared);
+			}
+		}
+		
+		/**
+		 * Like {@link #submitAsync(DatabaseRequest, Executor)} but shares running identical requests like {@link #submitShared(Object, DatabaseRequest)}.</br>
+		 * Every caller gets its own copy of the result. Cancelling the returned {@link CompletableFuture} does not cancel the shared request as others may wait for it.</br>
+		 * The shared request keeps the {@link DatabaseRequest#DEADLINE} of the request which started it, so give it no deadline of a caller.
+		 * The deadline of every caller only ends the {@link CompletableFuture} of that caller.
+		 * 
+		 * @param key identifies identical requests
+		 * @param request to execute
+		 * @param deadline the absolute time in milliseconds this caller waits for the result or {@link DatabaseController#NO_DEADLINE}
+		 * @param executor the {@link Executor} the returned {@link CompletableFuture} gets completed on or <code>null</code>
+		 * @return a {@link CompletableFuture} for a copy of the result
+		 */
+		public CompletableFuture<T> submitSharedAsync(Object key, DatabaseRequest<T> request, long deadline, Executor executor) {
+			request.FUTURE.orTimeout(Math.max(0, request.DEADLINE - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			DatabaseRequest<T> shared = submitShared(key, request);
+			CompletableFuture<T> future = executor == null ? shared.FUTURE.thenApply(this::copy) : shared.FUTURE.thenApplyAsync(this::copy, executor);
+			if (deadline < shared.DEADLINE) future.orTimeout(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			return future;
+		}
+		
+		/**
+		 * Waits for the given shared request like {@link #await(DatabaseRequest)} and returns a copy of its result.
+		 * 
+		 * @param request the request returned by {@link #submitShared(Object, DatabaseRequest)}
+		 * @return a copy of the result of the request or <code>null</code> if an error occured
+		 */
+		public T awaitShared(DatabaseRequest<T> request) {
+			T result = await(request);
+			try {
+				return copy(result);
+			} catch (CompletionException e) {
+				Logger.gdL().logException(e.getCause());
+				return null;
+			}
+		}
+		
+		/**
+		 * Returns a {@link ResultCache#copy(Object) copy} of a shared result.
+		 */
+		@SuppressWarnings("unchecked")
+		private T copy(T result) {
+			try {
+				return (T) ResultCache.copy(result);
+			} catch (SQLException e) {
+				throw new CompletionException(e);
+			}
+		}
+		
+		/**
+		 * Waits until the given request is done or its {@link DatabaseRequest#DEADLINE} passed.
+		 * 
+		 * @param request to wait for
+		 * @return the result of the request or <code>null</code> if an error occured
+		 */
+		public T await(DatabaseRequest<T> request) {
+			try {
+				return request.FUTURE.get(Math.max(0, request.DEADLINE - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				queue.remove(request);
+				request.FUTURE.cancel(false);
+				Logger.gdL().logWarning("No result for " + request + " after " + (request.DEADLINE - request.QUEUED_AT) + " milliseconds");
+			} catch (ExecutionException e) {
+				// Already logged by the worker
+			} catch (InterruptedException e) {
+				Logger.gdL().logError("An error occured while waiting for the result of " + request);
+				Logger.gdL().logException(e);
+				queue.remove(request);
+				if (EXIT_ON_ERROR)
+					MultiDatabaseController.this.stop();
+			}
+			return null;
+		}
+		
+		/**
+		 * Returns the queue- and execution-times of the executed requests as readable {@link String}.
+		 * 
+		 * @return statistics for the logs
+		 */
+		public String getStatistics() {
+			long count = executed.get();
+			long flushed = batchCount.get();
+			return NAME + ":" + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Workers:", busy.get() + "/" + WORKERS + " busy") + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Queued:", queue.size()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Executed:", count) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Coalesced:", coalesced.get()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Avg. queue-time:", (count == 0 ? 0 : queueTime.get() / count) + "ms (max " + maxQueueTime.get() + "ms)") + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Avg. exec.-time:", (count == 0 ? 0 : executionTime.get() / count) + "ms") + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Batches:", flushed + " (avg. " + (flushed == 0 ? 0 : batchedCalls.get() / flushed) + " calls, max " + maxBatchSize.get() + ")") + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Avg. flush-time:", (flushed == 0 ? 0 : flushLatency.get() / flushed) + "ms (max " + maxFlushLatency.get() + "ms)");
+		}
+		
+		/**
+		 * Executes the given request on the given {@link SingleDatabaseController}.
+		 * 
+		 * @param con the borrowed connection
+		 * @param request to execute
+		 * @return the result of the request
+		 * @throws Exception if the execution fails
+		 */
+		protected abstract T execute(SingleDatabaseController con, DatabaseRequest<T> request) throws Exception;
+		
+		/**
+		 * Borrows a {@link SingleDatabaseController}, executes the given request on it and completes the {@link DatabaseRequest#FUTURE}.
+		 */
+		protected void process(DatabaseRequest<T> request) {
+			long started = System.currentTimeMillis();
+			long waited = started - request.QUEUED_AT;
+			queueTime.addAndGet(waited);
+			maxQueueTime.accumulateAndGet(waited, Math::max);
+			busy.incrementAndGet();
+			try {
+				SingleDatabaseController con = conHandler.getConnection();
+				if (con == null) {
+					Logger.gdL().logError("No DatabaseConnection available for " + request);
+					breaker.recordFailure();
+					request.FUTURE.completeExceptionally(new DatabaseUnavailableException("No DatabaseConnection available for " + request));
+					return;
+				}
+				try {
+					T result = null;
+					boolean attached = request.attach(con);
+					if (attached) {
+						con.setDeadline(request.DEADLINE);
+						try {
+							result = execute(con, request);
+						} finally {
+							request.detach();
+							con.setDeadline(0);
 						}
 					}
-				} else {
-					Procedure key = proUncared.keySet().toArray(new Procedure[proUncared.size()])[0];
-					SingleDatabaseController con = conHandler.getConnection();
-					Object val = new Object();	// Exists for maybe later implementations
+					request.FUTURE.complete(result);
+					if (attached) breaker.recordSuccess(System.currentTimeMillis() - started);
+					else breaker.recordCancelled();
+				} catch (Exception e) {
+					// A call stopped by the deadline of its caller says nothing about the health of the Database
+					boolean abandoned = request.isAbandoned();
+					if (abandoned) breaker.recordCancelled();
+					else breaker.record(e, System.currentTimeMillis() - started);
+					Logger.gdL().logError("An error occured while executing " + request);
+					Logger.gdL().logException(e);
+					request.FUTURE.completeExceptionally(e);
+					if (EXIT_ON_ERROR && !abandoned)
+						MultiDatabaseController.this.stop();
+				}
+				try {
+					conHandler.storeConnection(con);
+				} catch (SQLException e) {
+					Logger.gdL().logError("An error occured while storing the connection back into the buffer.");
+					Logger.gdL().logException(e);
 					try {
-						if (key.RET_TYPE.equals("NO_RET") || key.RET_TYPE.equals("MULTIPLE_RETS")) {
-							ResultSet set = null;
-							set = con.executeResultSetProcedure(key, linking.get(key));
-							val = set;
-						}
-					} catch (SQLException e) {
-						Logger.gdL().logError("An error occured while executing the procedure " + key.toString());
+						con.disconnect();
+					} catch (SQLException e1) {
+						Logger.gdL().logError("An error occured while disconnecting from the Database.");
+						Logger.gdL().logException(e1);
+					}
+					conHandler.checkForChange();
+				}
+			} finally {
+				busy.decrementAndGet();
+				executed.incrementAndGet();
+				executionTime.addAndGet(System.currentTimeMillis() - started);
+				if (request.BATCH != null) {
+					// Measured from the first call, so the time the batch was open is included
+					long latency = System.currentTimeMillis() - request.QUEUED_AT;
+					batchCount.incrementAndGet();
+					batchedCalls.addAndGet(request.BATCH.size());
+					maxBatchSize.accumulateAndGet(request.BATCH.size(), Math::max);
+					flushLatency.addAndGet(latency);
+					maxFlushLatency.accumulateAndGet(latency, Math::max);
+				}
+			}
+		}
+		
+		/**
+		 * One of the {@link RequestExecuter#WORKERS} threads taking requests from the {@link RequestExecuter#queue}.
+		 * 
+		 * @author Cedric
+		 */
+		protected class RequestWorker extends Thread {
+			
+			/**
+			 * Creates a new {@link RequestWorker}.
+			 * 
+			 * @param id number of the worker for its name
+			 */
+			public RequestWorker(int id) {
+				setName(NAME + "-" + id);
+				setDaemon(true);
+			}
+			
+			@Override
+			public void run() {
+				while (running) {
+					DatabaseRequest<T> request;
+					try {
+						request = queue.take();
+					} catch (InterruptedException e) {
+						if (!running) break;
+						Logger.gdL().logError("An error occured while waiting for incoming requests of the " + NAME + ".");
 						Logger.gdL().logException(e);
 						if (EXIT_ON_ERROR)
+							restart();
+						else
 							MultiDatabaseController.this.stop();
+						return;
 					}
-
-					Object o = proUncared.get(key);
-					if (o != null) {
-						proCared.put(key, val);
-						synchronized (o) {
-							o.notifyAll();
-						}
-					} else
-						linking.remove(key);
-					proUncared.remove(key);
-					try {
-						conHandler.storeConnection(con);
-					} catch (SQLException e) {
-						Logger.gdL().logError("An error occured while storing the connection back into the buffer.");
-						Logger.gdL().logException(e);
-						try {
-							con.disconnect();
-						} catch (SQLException e1) {
-							Logger.gdL().logError("An error occured while disconnecting from the Database.");
-							Logger.gdL().logException(e1);
-						}
-						conHandler.checkForChange();
+					// Everything queued before got executed
+					if (request == stopSignal) break;
+					// The caller already gave up on this request
+					if (request.FUTURE.isDone()) {
+						breaker.recordCancelled();
+						continue;
+					}
+					if (request.DEADLINE < System.currentTimeMillis()) {
+						breaker.recordCancelled();
+						request.FUTURE.completeExceptionally(new TimeOutException(request + " passed its deadline while it waited"));
+						continue;
 					}
+					process(request);
 				}
 			}
 		}
 	}
 	
 	/**
-	 * 
+	 * Executes {@link Procedure Procedures} with the {@link RequestExecuter#WORKERS workers} of a {@link RequestExecuter}.
 	 * 
 	 * @author Cedric
 	 * @see MultiDatabaseController
 	 */
-	protected class SqlExecuter extends Thread {
+	protected class ProcedureExecuter extends RequestExecuter<Object> {
+		
 		/**
+		 * Creates a new {@link ProcedureExecuter}.
 		 * 
+		 * @param workers equals {@link RequestExecuter#WORKERS}
 		 */
-		protected volatile Object lock;
+		public ProcedureExecuter(int workers) {
+			super("ProcedureExecuter", workers);
+		}
+		
 		/**
+		 * Executes the given {@link Procedure} and waits for the result if there are <code>args</code>.
 		 * 
+		 * @param proc {@link Procedure} to execute
+		 * @param args parameters for the {@link Procedure}
+		 * @return the result of the {@link Procedure} or <code>null</code>
 		 */
-		protected volatile boolean locked;
+		public Object callProc(Procedure proc, Object[] args) {
+			return proc == null ? null : callProc(proc, args, args.length != 0);
+		}
+		
 		/**
+		 * Queues the given {@link Procedure}.
 		 * 
+		 * @param proc {@link Procedure} to execute
+		 * @param args parameters for the {@link Procedure}
+		 * @param waitForAnswer whether to wait up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds for the result
+		 * @return the result of the {@link Procedure} or <code>null</code> if <code>waitForAnswer</code> is <code>false</code> or an error occured
 		 */
-		protected volatile boolean running;
+		public Object callProc(Procedure proc, Object[] args, boolean waitForAnswer) {
+			if (proc == null) return null;
+			try {
+				args = proc.convertArguments(args);
+			} catch (IllegalArgumentException e) {
+				Logger.gdL().logError("Invalid arguments for the procedure " + proc + ": " + e.getMessage());
+				return null;
+			}
+			Object cached = getPrecomputed(proc);
+			if (cached == ResultCache.MISS) cached = getCached(proc, args);
+			if (cached != ResultCache.MISS) return waitForAnswer ? cached : null;
+			if (!waitForAnswer && isBatching() && proc.RET_TYPE.equals("NO_RET")) {
+				// Calls of the same statement share a batch
+				batch(proc.NAME + "/" + args.length, proc, args);
+				return null;
+			}
+			if (proc.COALESCE) {
+				DatabaseRequest<Object> request = submitShared(getKey(proc, args), new DatabaseRequest<Object>(proc, args, DB_TIMEOUT));
+				return waitForAnswer ? awaitShared(request) : null;
+			}
+			DatabaseRequest<Object> request = submit(new DatabaseRequest<Object>(proc, args, DB_TIMEOUT));
+			return waitForAnswer ? await(request) : null;
+		}
+		
+		/**
+		 * Returns a copy of the cached result of the given call.
+		 * 
+		 * @param proc {@link Procedure} to execute
+		 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments
+		 * @return the cached result or {@link ResultCache#MISS} if the {@link Procedure} is not cached or there is no valid result
+		 */
+		public Object getCached(Procedure proc, Object[] args) {
+			return proc.CACHE_TTL > 0 ? resultCache.get(proc, args) : ResultCache.MISS;
+		}
+		
 		/**
+		 * Returns the key identifying identical calls of the given {@link Procedure} for {@link #submitShared(Object, DatabaseRequest)}.
 		 * 
+		 * @param proc {@link Procedure} to execute
+		 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments
+		 * @return the key of the call
 		 */
-		protected volatile HashMap<String, Object> sqlUncared;
+		public Object getKey(Procedure proc, Object[] args) {
+			ArrayList<Object> key = new ArrayList<Object>(args.length + 1);
+			key.add(proc.NAME);
+			Collections.addAll(key, args);
+			return key;
+		}
+		
+		@Override
+		protected Object execute(SingleDatabaseController con, DatabaseRequest<Object> request) throws SQLException {
+			Procedure proc = request.PROCEDURE;
+			if (request.BATCH != null) {
+				ArrayList<Object[]> calls = new ArrayList<Object[]>(request.BATCH.size());
+				for (Object call : request.BATCH)
+					calls.add((Object[]) call);
+				try {
+					con.executeProcedureBatch(proc, calls);
+				} finally {
+					for (String name : proc.INVALIDATES)
+						resultCache.invalidate(name);
+				}
+				return null;
+			}
+			// Taken before the call so a result read before a concurrent write finished does not get stored
+			long generation = proc.CACHE_TTL > 0 ? resultCache.getGeneration(proc) : 0;
+			Object result;
+			try {
+				result = proc.isScalar() ? con.executeScalarProcedure(proc, request.ARGS) : con.executeResultSetProcedure(proc, request.ARGS);
+			} finally {
+				// A failed write may still have changed something
+				for (String name : proc.INVALIDATES)
+					resultCache.invalidate(name);
+			}
+			return resultCache.put(proc, request.ARGS, result, generation);
+		}
+	}
+	
+	/**
+	 * Executes SQL-Queries with the {@link RequestExecuter#WORKERS workers} of a {@link RequestExecuter}.
+	 * 
+	 * @author Cedric
+	 * @see MultiDatabaseController
+	 */
+	protected class SqlExecuter extends RequestExecuter<ResultSet> {
+		
 		/**
+		 * Creates a new {@link SqlExecuter}.
 		 * 
+		 * @param workers equals {@link RequestExecuter#WORKERS}
 		 */
-		protected volatile HashMap<String, ResultSet> sqlAnswer;
+		public SqlExecuter(int workers) {
+			super("SqlExecuter", workers);
+		}
 		
 		/**
+		 * Executes the given query and waits up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds for the result.
 		 * 
+		 * @param query to execute
+		 * @return the {@link ResultSet} of the query or <code>null</code> if an error occured
 		 */
-		public SqlExecuter() {
-			setUp();
+		public ResultSet executeSQL(String query) {
+			return executeSQL(query, true);
 		}
-
+		
 		/**
+		 * Queues the given query.
 		 * 
+		 * @param query to execute
+		 * @param waitForAnswer whether to wait up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds for the result
+		 * @return the {@link ResultSet} of the query or <code>null</code> if <code>waitForAnswer</code> is <code>false</code> or an error occured
 		 */
-		protected synchronized void setUp() {
-			running = false;
-			locked = false;
-			lock = new Object();
-			sqlUncared = new HashMap<String, Object>();
-			sqlAnswer = new HashMap<String, ResultSet>();
+		public ResultSet executeSQL(String query, boolean waitForAnswer) {
+			if (!waitForAnswer && isBatching() && isBatchableQuery(query)) {
+				// A batch of queries runs in order, so all of them share one
+				batch(NAME, null, query);
+				return null;
+			}
+			if (isCoalescable(query)) {
+				DatabaseRequest<ResultSet> request = submitShared(query, new DatabaseRequest<ResultSet>(query, DB_TIMEOUT));
+				return waitForAnswer ? awaitShared(request) : null;
+			}
+			DatabaseRequest<ResultSet> request = submit(new DatabaseRequest<ResultSet>(query, DB_TIMEOUT));
+			return waitForAnswer ? await(request) : null;
 		}
 		
 		/**
+		 * Returns whether identical running executions of the given query may share their result.
+		 * This is only the case for plain <code>SELECT</code>-queries if <code>dbCoalesceSelects</code> is enabled.
 		 * 
+		 * @param query to execute
+		 * @return <code>true</code> if the query can be coalesced
 		 */
+		public boolean isCoalescable(String query) {
+			return COALESCE_SELECTS && isReadOnlyQuery(query);
+		}
+		
 		@Override
-		public synchronized void start() {
-			Logger.gdL().logInfo("Starting the SqlExecuter");
-			running = true;
-			super.start();
-			Logger.gdL().logInfo("Successfully started the SqlExecuter");
+		protected ResultSet execute(SingleDatabaseController con, DatabaseRequest<ResultSet> request) throws Exception {
+			if (request.BATCH != null) {
+				ArrayList<String> queries = new ArrayList<String>(request.BATCH.size());
+				for (Object query : request.BATCH)
+					queries.add((String) query);
+				con.executeSQLBatch(queries);
+				return null;
+			}
+			return con.executeSQL(request.QUERY);
 		}
+	}
+	
+	/**
+	 * One call of a SQL-Query or a {@link Procedure} waiting in the {@link RequestExecuter#queue}.</br>
+	 * Every call has its own {@link #FUTURE} so identical calls are independent.
+	 * 
+	 * @author Cedric
+	 * @param <T> the result-type
+	 */
+	protected static class DatabaseRequest<T> {
+		/**
+		 * The query to execute or <code>null</code> if this request calls a {@link #PROCEDURE}.
+		 */
+		public final String QUERY;
+		/**
+		 * The {@link Procedure} to call or <code>null</code> if this request executes a {@link #QUERY}.
+		 */
+		public final Procedure PROCEDURE;
+		/**
+		 * The parameters for the {@link #PROCEDURE}.
+		 */
+		public final Object[] ARGS;
+		/**
+		 * The time in milliseconds the request got queued.
+		 */
+		public final long QUEUED_AT;
+		/**
+		 * The time in milliseconds after which the request does not get executed anymore and a running execution gets cancelled.
+		 */
+		public final long DEADLINE;
+		/**
+		 * Gets completed with the result of the request.
+		 */
+		public final CompletableFuture<T> FUTURE;
+		/**
+		 * Whether the {@link #DEADLINE} was set by the caller and comes before the timeout of the Database.
+		 */
+		public final boolean CALLER_DEADLINE;
+		/**
+		 * The arguments of every call of the {@link #PROCEDURE} or the SQL-Queries of a batch (see {@link RequestExecuter#batch(Object, Procedure, Object)})
+		 * or <code>null</code> if this request is a single call.
+		 */
+		public final List<Object> BATCH;
+		/**
+		 * The connection executing the request right now or <code>null</code>.
+		 */
+		private SingleDatabaseController executing;
 		
 		/**
+		 * Creates a new request for the given query.
 		 * 
+		 * @param query to execute
+		 * @param timeout time in milliseconds until the {@link #DEADLINE}
 		 */
-		public synchronized void shutdown() {
-			Logger.gdL().logInfo("Shutting down SqlExecuter");
-			running = false;
-			if (locked)
-				synchronized (lock) {
-					lock.notifyAll();
-				}
+		public DatabaseRequest(String query, long timeout) {
+			this(query, null, new Object[0], timeout, DatabaseController.NO_DEADLINE, null);
 		}
 		
 		/**
+		 * Creates a new request for the given {@link Procedure}.
 		 * 
+		 * @param proc to call
+		 * @param args parameters for the {@link Procedure}
+		 * @param timeout time in milliseconds until the {@link #DEADLINE}
 		 */
-		public synchronized void restart() {
-			Logger.gdL().logInfo("Restarting SqlExcuter");
-			Thread restarter = new Thread(new Runnable() {
-				@Override
-				public void run() {
-					if (MultiDatabaseController.this.running) {
-						shutdown();
-						MultiDatabaseController.SqlExecuter.super.interrupt();
-						setUp();
-						start();
-						Logger.gdL().logInfo("Successfully restarted SqlExecuter");
-					} else
-						Logger.gdL().logWarning("MultiDatabaseController is not running so SQL-Executer cannot be started!");
-				}
-			});
-			restarter.setDaemon(true);
-			restarter.start();
+		public DatabaseRequest(Procedure proc, Object[] args, long timeout) {
+			this(null, proc, args, timeout, DatabaseController.NO_DEADLINE, null);
 		}
 		
 		/**
+		 * Creates a new request for the given {@link Procedure} which has to be finished at the given time.
 		 * 
-		 * @param query
-		 * @return
+		 * @param proc to call
+		 * @param args parameters for the {@link Procedure}
+		 * @param timeout time in milliseconds until the {@link #DEADLINE} at most
+		 * @param deadline the absolute time in milliseconds the caller waits for the result, the {@link #DEADLINE} if it comes before the <code>timeout</code>
 		 */
-		public ResultSet executeSQL(String query) {
-			return executeSQL(query, true);
+		public DatabaseRequest(Procedure proc, Object[] args, long timeout, long deadline) {
+			this(null, proc, args, timeout, deadline, null);
 		}
 		
 		/**
+		 * Creates a new batch which gets filled by {@link RequestExecuter#batch(Object, Procedure, Object)}.
 		 * 
-		 * @param query
-		 * @param waitForAnswer
-		 * @return
+		 * @param proc the {@link Procedure} of the calls or <code>null</code> for a batch of SQL-Queries
+		 * @param batch equals {@link #BATCH}
+		 * @param timeout time in milliseconds from the first call until the {@link #DEADLINE}
 		 */
-		public ResultSet executeSQL(String query, boolean waitForAnswer) {
-			if (waitForAnswer) {
-				Object o = new Object();
-				sqlUncared.put(query, o);
-				if (locked) synchronized (lock) {lock.notifyAll();}
-				synchronized (o) {
-					try {
-						o.wait(DB_TIMEOUT);
-					} catch (InterruptedException e) {
-						Logger.gdL().logError("An error occured while waiting for the SQL-Result.");
-						Logger.gdL().logException(e);
-						sqlUncared.remove(query);
-						sqlAnswer.remove(query);
-						if (EXIT_ON_ERROR)
-							MultiDatabaseController.this.stop();
-						return null;
-					}
-					return sqlAnswer.remove(query);
-				}
-			} else {
-				sqlUncared.put(query, null);
-				if (locked) synchronized (lock) {lock.notifyAll();}
-				return null;
-			}
+		public DatabaseRequest(Procedure proc, List<Object> batch, long timeout) {
+			this(null, proc, new Object[0], timeout, DatabaseController.NO_DEADLINE, batch);
+		}
+		
+		private DatabaseRequest(String query, Procedure proc, Object[] args, long timeout, long deadline, List<Object> batch) {
+			this.QUERY = query;
+			this.PROCEDURE = proc;
+			this.ARGS = args;
+			this.BATCH = batch;
+			this.QUEUED_AT = System.currentTimeMillis();
+			this.DEADLINE = Math.min(QUEUED_AT + timeout, deadline);
+			this.CALLER_DEADLINE = deadline < QUEUED_AT + timeout;
+			this.FUTURE = new CompletableFuture<T>();
+			// A caller which gave up, timed out or disconnected frees the connection at once
+			FUTURE.whenComplete((result, e) -> {
+				if (e != null) cancelExecution();
+			});
 		}
 		
 		/**
+		 * Marks the request as executed by the given connection, so it can be {@link #cancelExecution() cancelled}.
 		 * 
+		 * @param con the connection executing the request
+		 * @return <code>false</code> if the request is already done and must not be executed
 		 */
+		synchronized boolean attach(SingleDatabaseController con) {
+			if (FUTURE.isDone()) return false;
+			executing = con;
+			return true;
+		}
+		
+		/**
+		 * Marks the execution of the request as finished. Call this before the {@link #FUTURE} gets completed.
+		 */
+		synchronized void detach() {
+			executing = null;
+		}
+		
+		/**
+		 * Returns whether the caller gave up on the request, because it cancelled it or because the {@link #DEADLINE} it set passed.
+		 * 
+		 * @return <code>true</code> if a failure of the request was caused by its caller
+		 */
+		boolean isAbandoned() {
+			return FUTURE.isCancelled() || (CALLER_DEADLINE && System.currentTimeMillis() >= DEADLINE);
+		}
+		
+		/**
+		 * Cancels the running execution of the request if there is one.
+		 */
+		synchronized void cancelExecution() {
+			if (executing != null && executing.cancel()) Logger.gdL().logInfo("Cancelled the running execution of " + this);
+		}
+		
 		@Override
-		public void run() {
-			while (running) {
-				if (sqlUncared.size() == 0) {
-					locked = true;
-					synchronized (lock) {
-						try {
-							lock.wait();
-						} catch (InterruptedException e) {
-							Logger.gdL().logError("An error occured while waiting for incoming SQL-queries.");
-							Logger.gdL().logException(e);
-							
-							if (running) {
-								if (EXIT_ON_ERROR)
-									restart();
-								else
-									MultiDatabaseController.this.stop();
-								return;
-							}
-						} finally {
-							locked = false;
-						}
-					}
-				} else {
-					String key = (String) sqlUncared.keySet().toArray()[0];
-					SingleDatabaseController con = conHandler.getConnection();
-					ResultSet set = null;
-					try {
-						set = con.executeSQL(key);
-					} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | SQLException | TimeOutException e) {
-						Logger.gdL().logError("An error occured while executing the command " + key);
-						Logger.gdL().logException(e);
-						if (EXIT_ON_ERROR)
-							MultiDatabaseController.this.stop();
-					}
-					Object o = sqlUncared.get(key);
-					if (o != null) {
-						sqlAnswer.put(key, set);
-						synchronized (o) {
-							o.notifyAll();
-						}
-					}
-					sqlUncared.remove(key);
-					try {
-						conHandler.storeConnection(con);
-					} catch (SQLException e) {
-						Logger.gdL().logError("An error occured while storing the connection back into the buffer.");
-						Logger.gdL().logException(e);
-						try {
-							con.disconnect();
-						} catch (SQLException e1) {
-							Logger.gdL().logError("An error occured while disconnecting from the Database.");
-							Logger.gdL().logException(e1);
-						}
-						conHandler.checkForChange();
-					}
-				}
-			}
+		public String toString() {
+			if (BATCH != null) return "a batch of " + BATCH.size() + (PROCEDURE == null ? " commands" : " calls of the procedure " + PROCEDURE);
+			return PROCEDURE == null ? "the command " + QUERY : "the procedure " + PROCEDURE;
 		}
 	}
 	
 	/**
 	 * Handles the DatabaseConnectionsPool.</br>
-	 * This means that it contains a {@link #buffer} which gets filled to always contain {@link DatabaseConnectionHandler#MIN_BUFFER} and never contain more than {@link DatabaseConnectionHandler#MAX_BUFFER}.</br>
+	 * This means that it contains a {@link #buffer} of idle connections which gets filled up to {@link DatabaseConnectionHandler#TARGET_BUFFER} while never more than {@link DatabaseConnectionHandler#MAX_BUFFER} connections exist.</br>
 	 * If the Handler runs into errors it will automatically call {@link MultiDatabaseController#stop()} if no solution could be found.</br></br>
 	 * 
+	 * The {@link #buffer} is a lock-free stack: the connection which got stored last is borrowed first, so mostly the same few warm connections are used.
+	 * If the {@link #buffer} is empty borrowers queue up in {@link #waiters} and returned or new connections are handed to them in FIFO-order.</br>
+	 * Borrowing and storing never take a lock, only the Buffer-Filler waits on {@link #lock}.</br></br>
+	 * 
 	 * <b>Use:</b><ul>
 	 * <li>At first initialize and call {@link #start()}</li>
-	 * <li>Wait until {@link #isReady()} returns <code>true</code> so the {@link #buffer} got filled up to {@link #TARET_BUFFER}</li>
+	 * <li>Wait until {@link #isReady()} returns <code>true</code> so the {@link #buffer} got filled up to {@link #MIN_BUFFER}</li>
 	 * <li>You can now get a connected {@link SingleDatabaseController} by calling {@link #getConnection()} and put them again into the buffer by calling {@link #storeConnection(SingleDatabaseController)}</li>
 	 * <li>End the Handler by calling {@link #shutdown()}</li>
 	 * </ul></br>
 	 * 
 	 * @author Cedric
-	 * @version 1.0
+	 * @version 2.0
 	 * @see MultiDatabaseController
 	 */
 	protected class DatabaseConnectionHandler extends Thread {
@@ -696,13 +1567,65 @@ public class MultiDatabaseController {
 		 */
 		protected volatile boolean running;
 		/**
-		 * The Buffer of {@link SingleDatabaseController}.
+		 * The idle {@link SingleDatabaseController SingleDatabaseControllers}. The head is the most recently stored one.
+		 */
+		protected volatile ConcurrentLinkedDeque<SingleDatabaseController> buffer;
+		/**
+		 * Borrowers which are waiting for a connection as the {@link #buffer} was empty, oldest first.
+		 */
+		protected volatile ConcurrentLinkedQueue<CompletableFuture<SingleDatabaseController>> waiters;
+		/**
+		 * The amount of open connections, idle and borrowed ones.
+		 */
+		protected final AtomicInteger total;
+		/**
+		 * All open connections, idle and borrowed ones.
+		 */
+		protected final Set<SingleDatabaseController> connections;
+		/**
+		 * The time in milliseconds every open connection has to be retired at.
+		 */
+		protected final ConcurrentHashMap<SingleDatabaseController, Long> retireAt;
+		/**
+		 * Connections which reached their {@link #MAX_LIFETIME} and get closed as soon as they are idle. A replacement is opened before.
+		 */
+		protected final Set<SingleDatabaseController> retiring;
+		/**
+		 * The amount of connections which are being opened right now. They are already counted by {@link #total}.
+		 */
+		protected final AtomicInteger connecting;
+		/**
+		 * The amount of failed connection-attempts in a row.
+		 */
+		protected final AtomicInteger failures;
+		/**
+		 * The time in milliseconds before which no new connection gets tried after a failure.
+		 */
+		protected volatile long retryAt;
+		/**
+		 * The time in milliseconds the warm-up started or <code>0</code> if the {@link #target} was reached.
+		 */
+		protected volatile long warmUpStart;
+		/**
+		 * The amount of connections the pool aims for right now. It moves between {@link #MIN_BUFFER} and {@link #MAX_BUFFER} depending on the load (see {@link #resize(long)}).
+		 */
+		protected volatile int target;
+		/**
+		 * The amount of borrowed connections and the highest amount since the last {@link #resize(long)}.
+		 */
+		protected final AtomicInteger borrowed, peakBorrowed;
+		/**
+		 * The amount of borrowers which had to wait and the sum of their waiting-times in milliseconds since the last {@link #resize(long)}.
 		 */
-		protected volatile LinkedList<SingleDatabaseController> buffer;
+		protected final AtomicLong waits, waitTime;
 		/**
-		 * Locks which are waiting to get notified if the buffer is empty.
+		 * The time in milliseconds since when less than half of the {@link #target} was borrowed or <code>0</code>.
 		 */
-		protected volatile LinkedList<Object> emptyBufferLocks;
+		protected long lowSince;
+		/**
+		 * The amount of connections closed because they were idle, too old or invalid.
+		 */
+		protected final AtomicLong evictedIdle, retired, invalid;
 		
 		// *************
 		// * CONSTANTS *
@@ -712,13 +1635,38 @@ public class MultiDatabaseController {
 		 */
 		public final int MIN_BUFFER;
 		/**
-		 * This is the amount of {@link SingleDatabaseController} which are targeted to exist in the {@link #buffer}.
+		 * This is the amount of {@link SingleDatabaseController} which are targeted to exist at start. Afterwards the {@link #target} adapts to the load.
 		 */
 		public final int TARGET_BUFFER;
 		/**
 		 * This the maximum of {@link SingleDatabaseController} which can exist in the {@link MultiDatabaseController}.
 		 */
 		public final int MAX_BUFFER;
+		/**
+		 * Time in milliseconds after which idle connections above the {@link #target} get closed.
+		 */
+		public final long IDLE_TIMEOUT;
+		/**
+		 * Time in milliseconds after which connections get replaced. Every connection gets up to 10% less so they do not expire all at once.</br>
+		 * This should be lower than the <code>wait_timeout</code> of the Database. <code>0</code> means that connections may live forever.
+		 */
+		public final long MAX_LIFETIME;
+		/**
+		 * Time in milliseconds after which an unused connection gets {@link SingleDatabaseController#isValid(int) validated} before it is used again.
+		 */
+		public final long VALIDATION_INTERVAL;
+		/**
+		 * Time in seconds the Database gets to answer a {@link SingleDatabaseController#isValid(int) validation}.
+		 */
+		public static final int VALIDATION_TIMEOUT = 2;
+		/**
+		 * Time in milliseconds to wait after the first failed connection-attempt. It doubles with every further failure up to {@link MultiDatabaseController#DB_TIMEOUT}.
+		 */
+		public final long RECONNECT_BACKOFF;
+		/**
+		 * Time in milliseconds less than half of the {@link #target} has to be borrowed before the {@link #target} shrinks by one.
+		 */
+		public final long SHRINK_DELAY;
 		
 		
 		// ****************
@@ -739,6 +1687,24 @@ public class MultiDatabaseController {
 			this.MIN_BUFFER = minBuffer;
 			this.TARGET_BUFFER = targetBuffer;
 			this.MAX_BUFFER = maxBuffer;
+			this.IDLE_TIMEOUT = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbIdleTimeout"));
+			this.MAX_LIFETIME = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbMaxLifetime"));
+			this.VALIDATION_INTERVAL = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbValidationInterval"));
+			this.RECONNECT_BACKOFF = Math.max(1, (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbReconnectBackoff")));
+			this.SHRINK_DELAY = (long) Maths.calculate(ConfigAdapter.getDefaultConfig().getConfigString("dbPoolShrinkDelay"));
+			this.borrowed = new AtomicInteger();
+			this.peakBorrowed = new AtomicInteger();
+			this.waits = new AtomicLong();
+			this.waitTime = new AtomicLong();
+			this.total = new AtomicInteger();
+			this.connecting = new AtomicInteger();
+			this.failures = new AtomicInteger();
+			this.retireAt = new ConcurrentHashMap<SingleDatabaseController, Long>();
+			this.retiring = ConcurrentHashMap.newKeySet();
+			this.connections = ConcurrentHashMap.newKeySet();
+			this.evictedIdle = new AtomicLong();
+			this.retired = new AtomicLong();
+			this.invalid = new AtomicLong();
 			
 			setUp();
 		}
@@ -753,20 +1719,93 @@ public class MultiDatabaseController {
 			lock = new Object();
 			locked = false;
 			running = false;
-			buffer = new LinkedList<SingleDatabaseController>();
-			emptyBufferLocks = new LinkedList<Object>();
+			buffer = new ConcurrentLinkedDeque<SingleDatabaseController>();
+			waiters = new ConcurrentLinkedQueue<CompletableFuture<SingleDatabaseController>>();
+			total.set(0);
+			target = TARGET_BUFFER;
+			borrowed.set(0);
+			peakBorrowed.set(0);
+			lowSince = 0;
+			connecting.set(0);
+			failures.set(0);
+			retryAt = 0;
+			warmUpStart = 0;
+			retireAt.clear();
+			retiring.clear();
+			connections.clear();
 		}
 		
 		/**
-		 * Releases the first lock of {@link #emptyBufferLocks}.
+		 * Closes the given connection and lets the Buffer-Filler replace it if needed.
+		 * 
+		 * @param controller the connection to close
 		 */
-		protected synchronized void releaseLock() {
-			if (emptyBufferLocks.size() > 0) {
-				Object o = emptyBufferLocks.removeFirst();
-				synchronized (o) {
-					o.notifyAll();
-				}
+		protected void discard(SingleDatabaseController controller) {
+			total.decrementAndGet();
+			connections.remove(controller);
+			retireAt.remove(controller);
+			retiring.remove(controller);
+			try {
+				controller.disconnect();
+			} catch (SQLException e) {
+				Logger.gdL().logWarning("An error occured while disconnecting from the Database.");
+				Logger.gdL().logException(e);
 			}
+			checkForChange();
+		}
+		
+		/**
+		 * Returns whether the given idle connection can be handed to a borrower.</br>
+		 * Connections which were not used for {@link #VALIDATION_INTERVAL} milliseconds get {@link SingleDatabaseController#isValid(int) validated} first.
+		 * 
+		 * @param controller the idle connection
+		 * @return <code>false</code> if the connection is dead and got discarded
+		 */
+		protected boolean validate(SingleDatabaseController controller) {
+			if (System.currentTimeMillis() - controller.getLastUsed() < VALIDATION_INTERVAL || controller.isValid(VALIDATION_TIMEOUT)) return true;
+			Logger.gdL().logWarning("Discarding dead DatabaseConnection which was idle for " + (System.currentTimeMillis() - controller.getLastUsed()) + " milliseconds");
+			invalid.incrementAndGet();
+			discard(controller);
+			return false;
+		}
+		
+		/**
+		 * Gives the given connection to the oldest waiter or pushes it onto the {@link #buffer} if nobody waits.
+		 * 
+		 * @param controller the idle connection
+		 */
+		protected void handOff(SingleDatabaseController controller) {
+			handOff(controller, false);
+		}
+		
+		/**
+		 * Gives the given connection to the oldest waiter or puts it into the {@link #buffer} if nobody waits.
+		 * 
+		 * @param controller the idle connection
+		 * @param last whether the connection goes to the cold end of the {@link #buffer} instead of being borrowed next
+		 */
+		protected void handOff(SingleDatabaseController controller, boolean last) {
+			while (controller != null) {
+				CompletableFuture<SingleDatabaseController> waiter;
+				while ((waiter = waiters.poll()) != null)
+					if (waiter.complete(controller)) return;
+				if (last) buffer.offerLast(controller);
+				else buffer.push(controller);
+				// A borrower may have queued up after the check above but before the push
+				if (waiters.isEmpty()) return;
+				controller = buffer.poll();
+			}
+		}
+		
+		/**
+		 * Returns whether the Buffer-Filler has to open a new connection.
+		 * 
+		 * @return <code>true</code> if there are less than {@link #target} connections or borrowers are waiting and there are less than {@link #MAX_BUFFER}
+		 */
+		protected boolean needsConnection() {
+			int open = total.get();
+			// Retiring connections are replaced before they get closed
+			return open - retiring.size() < target || (!waiters.isEmpty() && open < MAX_BUFFER);
 		}
 		
 		// ******************
@@ -775,7 +1814,7 @@ public class MultiDatabaseController {
 		/**
 		 * Lets the {@link DatabaseConnectionHandler} check whether there are still enough {@link SingleDatabaseController} in the {@link #buffer}.
 		 */
-		public synchronized void checkForChange() {
+		public void checkForChange() {
 			if (locked) synchronized (lock) {
 				lock.notifyAll();
 				locked = false;
@@ -794,36 +1833,29 @@ public class MultiDatabaseController {
 					+ String.format("%1$-20s %2$s", "\t- Target-Size:", TARGET_BUFFER) + Logger.SEPERATOR
 					+ String.format("%1$-20s %2$s", "\t- Maximal-Size:", MAX_BUFFER) + Logger.SEPERATOR);
 			running = true;
+			warmUpStart = System.currentTimeMillis();
 			super.start();
 		}
 		
 		/**
 		 * This stops the {@link MultiDatabaseController}-Thread and closes all {@link SingleDatabaseController} from the {@link #buffer}.</br>
-		 * If there are locks waiting for the {@link #buffer} in the {@link #emptyBufferLocks} they get released.
+		 * All {@link #waiters} get released with <code>null</code>.
 		 */
 		public synchronized void shutdown() {
 			Logger.gdL().logInfo("Shutting down DatabaseConnectionController");
 			running = false;
 			checkForChange();
-			if (emptyBufferLocks.size() > 0) {
-				Logger.gdL().logWarning("Releasing all emptyBufferLocks!");
-				for (Object o : emptyBufferLocks) {
-					synchronized (o) {
-						o.notifyAll();
-					}
-				}
-				emptyBufferLocks = null;
-				Logger.gdL().logInfo("All Locks released.");
+			if (!waiters.isEmpty()) {
+				Logger.gdL().logWarning("Releasing all waiting borrowers!");
+				CompletableFuture<SingleDatabaseController> waiter;
+				while ((waiter = waiters.poll()) != null)
+					waiter.complete(null);
+				Logger.gdL().logInfo("All waiting borrowers released.");
 			}
 			Logger.gdL().logInfo("Shutting down all SingleDatabaseControllers.");
-			for (SingleDatabaseController s : buffer)
-				try {
-					s.disconnect();
-				} catch (SQLException e) {
-					Logger.gdL().logError("An error occured while shutting down all SingleDatabaseControllers.");
-					Logger.gdL().logException(e);
-				}
-			buffer = null;
+			SingleDatabaseController s;
+			while ((s = buffer.poll()) != null)
+				discard(s);
 			Logger.gdL().logInfo("All SingleDatabaseControllers successfully shut down.");
 		}
 		
@@ -851,12 +1883,12 @@ public class MultiDatabaseController {
 		
 		/**
 		 * Return whether {@link #buffer} contains enough {@link SingleDatabaseController}.</br>
-		 * This is the case if {@link #buffer}.{@link List#size() size} is greater than {@link #MIN_BUFFER}.
+		 * This is the case if {@link #buffer}.{@link ConcurrentLinkedDeque#size() size} is at least {@link #MIN_BUFFER}.
 		 * 
-		 * @return ({@link #buffer}.{@link List#size() size} > {@link #MIN_BUFFER})
+		 * @return ({@link #buffer}.{@link ConcurrentLinkedDeque#size() size} >= {@link #MIN_BUFFER})
 		 */
 		public boolean isReady() {
-			return buffer.size() > MIN_BUFFER;
+			return buffer.size() >= MIN_BUFFER;
 		}
 		
 		/**
@@ -869,82 +1901,245 @@ public class MultiDatabaseController {
 		}
 		
 		/**
-		 * Removes first {@link SingleDatabaseController} from the {@link #buffer}.</br>
-		 * If {@link #buffer}.{@link List#size size} is lower than <code>0</code> the handler will wait up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds and check whether {@link #buffer} got filled in this time.</br>
-		 * If not <code>null</code> gets returned.</br></br>
+		 * Returns the sizes of the pool as readable {@link String}.
+		 * 
+		 * @return statistics for the logs
+		 */
+		public String getStatistics() {
+			long hits = 0, misses = 0;
+			for (SingleDatabaseController controller : connections) {
+				hits += controller.getStatementHits();
+				misses += controller.getStatementMisses();
+			}
+			return "Connection-Pool:" + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Open:", total.get() + "/" + MAX_BUFFER + " (target " + target + ")") + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Borrowed:", borrowed.get()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Idle:", buffer.size()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Waiting:", waiters.size()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Evicted (idle):", evictedIdle.get()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Retired (age):", retired.get()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Discarded (dead):", invalid.get()) + Logger.SEPERATOR
+					+ String.format("%1$-20s %2$s", "\t- Statement-Cache:", hits + " hits, " + misses + " misses");
+		}
+		
+		/**
+		 * Borrows the most recently used {@link SingleDatabaseController} from the {@link #buffer}.</br>
+		 * If the {@link #buffer} is empty this waits up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds for a connection.</br></br>
 		 * If you don't want to wait for the Handler in this case call {@link #getConnection(false)}
 		 * 
-		 * @return An Instance of a connected {@link SingleDatabaseController} from the {@link #buffer}
+		 * @return An Instance of a connected {@link SingleDatabaseController} from the {@link #buffer} or <code>null</code> if none got free in time
 		 */
 		public SingleDatabaseController getConnection() {
-			return getConnection(true);
+			return getConnection(DB_TIMEOUT);
 		}
 		
 		/**
-		 * Removes first {@link SingleDatabaseController} from the {@link #buffer}.</br>
-		 * If {@link #buffer}.{@link List#size() size} is lower than <code>0</code> the handler will wait up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds if <code>wait</code> is <code>true</code> and check whether {@link #buffer} got filled in this time.</br>
-		 * If <code>wait</code> is <code>false</code>, <code>null</code> gets returned immediately if an error occurs.</br>
-		 * </br>
+		 * Borrows the most recently used {@link SingleDatabaseController} from the {@link #buffer}.</br>
 		 * {@link getConnection(true)} is equivalent to {@link #getConnection()}.
 		 * 
-		 * @param wait if an error occurs this indicates whether up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds should be waited for a second try.
-		 * @return An Instance of a connected {@link SingleDatabaseController} from the {@link #buffer} or <code>null</code> if an error occurs.
+		 * @param wait indicates whether up to {@link MultiDatabaseController#DB_TIMEOUT} milliseconds should be waited if the {@link #buffer} is empty
+		 * @return An Instance of a connected {@link SingleDatabaseController} from the {@link #buffer} or <code>null</code> if none is available
 		 */
 		public SingleDatabaseController getConnection(boolean wait) {
-			if (buffer.size() > 0) {
-				if (buffer.size()-1 <= MIN_BUFFER) {
-					if (buffer.size()-1 < MIN_BUFFER && !locked)
-						Logger.gdL().logWarning("Buffer-Filler already got called but the size of the buffer is smaller than the MIN_BUFFER!");
-					if (locked) {
-						synchronized (lock) {
-							lock.notifyAll();
-						}
-					}
-					checkForChange();
+			return getConnection(wait ? DB_TIMEOUT : 0);
+		}
+		
+		/**
+		 * Borrows the most recently used {@link SingleDatabaseController} from the {@link #buffer}.</br>
+		 * If the {@link #buffer} is empty or others are already waiting the caller queues up behind them and waits up to <code>timeout</code> milliseconds.
+		 * 
+		 * @param timeout time in milliseconds to wait for a connection
+		 * @return An Instance of a connected {@link SingleDatabaseController} or <code>null</code> if none got free in time
+		 */
+		public SingleDatabaseController getConnection(long timeout) {
+			SingleDatabaseController controller = borrow(timeout);
+			if (controller != null) peakBorrowed.accumulateAndGet(borrowed.incrementAndGet(), Math::max);
+			return controller;
+		}
+		
+		/**
+		 * Takes a connection from the {@link #buffer} or waits for one as described by {@link #getConnection(long)}.
+		 */
+		protected SingleDatabaseController borrow(long timeout) {
+			if (!running) return null;
+			// Only take from the buffer directly if nobody waits longer
+			if (waiters.isEmpty()) {
+				SingleDatabaseController controller;
+				while ((controller = buffer.poll()) != null) {
+					if (buffer.size() < MIN_BUFFER) checkForChange();
+					if (validate(controller)) return controller;
 				}
-			} else {
-				if (wait) {
-					Logger.gdL().logError("Buffer is empty. Waiting for a new DatabaseConnection...");
-					Object lock = new Object();
-					synchronized (lock) {
-						emptyBufferLocks.add(lock);
-						try {
-							lock.wait(DB_TIMEOUT);
-							return getConnection(false);
-						} catch (InterruptedException e) {
-							emptyBufferLocks.remove(lock);
-							Logger.gdL().logError("Waiting for Buffer failed!");
-							Logger.gdL().logException(e);
-						}
-					}
-				} else
-					Logger.gdL().logError("Buffer is empty!");
+			}
+			if (timeout <= 0) {
+				Logger.gdL().logError("Buffer is empty!");
+				return null;
+			}
+			
+			long waitStart = System.currentTimeMillis();
+			CompletableFuture<SingleDatabaseController> waiter = new CompletableFuture<SingleDatabaseController>();
+			waiters.add(waiter);
+			// A connection may have been stored after the check above
+			handOff(buffer.poll());
+			checkForChange();
+			try {
+				SingleDatabaseController controller = waiter.get(timeout, TimeUnit.MILLISECONDS);
+				// Handed over connections were just used or opened
+				return controller == null || validate(controller) ? controller : borrow(timeout);
+			} catch (TimeoutException | InterruptedException | ExecutionException e) {
+				waiters.remove(waiter);
+				// The connection may have been handed over right after the timeout
+				if (!waiter.cancel(false)) return waiter.getNow(null);
+				Logger.gdL().logError("No DatabaseConnection got free within " + timeout + " milliseconds!");
+				if (e instanceof InterruptedException) Logger.gdL().logException(e);
 				return null;
+			} finally {
+				waits.incrementAndGet();
+				waitTime.addAndGet(System.currentTimeMillis() - waitStart);
 			}
-			SingleDatabaseController database = buffer.removeFirst();
-			return database;
 		}
 		
 		/**
 		 * Stores the given {@link SingleDatabaseController} if it {@link SingleDatabaseController#isConnected()} equals <code>true</code>.</br>
-		 * If the {@link #buffer} reached {@link #MAX_BUFFER} {@link SingleDatabaseController#disconnect()} gets called as no more connection can be stored.</br>
-		 * Otherwise the {@link SingleDatabaseController} gets stored in the {@link #buffer}.
+		 * The connection is handed to the oldest waiting borrower or pushed onto the {@link #buffer}. Otherwise it gets disconnected.
 		 * 
-		 * @param controller
+		 * @param controller the borrowed connection
 		 * @throws SQLException
 		 */
-		public synchronized void storeConnection(SingleDatabaseController controller) throws SQLException {
-			if ((buffer.size() < MAX_BUFFER) && controller.isConnected()) {
-				buffer.add(controller);
+		public void storeConnection(SingleDatabaseController controller) throws SQLException {
+			borrowed.decrementAndGet();
+			boolean connected;
+			try {
+				connected = controller.isConnected();
+			} catch (SQLException e) {
+				// The connection still has to be discarded so it is not counted by total anymore
+				connected = false;
+			}
+			if (running && connected && !retiring.contains(controller)) {
+				handOff(controller);
 			} else {
-				controller.disconnect();
-				Logger.gdL().logWarning("Buffer is already full. Cannot add DatabaseConnection to buffer!");
+				if (retiring.contains(controller)) retired.incrementAndGet();
+				discard(controller);
+			}
+		}
+		
+		/**
+		 * Adapts the {@link #target} to the load since the last call:<ul>
+		 * <li>If borrowers had to wait the {@link #target} grows at once to the peak of borrowed connections plus one, at most to {@link #MAX_BUFFER}</li>
+		 * <li>If less than half of the {@link #target} was borrowed for {@link #SHRINK_DELAY} milliseconds it shrinks by one, at least to {@link #MIN_BUFFER}</li>
+		 * </ul>
+		 * Surplus connections get closed by {@link #housekeep()} once they are idle for {@link #IDLE_TIMEOUT} milliseconds.
+		 * 
+		 * @param now the current time in milliseconds
+		 */
+		protected void resize(long now) {
+			long waited = waits.getAndSet(0);
+			long waitedTime = waitTime.getAndSet(0);
+			int peak = peakBorrowed.getAndSet(borrowed.get());
+			int current = target;
+			if (waited > 0 && current < MAX_BUFFER) {
+				target = Math.min(MAX_BUFFER, Math.max(current + 1, peak + waiters.size() + 1));
+				lowSince = 0;
+				Logger.gdL().logInfo("Growing DatabaseConnection-target from " + current + " to " + target + ": " + waited + " borrowers waited "
+						+ waitedTime / waited + " milliseconds on average, at most " + peak + " connections were borrowed");
+				checkForChange();
+			} else if (peak * 2 <= current && current > MIN_BUFFER) {
+				if (lowSince == 0) lowSince = now;
+				else if (now - lowSince >= SHRINK_DELAY) {
+					target = current - 1;
+					lowSince = now;
+					Logger.gdL().logInfo("Shrinking DatabaseConnection-target from " + current + " to " + target + ": at most " + peak
+							+ " connections were borrowed for " + SHRINK_DELAY + " milliseconds");
+				}
+			} else lowSince = 0;
+		}
+		
+		/**
+		 * Checks all idle connections once:<ul>
+		 * <li>Connections older than their jittered {@link #MAX_LIFETIME} get marked as {@link #retiring} so the Buffer-Filler opens a replacement, and get closed once they are idle</li>
+		 * <li>The {@link #target} gets adapted to the load by {@link #resize(long)}</li>
+		 * <li>Connections idle for longer than {@link #IDLE_TIMEOUT} get closed while there are more than the {@link #target}</li>
+		 * <li>Connections which were not used for {@link #VALIDATION_INTERVAL} milliseconds get {@link SingleDatabaseController#isValid(int) validated}</li>
+		 * </ul>
+		 * Called by the {@link PoolHousekeeper}.
+		 */
+		public void housekeep() {
+			if (!running) return;
+			long now = System.currentTimeMillis();
+			resize(now);
+			for (Map.Entry<SingleDatabaseController, Long> entry : retireAt.entrySet())
+				if (entry.getValue() <= now && retiring.add(entry.getKey())) {
+					Logger.gdL().logInfo("DatabaseConnection reached its maximal lifetime and gets replaced");
+					checkForChange();
+				}
+			
+			for (SingleDatabaseController controller : buffer.toArray(new SingleDatabaseController[0])) {
+				// The connection got borrowed in the meantime
+				if (!buffer.removeFirstOccurrence(controller)) continue;
+				if (retiring.contains(controller)) {
+					// Keep it until the replacement is there
+					if (total.get() - retiring.size() < target) {
+						handOff(controller, true);
+						continue;
+					}
+					retired.incrementAndGet();
+					discard(controller);
+				} else if (now - controller.getLastUsed() > IDLE_TIMEOUT && total.get() > target) {
+					Logger.gdL().logInfo("Closing DatabaseConnection which was idle for " + (now - controller.getLastUsed()) + " milliseconds");
+					evictedIdle.incrementAndGet();
+					discard(controller);
+				} else if (validate(controller))
+					handOff(controller, true);
+			}
+		}
+		
+		/**
+		 * Opens one new connection and hands it to the pool. Runs in its own {@link Thread} so several connections get opened in parallel.</br>
+		 * If the Database is not reachable the next attempt is delayed by an exponential backoff with jitter starting at {@link #RECONNECT_BACKOFF} milliseconds.
+		 */
+		protected void openConnection() {
+			try {
+				// Connection building
+				SingleDatabaseController database = new SingleDatabaseController(DB_HOST, DB_PORT, DB_USERNAME, DB_PASSWORD, DB_NAME);
+				database.setTimeout(DB_TIMEOUT);
+				database.connect();
+				if (MAX_LIFETIME > 0)
+					retireAt.put(database, database.getConnectedAt() + MAX_LIFETIME - ThreadLocalRandom.current().nextLong(MAX_LIFETIME / 10 + 1));
+				connections.add(database);
+				connecting.decrementAndGet();
+				if (failures.getAndSet(0) > 0) Logger.gdL().logInfo("Connection to the Database restored.");
+				retryAt = 0;
+				if (!running) {
+					discard(database);
+					return;
+				}
+				handOff(database);
+				if (warmUpStart > 0 && total.get() - connecting.get() >= TARGET_BUFFER) {
+					Logger.gdL().logInfo("DatabaseConnectionHandler reached " + TARGET_BUFFER + " connections after " + (System.currentTimeMillis() - warmUpStart) + " milliseconds");
+					warmUpStart = 0;
+				}
+			} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | SQLException | TimeOutException e) {
+				connecting.decrementAndGet();
+				total.decrementAndGet();
+				Logger.gdL().logError("Could not establish connection with database " + "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME);
+				Logger.gdL().logException(e);
+				
+				breaker.recordFailure();
+				int failed = failures.incrementAndGet();
+				long delay = Math.min(DB_TIMEOUT, RECONNECT_BACKOFF << Math.min(failed - 1, 20));
+				delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+				retryAt = System.currentTimeMillis() + delay;
+				
+				if (EXIT_ON_ERROR) MultiDatabaseController.this.stop();
+				else Logger.gdL().logWarning("Trying again to connect in " + delay + " milliseconds...");
+			} finally {
+				checkForChange();
 			}
 		}
 		
 		/**
 		 * Checks whether there are enough {@link SingleDatabaseController} in the {@link #buffer}.<br>
-		 * If not new ones get created and if there are enough {@link #lock}.{@link Thread#wait() wait()} gets called.</br></br>
+		 * If not new ones get opened in parallel by {@link #openConnection()} and if there are enough {@link #lock}.{@link Thread#wait() wait()} gets called.</br>
+		 * While the Database is not reachable only one connection at a time gets tried.</br></br>
 		 * 
 		 * <i>Overrides {@link Thread#run()}</i>
 		 * 
@@ -952,43 +2147,25 @@ public class MultiDatabaseController {
 		 */
 		@Override
 		public void run() {	// Connection-Builder
-			boolean error = false;
 			while (running) {
-				if (buffer.size() < TARGET_BUFFER) {
-					Logger.gdL().logInfo("Filling DatabaseConnetionHandler-Buffer [" + (buffer.size()+1) + "/" + TARGET_BUFFER + "]");
-					try {
-						// Connection building
-						SingleDatabaseController database = new SingleDatabaseController(DB_HOST, DB_PORT, DB_USERNAME, DB_PASSWORD, DB_NAME, true);
-						database.setTimeout(DB_TIMEOUT);
-						buffer.add(database);
-						if (error) error = false;
-					} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | SQLException | TimeOutException e) {
-						Logger.gdL().logError("Could not establish connection with database " + "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME);
-						Logger.gdL().logException(e);
-						
-						if (error || EXIT_ON_ERROR) MultiDatabaseController.this.stop();
-						else Logger.gdL().logWarning("Trying again to connect in " + DB_TIMEOUT/1000 + " seconds...");
-						
-						if (!error) error = true;
-						
-						try {
-							synchronized (lock) {
-								lock.wait(DB_TIMEOUT);
-							}
-						} catch (InterruptedException e1) {
-							Logger.gdL().logError("An error occured while waiting. Shutting down MultidatabaseController...");
-							Logger.gdL().logException(e1);
-							MultiDatabaseController.this.stop();
-						}
-					}
-					releaseLock();
+				long backoff = retryAt - System.currentTimeMillis();
+				if (backoff <= 0 && needsConnection() && (failures.get() == 0 || connecting.get() == 0)) {
+					total.incrementAndGet();
+					connecting.incrementAndGet();
+					Logger.gdL().logInfo("Filling DatabaseConnetionHandler-Buffer [" + total.get() + "/" + target + "]");
+					Thread connector = new Thread(this::openConnection, "DatabaseConnector");
+					connector.setDaemon(true);
+					connector.start();
 				} else {
-					// If Buffer has reached targeted length
 					synchronized (lock) {
-						Logger.gdL().logInfo("Buffer is full. Buffer-Filler waits for empty buffer...");
 						try {
 							locked = true;
-							lock.wait();
+							if (backoff > 0) lock.wait(backoff);
+							// Borrowers may have queued up in the meantime
+							else if (!needsConnection() || connecting.get() > 0) {
+								if (connecting.get() == 0) Logger.gdL().logInfo("Buffer is full. Buffer-Filler waits for empty buffer...");
+								lock.wait();
+							}
 						} catch (InterruptedException e) {
 							Logger.gdL().logError("An error occured while waiting for empty Buffer!");
 							Logger.gdL().logException(e);
@@ -1004,4 +2181,204 @@ public class MultiDatabaseController {
 			}
 		}
 	}
+	
+	/**
+	 * Periodically calls {@link DatabaseConnectionHandler#housekeep()} of the {@link MultiDatabaseController#conHandler} so idle connections get validated, evicted and retired
+	 * without slowing down the borrowers.
+	 * 
+	 * @author Cedric
+	 * @see DatabaseConnectionHandler
+	 */
+	protected class PoolHousekeeper extends Clock {
+		
+		/**
+		 * Creates a new {@link PoolHousekeeper}. Call {@link #start()} to start the housekeeping.
+		 * 
+		 * @param period time in milliseconds between two housekeepings
+		 */
+		public PoolHousekeeper(long period) {
+			super(period / 1000f);
+			setName("PoolHousekeeper");
+			setDaemon(true);
+		}
+		
+		@Override
+		public void tick(float delta) {
+			try {
+				conHandler.housekeep();
+			} catch (Exception e) {
+				Logger.gdL().logError("An error occured while checking the DatabaseConnections.");
+				Logger.gdL().logException(e);
+			}
+		}
+	}
+	
+	/**
+	 * Queues the open batches of the {@link ProcedureExecuter} and the {@link SqlExecuter} every {@link MultiDatabaseController#BATCH_WINDOW} milliseconds,
+	 * so a fire-and-forget call waits at most that long before it runs.
+	 * 
+	 * @author Cedric
+	 * @see RequestExecuter#batch(Object, Procedure, Object)
+	 */
+	protected class BatchFlusher extends Clock {
+		
+		/**
+		 * Creates a new {@link BatchFlusher}. Call {@link #start()} to start flushing.
+		 * 
+		 * @param period time in milliseconds between two flushes
+		 */
+		public BatchFlusher(long period) {
+			super(period / 1000f);
+			setName("BatchFlusher");
+			setDaemon(true);
+		}
+		
+		@Override
+		public void tick(float delta) {
+			procExecuter.flushBatches();
+			sqlExecuter.flushBatches();
+		}
+	}
+	
+	/**
+	 * A published result of a precomputed {@link Procedure}.
+	 * 
+	 * @author Cedric
+	 * @see PrecomputeScheduler
+	 */
+	protected static class Snapshot {
+		/**
+		 * The result. Only handed out as {@link ResultCache#copy(Object) copy}.
+		 */
+		public final Object VALUE;
+		/**
+		 * The time in milliseconds the computation started.
+		 */
+		public final long COMPUTED_AT;
+		/**
+		 * The time in milliseconds the computation took.
+		 */
+		public final long DURATION;
+		
+		/**
+		 * Creates a new {@link Snapshot}.
+		 * 
+		 * @param value equals {@link #VALUE}
+		 * @param computedAt equals {@link #COMPUTED_AT}
+		 * @param duration equals {@link #DURATION}
+		 */
+		public Snapshot(Object value, long computedAt, long duration) {
+			this.VALUE = value;
+			this.COMPUTED_AT = computedAt;
+			this.DURATION = duration;
+		}
+	}
+	
+	/**
+	 * Computes the results of the active {@link Procedure Procedures} with a {@link Procedure#PRECOMPUTE} interval on its own {@link SingleDatabaseController}
+	 * and publishes them in {@link MultiDatabaseController#snapshots}, so calls get answered without touching the Database.</br>
+	 * A due refresh gets postponed while requests are queued, but never for longer than another interval.
+	 * If a refresh fails the old result stays published and the next try happens after a tenth of the interval.
+	 * 
+	 * @author Cedric
+	 * @see Snapshot
+	 */
+	protected class PrecomputeScheduler extends Clock {
+		
+		/**
+		 * The connection only used for precomputing.
+		 */
+		private SingleDatabaseController con;
+		/**
+		 * The time in milliseconds of the next try after a failed refresh by {@link Procedure#NAME}.
+		 */
+		private final HashMap<String, Long> retryAt;
+		/**
+		 * Statistics.
+		 */
+		private final AtomicLong refreshes, failures, postponed;
+		
+		/**
+		 * Creates a new {@link PrecomputeScheduler}. Call {@link #start()} to start precomputing.
+		 * 
+		 * @param period time in milliseconds between two checks for due refreshes
+		 */
+		public PrecomputeScheduler(long period) {
+			super(period / 1000f);
+			this.retryAt = new HashMap<String, Long>();
+			this.refreshes = new AtomicLong();
+			this.failures = new AtomicLong();
+			this.postponed = new AtomicLong();
+			setName("PrecomputeScheduler");
+			setDaemon(true);
+		}
+		
+		@Override
+		public void tick(float delta) {
+			HashSet<String> active = new HashSet<String>();
+			for (Procedure proc : ProcedureLoader.getRegistry().getAll()) {
+				if (proc.PRECOMPUTE <= 0 || !Objects.equals(proc.DATA_SOURCE, DATA_SOURCE)) continue;
+				active.add(proc.NAME);
+				long now = System.currentTimeMillis();
+				Snapshot snapshot = snapshots.get(proc.NAME);
+				if (snapshot != null && now - snapshot.COMPUTED_AT < proc.PRECOMPUTE) continue;
+				if (retryAt.getOrDefault(proc.NAME, 0L) > now) continue;
+				// Off-peak: the clients go first as long as the result is not too old
+				if (snapshot != null && now - snapshot.COMPUTED_AT < 2 * proc.PRECOMPUTE && (!procExecuter.queue.isEmpty() || !sqlExecuter.queue.isEmpty())) {
+					postponed.incrementAndGet();
+					continue;
+				}
+				refresh(proc);
+			}
+			snapshots.keySet().retainAll(active);
+			retryAt.keySet().retainAll(active);
+		}
+		
+		/**
+		 * Computes the result of the given {@link Procedure} and publishes it.
+		 */
+		private void refresh(Procedure proc) {
+			long started = System.currentTimeMillis();
+			try {
+				if (con == null || !con.isConnected()) {
+					con = new SingleDatabaseController(DB_HOST, DB_PORT, DB_USERNAME, DB_PASSWORD, DB_NAME);
+					con.setTimeout(DB_TIMEOUT);
+					con.connect();
+				}
+				Object value = proc.isScalar() ? con.executeScalarProcedure(proc) : con.executeResultSetProcedure(proc);
+				snapshots.put(proc.NAME, new Snapshot(value, started, System.currentTimeMillis() - started));
+				retryAt.remove(proc.NAME);
+				refreshes.incrementAndGet();
+			} catch (Exception e) {
+				failures.incrementAndGet();
+				retryAt.put(proc.NAME, started + Math.max(1000, proc.PRECOMPUTE / 10));
+				Logger.gdL().logError("Could not precompute " + proc.NAME + ". Keeping the old result.");
+				Logger.gdL().logException(e);
+			}
+		}
+		
+		@Override
+		public synchronized void shutdown() {
+			super.shutdown();
+			try {
+				if (con != null && con.isConnected()) con.disconnect();
+			} catch (SQLException e) {
+				Logger.gdL().logException(e);
+			}
+		}
+		
+		/**
+		 * Returns the staleness and the last refresh-duration of every published result as readable {@link String}.
+		 * 
+		 * @return statistics for the logs
+		 */
+		public String getStatistics() {
+			StringBuilder builder = new StringBuilder("PrecomputeScheduler: " + refreshes.get() + " refreshes, " + failures.get() + " failed, " + postponed.get() + " postponed");
+			long now = System.currentTimeMillis();
+			for (Map.Entry<String, Snapshot> e : snapshots.entrySet())
+				builder.append(Logger.SEPERATOR + String.format("%1$-25s %2$s", "\t- " + e.getKey() + ":",
+						"age " + (now - e.getValue().COMPUTED_AT) / 1000 + "s, computed in " + e.getValue().DURATION + "ms"));
+			return builder.toString();
+		}
+	}
 }
@@ -0,0 +1,621 @@
+package utils.networking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import utils.io.Logger;
+import utils.mechanics.Clock;
+
+/**
+ * The on-disk tier of the {@link ResultCache}. It keeps the cached results in a memory-mapped segment-file of {@link #CAPACITY} bytes,
+ * so the cache is warm right after an automatic restart.</br></br>
+ *
+ * The file is a log of records which are only appended:
+ * <code>[int length][int CRC32][byte type][payload]</code> where the payload of an {@link #ENTRY} is the expiry-time, the name, the arguments and the result
+ * and the payload of an {@link #INVALIDATION} is the name of the invalidated {@link Procedure}.
+ * The length gets written last and a length of <code>0</code> ends the log, so a record which was not written completely is never read.
+ * On opening the log gets scanned up to the first record with a wrong checksum and only the positions of the entries are kept in the {@link #index}.
+ * The results are decoded when they are requested the first time.</br></br>
+ *
+ * Replaced, expired and invalidated records stay in the file until the {@link Compactor} copies the live records into a new file which replaces the old one atomically.</br></br>
+ *
+ * Only one process may use the file at once, e.g. the old Server still draining after a <code>HANDOVER</code>-restart holds it until it stops.
+ * Every process locks the file <code>FILE.lock</code> next to it and caches in memory only while another process holds the lock.
+ * The {@link Compactor} keeps trying to get the lock and the {@link Procedure Procedures} invalidated in the meantime get dropped from the file as soon as it gets it.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public class PersistentResultCache {
+
+	// *************
+	// * Constants *
+	// *************
+	/**
+	 * Marks the file as cache-file of this version.
+	 */
+	private static final int MAGIC = 0x52434631;
+	/**
+	 * The size of the file-header.
+	 */
+	private static final int HEADER = 8;
+	/**
+	 * The size of the length and the checksum in front of every record.
+	 */
+	private static final int RECORD_HEADER = 8;
+	/**
+	 * Type of a record holding a result.
+	 */
+	private static final byte ENTRY = 1;
+	/**
+	 * Type of a record dropping all earlier results of a {@link Procedure}.
+	 */
+	private static final byte INVALIDATION = 2;
+
+	/**
+	 * The size of the file in bytes.
+	 */
+	public final int CAPACITY;
+	/**
+	 * The cache-file.
+	 */
+	public final File FILE;
+
+	// **********
+	// * Fields *
+	// **********
+	/**
+	 * The mapped file.
+	 */
+	private MappedByteBuffer buffer;
+	/**
+	 * The position of the next record.
+	 */
+	private int position;
+	/**
+	 * The position, length and expiry-time of the newest record of every cached call.
+	 */
+	private final HashMap<ResultCache.Key, Slot> index;
+	/**
+	 * The sum of the bytes of the records in the {@link #index}.
+	 */
+	private long liveBytes;
+	/**
+	 * Statistics.
+	 */
+	private long reads, writes, corrupt, compactions;
+	/**
+	 * Removes dead records periodically.
+	 */
+	private Compactor compactor;
+	/**
+	 * The channel of the lock-file, kept open to hold the {@link #lock}.
+	 */
+	private FileChannel lockChannel;
+	/**
+	 * The lock making this process the only one using the {@link #FILE} or <code>null</code> if the file is not {@link #open() opened}.
+	 */
+	private FileLock lock;
+	/**
+	 * The names of the {@link Procedure Procedures} invalidated while the file was not opened. They get dropped from the file when it gets opened.
+	 */
+	private final HashSet<String> missedInvalidations;
+	/**
+	 * Indicates whether a record did not fit into the file, so the {@link Compactor} compacts it at its next tick.
+	 */
+	private boolean full;
+	/**
+	 * Makes sure only one compaction runs at once.
+	 */
+	private final Object compactLock = new Object();
+
+	/**
+	 * Opens or creates the given cache-file and reads the positions of its entries.
+	 * If another process uses the file the cache stays empty until the {@link Compactor} can open it.
+	 *
+	 * @param file equals {@link #FILE}
+	 * @param capacity equals {@link #CAPACITY}
+	 * @throws IOException if the file cannot be locked or mapped
+	 */
+	public PersistentResultCache(File file, int capacity) throws IOException {
+		if (capacity < HEADER + RECORD_HEADER) throw new IllegalArgumentException("Illogical capacity for the PersistentResultCache");
+		this.FILE = file;
+		this.CAPACITY = capacity;
+		this.index = new HashMap<ResultCache.Key, Slot>();
+		this.missedInvalidations = new HashSet<String>();
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		synchronized (this) {
+			if (!open()) Logger.gdL().logWarning(FILE + " is used by another process. Caching in memory only until it is released.");
+		}
+	}
+
+	/**
+	 * Returns the result of the given call.
+	 *
+	 * @param proc the called {@link Procedure}
+	 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments
+	 * @return the entry or <code>null</code> if there is no valid result
+	 */
+	public Object[] get(Procedure proc, Object[] args) {
+		byte[] record;
+		long expiresAt;
+		synchronized (this) {
+			if (buffer == null) return null;
+			ResultCache.Key key = new ResultCache.Key(proc.NAME, args);
+			Slot slot = index.get(key);
+			if (slot == null) return null;
+			if (slot.EXPIRES_AT <= System.currentTimeMillis()) {
+				drop(key, slot);
+				return null;
+			}
+			record = new byte[slot.LENGTH - RECORD_HEADER];
+			ByteBuffer view = buffer.duplicate();
+			view.position(slot.OFFSET + RECORD_HEADER);
+			view.get(record);
+			expiresAt = slot.EXPIRES_AT;
+			reads++;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1));
+			in.readLong();
+			in.readUTF();
+			in.skipBytes(in.readInt());
+			byte[] result = new byte[in.readInt()];
+			in.readFully(result);
+			return new Object[] {decode(result), expiresAt};
+		} catch (IOException | ClassNotFoundException e) {
+			Logger.gdL().logError("Could not decode a cached result of " + proc.NAME + " from " + FILE);
+			Logger.gdL().logException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Appends the result of the given call. If the file is full the result is not stored and the {@link Compactor} compacts the file at its next tick.
+	 *
+	 * @param proc the called {@link Procedure}
+	 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments
+	 * @param result the result which has to be {@link java.io.Serializable}
+	 * @param expiresAt the time in milliseconds the result expires
+	 */
+	public void put(Procedure proc, Object[] args, Object result, long expiresAt) {
+		byte[] record;
+		try {
+			byte[] encodedArgs = encode(args), encodedResult = encode(result);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(encodedArgs.length + encodedResult.length + 64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(ENTRY);
+			out.writeLong(expiresAt);
+			out.writeUTF(proc.NAME);
+			out.writeInt(encodedArgs.length);
+			out.write(encodedArgs);
+			out.writeInt(encodedResult.length);
+			out.write(encodedResult);
+			record = bytes.toByteArray();
+		} catch (IOException e) {
+			Logger.gdL().logError("Could not encode the result of " + proc.NAME + " for " + FILE);
+			Logger.gdL().logException(e);
+			return;
+		}
+		synchronized (this) {
+			if (buffer == null) return;
+			ResultCache.Key key = new ResultCache.Key(proc.NAME, args);
+			if (!fits(record.length)) {
+				// The older result must not be read instead
+				Slot old = index.remove(key);
+				if (old != null) liveBytes -= old.LENGTH;
+				return;
+			}
+			Slot slot = new Slot(append(record), record.length + RECORD_HEADER, expiresAt);
+			Slot old = index.put(key, slot);
+			if (old != null) liveBytes -= old.LENGTH;
+			liveBytes += slot.LENGTH;
+			writes++;
+		}
+	}
+
+	/**
+	 * Drops all results of the {@link Procedure} with the given name, also for the next start.
+	 *
+	 * @param name the {@link Procedure#NAME} of the {@link Procedure}
+	 */
+	public void invalidate(String name) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(INVALIDATION);
+			out.writeUTF(name);
+		} catch (IOException e) {
+			// Cannot happen with a ByteArrayOutputStream
+		}
+		synchronized (this) {
+			if (buffer == null) {
+				missedInvalidations.add(name);
+				return;
+			}
+			if (!removeAll(name)) return;
+			byte[] record = bytes.toByteArray();
+			if (fits(record.length)) append(record);
+		}
+	}
+
+	/**
+	 * Copies all live records into a new file which replaces the current one.</br>
+	 * Written records never change, so most of them get copied without blocking the cache. Only the records written in the meantime get copied while it is blocked.
+	 *
+	 * @throws IOException if the new file cannot be written
+	 */
+	public void compact() throws IOException {
+		synchronized (compactLock) {
+			ByteBuffer source;
+			HashMap<ResultCache.Key, Slot> copied;
+			synchronized (this) {
+				if (buffer == null) return;
+				source = buffer.duplicate();
+				copied = new HashMap<ResultCache.Key, Slot>(index);
+			}
+			long now = System.currentTimeMillis();
+			File tmp = new File(FILE.getPath() + ".tmp");
+			HashMap<ResultCache.Key, Slot> moved = new HashMap<ResultCache.Key, Slot>();
+			try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, CAPACITY);
+				target.putInt(4, 0);
+				int next = HEADER;
+				for (Map.Entry<ResultCache.Key, Slot> e : copied.entrySet()) {
+					Slot slot = e.getValue();
+					if (slot.EXPIRES_AT <= now) continue;
+					moved.put(e.getKey(), copy(source, slot, target, next));
+					next += slot.LENGTH;
+				}
+				target.force();
+				synchronized (this) {
+					// Released in the meantime
+					if (buffer == null) return;
+					HashMap<ResultCache.Key, Slot> live = new HashMap<ResultCache.Key, Slot>();
+					for (Map.Entry<ResultCache.Key, Slot> e : index.entrySet()) {
+						Slot slot = e.getValue();
+						if (slot.EXPIRES_AT <= now) continue;
+						// Written while copying
+						Slot copy = copied.get(e.getKey()) == slot ? moved.get(e.getKey()) : null;
+						if (copy == null) {
+							if (next + slot.LENGTH + 4 > CAPACITY) continue;
+							copy = copy(buffer.duplicate(), slot, target, next);
+							next += slot.LENGTH;
+						}
+						live.put(e.getKey(), copy);
+					}
+					if (next + 4 <= CAPACITY) target.putInt(next, 0);
+					target.putInt(0, MAGIC);
+					target.force();
+					Files.move(tmp.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					map();
+					index.clear();
+					index.putAll(live);
+					liveBytes = 0;
+					for (Slot slot : live.values())
+						liveBytes += slot.LENGTH;
+					position = next;
+					full = false;
+					compactions++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes all changes to the disk.
+	 */
+	public synchronized void flush() {
+		if (buffer != null) buffer.force();
+	}
+
+	/**
+	 * Starts compacting the file periodically if more than half of it is dead. The {@link Compactor} also opens the file once it is released by another process.
+	 *
+	 * @param period time in milliseconds between two checks
+	 */
+	public synchronized void startCompactor(long period) {
+		if (compactor != null) return;
+		compactor = new Compactor(period);
+		compactor.start();
+	}
+
+	/**
+	 * Stops the {@link Compactor}, {@link #flush() flushes} the file and releases it for other processes.
+	 * The cache stays empty until {@link #startCompactor(long)} opens the file again.
+	 */
+	public synchronized void stopCompactor() {
+		if (compactor != null) compactor.shutdown();
+		compactor = null;
+		flush();
+		buffer = null;
+		index.clear();
+		liveBytes = 0;
+		try {
+			if (lock != null) lock.release();
+		} catch (IOException e) {
+			Logger.gdL().logError("Could not release the lock of " + FILE);
+			Logger.gdL().logException(e);
+		}
+		lock = null;
+	}
+
+	/**
+	 * Returns the fill-level and the statistics of the file as readable {@link String}.
+	 *
+	 * @return statistics for the logs
+	 */
+	public synchronized String getStatistics() {
+		return "PersistentResultCache (" + FILE + (buffer == null ? ", used by another process" : "") + "):" + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Results:", index.size()) + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Used:", position / 1024 + " of " + CAPACITY / 1024 + " KiB (" + liveBytes / 1024 + " KiB live)") + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Reads/Writes:", reads + "/" + writes) + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Compactions:", compactions) + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Corrupt records:", corrupt);
+	}
+
+	/**
+	 * Locks and maps the {@link #FILE} and reads its entries unless another process holds the lock. Call this while holding the monitor.
+	 *
+	 * @return <code>true</code> if the file is opened
+	 * @throws IOException if the lock-file cannot be opened or the file cannot be mapped
+	 */
+	private boolean open() throws IOException {
+		if (buffer != null) return true;
+		if (lockChannel == null)
+			lockChannel = FileChannel.open(new File(FILE.getPath() + ".lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try {
+			lock = lockChannel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			lock = null;
+		}
+		if (lock == null) return false;
+		try {
+			map();
+		} catch (IOException e) {
+			lock.release();
+			lock = null;
+			throw e;
+		}
+		index.clear();
+		liveBytes = 0;
+		if (buffer.getInt(0) != MAGIC) {
+			if (buffer.getInt(0) != 0) Logger.gdL().logWarning(FILE + " is no result-cache. Starting with an empty one.");
+			clear(buffer);
+			position = HEADER;
+		} else scan();
+		// Results of these Procedures may be outdated
+		for (String name : missedInvalidations)
+			invalidate(name);
+		missedInvalidations.clear();
+		return true;
+	}
+
+	/**
+	 * Maps the {@link #FILE} with {@link #CAPACITY} bytes.
+	 */
+	private void map() throws IOException {
+		try (FileChannel channel = FileChannel.open(FILE.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CAPACITY);
+		}
+	}
+
+	/**
+	 * Empties the given mapped file.
+	 */
+	private static void clear(MappedByteBuffer target) {
+		target.putInt(HEADER, 0);
+		target.putInt(4, 0);
+		target.putInt(0, MAGIC);
+	}
+
+	/**
+	 * Reads the log up to its end or to the first broken record and rebuilds the {@link #index}.
+	 */
+	private void scan() {
+		long now = System.currentTimeMillis();
+		position = HEADER;
+		CRC32 crc = new CRC32();
+		while (position + RECORD_HEADER < CAPACITY) {
+			int length = buffer.getInt(position);
+			if (length == 0) break;
+			if (length < 1 || position + RECORD_HEADER + length > CAPACITY) {
+				corrupt++;
+				break;
+			}
+			byte[] record = new byte[length];
+			ByteBuffer view = buffer.duplicate();
+			view.position(position + RECORD_HEADER);
+			view.get(record);
+			crc.reset();
+			crc.update(record);
+			if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+				corrupt++;
+				break;
+			}
+			try {
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+				byte type = in.readByte();
+				if (type == ENTRY) {
+					long expiresAt = in.readLong();
+					String name = in.readUTF();
+					byte[] args = new byte[in.readInt()];
+					in.readFully(args);
+					ResultCache.Key key = new ResultCache.Key(name, (Object[]) decode(args));
+					Slot old = index.remove(key);
+					if (old != null) liveBytes -= old.LENGTH;
+					if (expiresAt > now) {
+						index.put(key, new Slot(position, length + RECORD_HEADER, expiresAt));
+						liveBytes += length + RECORD_HEADER;
+					}
+				} else if (type == INVALIDATION) removeAll(in.readUTF());
+			} catch (IOException | ClassNotFoundException | ClassCastException e) {
+				corrupt++;
+				break;
+			}
+			position += RECORD_HEADER + length;
+		}
+		if (corrupt > 0) {
+			Logger.gdL().logWarning("Found a broken record in " + FILE + " at " + position + ". The records behind it get overwritten.");
+			buffer.putInt(position, 0);
+		}
+		Logger.gdL().logInfo("Loaded " + index.size() + " cached results from " + FILE);
+	}
+
+	/**
+	 * Returns whether a record of the given length fits into the file. Otherwise the {@link Compactor} compacts it at its next tick,
+	 * as compacting takes too long to block the cache.
+	 */
+	private boolean fits(int length) {
+		int needed = RECORD_HEADER + length + 4;
+		if (position + needed <= CAPACITY) return true;
+		if (needed <= CAPACITY / 4) full = true;
+		return false;
+	}
+
+	/**
+	 * Copies the given record from <code>source</code> to the given offset of <code>target</code>.
+	 *
+	 * @return the position of the copy
+	 */
+	private static Slot copy(ByteBuffer source, Slot slot, MappedByteBuffer target, int offset) {
+		source.limit(slot.OFFSET + slot.LENGTH).position(slot.OFFSET);
+		ByteBuffer view = target.duplicate();
+		view.position(offset);
+		view.put(source);
+		return new Slot(offset, slot.LENGTH, slot.EXPIRES_AT);
+	}
+
+	/**
+	 * Writes the given record at the {@link #position}. The length gets written last so a half written record ends the log.
+	 *
+	 * @return the offset of the record
+	 */
+	private int append(byte[] record) {
+		int offset = position;
+		CRC32 crc = new CRC32();
+		crc.update(record);
+		ByteBuffer view = buffer.duplicate();
+		view.position(offset + RECORD_HEADER);
+		view.put(record);
+		buffer.putInt(offset + RECORD_HEADER + record.length, 0);
+		buffer.putInt(offset + 4, (int) crc.getValue());
+		buffer.putInt(offset, record.length);
+		position = offset + RECORD_HEADER + record.length;
+		return offset;
+	}
+
+	/**
+	 * Removes all entries of the given name from the {@link #index}.
+	 *
+	 * @return <code>true</code> if an entry was removed
+	 */
+	private boolean removeAll(String name) {
+		boolean removed = false;
+		for (Iterator<Map.Entry<ResultCache.Key, Slot>> it = index.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<ResultCache.Key, Slot> e = it.next();
+			if (e.getKey().NAME.equals(name)) {
+				liveBytes -= e.getValue().LENGTH;
+				it.remove();
+				removed = true;
+			}
+		}
+		return removed;
+	}
+
+	private void drop(ResultCache.Key key, Slot slot) {
+		index.remove(key);
+		liveBytes -= slot.LENGTH;
+	}
+
+	private static byte[] encode(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(value);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object decode(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+	}
+
+	/**
+	 * The position of a record in the file.
+	 */
+	private static final class Slot {
+		private final int OFFSET;
+		private final int LENGTH;
+		private final long EXPIRES_AT;
+
+		private Slot(int offset, int length, long expiresAt) {
+			this.OFFSET = offset;
+			this.LENGTH = length;
+			this.EXPIRES_AT = expiresAt;
+		}
+	}
+
+	/**
+	 * Periodically {@link PersistentResultCache#compact() compacts} the file if more than half of the used part is dead or a record did not fit.
+	 * It also opens the file as soon as another process released it.
+	 *
+	 * @author Cedric
+	 */
+	private class Compactor extends Clock {
+
+		private Compactor(long period) {
+			super(period / 1000f);
+			setName("ResultCacheCompactor");
+			setDaemon(true);
+		}
+
+		@Override
+		public void tick(float delta) {
+			try {
+				MappedByteBuffer mapped;
+				boolean compact;
+				synchronized (PersistentResultCache.this) {
+					if (!open()) return;
+					long now = System.currentTimeMillis();
+					for (Iterator<Map.Entry<ResultCache.Key, Slot>> it = index.entrySet().iterator(); it.hasNext();) {
+						Slot slot = it.next().getValue();
+						if (slot.EXPIRES_AT <= now) {
+							liveBytes -= slot.LENGTH;
+							it.remove();
+						}
+					}
+					compact = full || (position - HEADER > 2 * liveBytes && position > CAPACITY / 8);
+					mapped = buffer;
+				}
+				// Both write to the disk without blocking the cache
+				if (compact) compact();
+				else mapped.force();
+			} catch (Exception e) {
+				Logger.gdL().logError("An error occured while compacting " + FILE);
+				Logger.gdL().logException(e);
+			}
+		}
+	}
+}
@@ -1,6 +1,25 @@
 package utils.networking;
 
+import java.util.ArrayList;
+
+/**
+ * Describes a procedure of the Database as declared in the <code>dbActiveProcedures</code>-file, e.g. <code>BIGINT Example(VARCHAR(1000))=ex</code>.</br>
+ * The declared types get compiled into {@link #RETURN} and {@link #PARAM_TYPES}, so arguments can be {@link #convertArguments(Object...) checked}
+ * before a connection is borrowed and bound with the matching setter.
+ * 
+ * @author Cedric
+ * @category utils.network
+ */
 public class Procedure {
+	/**
+	 * {@link #SHARD_KEY} of {@link Procedure Procedures} which run on the shard of the calling User.
+	 */
+	public static final int SHARD_BY_USER = -1;
+	/**
+	 * {@link #SHARD_KEY} of {@link Procedure Procedures} which run on every shard and whose results get merged.
+	 */
+	public static final int SHARD_ALL = -2;
+	
 	/**
 	 * 
 	 */
@@ -17,6 +36,47 @@ public class Procedure {
 	 * 
 	 */
 	public final String ALIAS;
+	/**
+	 * The type of the scalar result or <code>null</code> for <code>NO_RET</code> and <code>MULTIPLE_RETS</code> which return a {@link java.sql.ResultSet}.
+	 */
+	public final SqlType RETURN;
+	/**
+	 * The types of the parameters.
+	 */
+	public final SqlType[] PARAM_TYPES;
+	/**
+	 * The declared sizes of the parameters, <code>0</code> if none is declared.
+	 */
+	public final int[] PARAM_SIZES;
+	/**
+	 * Time in milliseconds the results stay in the {@link ResultCache}. <code>0</code> means that the results do not get cached.
+	 */
+	public final long CACHE_TTL;
+	/**
+	 * The {@link #NAME names} of the cached {@link Procedure Procedures} whose results get dropped after this {@link Procedure} ran.
+	 */
+	public final String[] INVALIDATES;
+	/**
+	 * Whether identical calls while one is running share its result instead of running again. Never set for {@link Procedure Procedures} which change data.
+	 */
+	public final boolean COALESCE;
+	/**
+	 * Time in milliseconds between two precomputations of the result. <code>0</code> means that the result does not get precomputed.
+	 */
+	public final long PRECOMPUTE;
+	/**
+	 * Whether the {@link Procedure} is declared as only reading data, so it may run on a read-replica (see {@link #isReadOnly()}).
+	 */
+	public final boolean READ_ONLY;
+	/**
+	 * The index of the parameter whose argument selects the shard the {@link Procedure} runs on,
+	 * {@link #SHARD_BY_USER} or {@link #SHARD_ALL}. Only used by the {@link ShardedDatabaseController}.
+	 */
+	public final int SHARD_KEY;
+	/**
+	 * The name of the data source the {@link Procedure} runs on or <code>null</code> for the main Database. Only used by the {@link RoutingDatabaseController}.
+	 */
+	public final String DATA_SOURCE;
 	
 	/**
 	 * 
@@ -30,14 +90,168 @@ public class Procedure {
 	 * @param name
 	 * @param retType
 	 * @param param
-	 * @throws IllegalArgumentException
+	 * @throws IllegalArgumentException if a type is unknown
 	 */
 	public Procedure(String name, String retType, String alias, String...param) {
+		this(name, retType, alias, 0, new String[0], false, 0, false, SHARD_BY_USER, null, param);
+	}
+	
+	/**
+	 * 
+	 * @param name
+	 * @param retType
+	 * @param alias
+	 * @param cacheTtl equals {@link #CACHE_TTL}
+	 * @param invalidates equals {@link #INVALIDATES}
+	 * @param coalesce equals {@link #COALESCE}
+	 * @param precompute equals {@link #PRECOMPUTE}
+	 * @param readOnly equals {@link #READ_ONLY}
+	 * @param shardKey equals {@link #SHARD_KEY}
+	 * @param dataSource equals {@link #DATA_SOURCE}
+	 * @param param
+	 * @throws IllegalArgumentException if a type is unknown, a {@link Procedure} which changes data should be coalesced, precomputed or read-only
+	 * or the <code>shardKey</code> is no parameter
+	 */
+	public Procedure(String name, String retType, String alias, long cacheTtl, String[] invalidates, boolean coalesce, long precompute, boolean readOnly, int shardKey, String dataSource, String...param) {
 		if (name == null || retType == null) throw new IllegalArgumentException("Name and returnType cannot be null!");
+		if ((coalesce || precompute > 0 || readOnly) && (retType.equals("NO_RET") || invalidates.length > 0))
+			throw new IllegalArgumentException(name + " changes data and cannot be " + (coalesce ? "coalesced!" : precompute > 0 ? "precomputed!" : "read-only!"));
+		this.PRECOMPUTE = precompute;
+		this.READ_ONLY = readOnly;
+		this.SHARD_KEY = shardKey;
+		this.DATA_SOURCE = dataSource;
+		this.CACHE_TTL = cacheTtl;
+		this.INVALIDATES = invalidates;
+		this.COALESCE = coalesce;
 		this.NAME = name;
 		this.RET_TYPE = retType;
 		this.ALIAS = alias;
-		this.PARAM = param;
+		// "Name()" declares no parameters
+		this.PARAM = param.length == 1 && param[0].isEmpty() ? new String[0] : param;
+		if (precompute > 0 && PARAM.length > 0) throw new IllegalArgumentException(name + " takes arguments and cannot be precomputed!");
+		if (shardKey < SHARD_ALL || shardKey >= PARAM.length) throw new IllegalArgumentException(name + " has no parameter " + (shardKey + 1) + " to select the shard!");
+		this.RETURN = retType.isEmpty() || retType.equals("NO_RET") || retType.equals("MULTIPLE_RETS") ? null : SqlType.parse(retType);
+		this.PARAM_TYPES = new SqlType[PARAM.length];
+		this.PARAM_SIZES = new int[PARAM.length];
+		for (int i = 0; i < PARAM.length; i++) {
+			PARAM_TYPES[i] = SqlType.parse(PARAM[i]);
+			PARAM_SIZES[i] = SqlType.parseSize(PARAM[i]);
+		}
+	}
+	
+	/**
+	 * Returns a copy of this {@link Procedure} with the given caching-options.
+	 * 
+	 * @param cacheTtl equals {@link #CACHE_TTL}
+	 * @param coalesce equals {@link #COALESCE}
+	 * @param invalidates equals {@link #INVALIDATES}
+	 * @return the new {@link Procedure}
+	 * @throws IllegalArgumentException if a {@link Procedure} which changes data should be coalesced
+	 */
+	public Procedure withCaching(long cacheTtl, boolean coalesce, String...invalidates) {
+		return new Procedure(NAME, RET_TYPE, ALIAS, cacheTtl, invalidates, coalesce, PRECOMPUTE, READ_ONLY, SHARD_KEY, DATA_SOURCE, PARAM);
+	}
+	
+	/**
+	 * Returns a copy of this {@link Procedure} which gets precomputed every <code>interval</code> milliseconds.
+	 * 
+	 * @param interval equals {@link #PRECOMPUTE}
+	 * @return the new {@link Procedure}
+	 * @throws IllegalArgumentException if the {@link Procedure} takes arguments or changes data
+	 */
+	public Procedure withPrecompute(long interval) {
+		return new Procedure(NAME, RET_TYPE, ALIAS, CACHE_TTL, INVALIDATES, COALESCE, interval, READ_ONLY, SHARD_KEY, DATA_SOURCE, PARAM);
+	}
+	
+	/**
+	 * Returns a copy of this {@link Procedure} declared as only reading data.
+	 * 
+	 * @param readOnly equals {@link #READ_ONLY}
+	 * @return the new {@link Procedure}
+	 * @throws IllegalArgumentException if the {@link Procedure} changes data
+	 */
+	public Procedure withReadOnly(boolean readOnly) {
+		return new Procedure(NAME, RET_TYPE, ALIAS, CACHE_TTL, INVALIDATES, COALESCE, PRECOMPUTE, readOnly, SHARD_KEY, DATA_SOURCE, PARAM);
+	}
+	
+	/**
+	 * Returns a copy of this {@link Procedure} which selects its shard with the given key.
+	 * 
+	 * @param shardKey equals {@link #SHARD_KEY}
+	 * @return the new {@link Procedure}
+	 * @throws IllegalArgumentException if the <code>shardKey</code> is no parameter
+	 */
+	public Procedure withShardKey(int shardKey) {
+		return new Procedure(NAME, RET_TYPE, ALIAS, CACHE_TTL, INVALIDATES, COALESCE, PRECOMPUTE, READ_ONLY, shardKey, DATA_SOURCE, PARAM);
+	}
+	
+	/**
+	 * Returns a copy of this {@link Procedure} which runs on the given data source.
+	 * 
+	 * @param dataSource equals {@link #DATA_SOURCE}
+	 * @return the new {@link Procedure}
+	 */
+	public Procedure withDataSource(String dataSource) {
+		return new Procedure(NAME, RET_TYPE, ALIAS, CACHE_TTL, INVALIDATES, COALESCE, PRECOMPUTE, READ_ONLY, SHARD_KEY, dataSource, PARAM);
+	}
+	
+	/**
+	 * Returns whether the {@link Procedure} only reads data. This is the case if it is declared {@link #READ_ONLY} or
+	 * if its results get {@link #CACHE_TTL cached}, {@link #COALESCE coalesced} or {@link #PRECOMPUTE precomputed}, which is only allowed for reading {@link Procedure Procedures}.
+	 * 
+	 * @return <code>true</code> if the {@link Procedure} may run on a read-replica
+	 */
+	public boolean isReadOnly() {
+		return READ_ONLY || COALESCE || PRECOMPUTE > 0 || (CACHE_TTL > 0 && !RET_TYPE.equals("NO_RET") && INVALIDATES.length == 0);
+	}
+	
+	/**
+	 * Returns whether the procedure returns a single value instead of a {@link java.sql.ResultSet}.
+	 * 
+	 * @return <code>true</code> if {@link #RETURN} is set
+	 */
+	public boolean isScalar() {
+		return RETURN != null;
+	}
+	
+	/**
+	 * Checks the amount of the given arguments and converts them into the Java-types of the {@link #PARAM_TYPES}.
+	 * 
+	 * @param args the arguments as Java-types or as {@link String Strings}
+	 * @return the converted arguments
+	 * @throws IllegalArgumentException if the amount does not match or an argument cannot be converted
+	 */
+	public Object[] convertArguments(Object...args) {
+		if (args.length != PARAM_TYPES.length)
+			throw new IllegalArgumentException(NAME + " takes " + PARAM_TYPES.length + " arguments but got " + args.length);
+		Object[] converted = new Object[args.length];
+		for (int i = 0; i < args.length; i++) {
+			try {
+				converted[i] = PARAM_TYPES[i].convert(args[i], PARAM_SIZES[i]);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Argument " + (i + 1) + " of " + NAME + ": " + e.getMessage(), e);
+			}
+		}
+		return converted;
+	}
+	
+	/**
+	 * Splits the parameter-declarations at the commas which are not inside of a size like <code>DECIMAL(10,2)</code>.
+	 */
+	private static String[] splitParams(String params) {
+		ArrayList<String> list = new ArrayList<String>();
+		int depth = 0, start = 0;
+		for (int i = 0; i < params.length(); i++) {
+			char c = params.charAt(i);
+			if (c == '(') depth++;
+			else if (c == ')') depth--;
+			else if (c == ',' && depth == 0) {
+				list.add(params.substring(start, i));
+				start = i + 1;
+			}
+		}
+		list.add(params.substring(start));
+		return list.toArray(new String[list.size()]);
 	}
 
 	/**
@@ -60,7 +274,7 @@ public class Procedure {
 		//}
 		String alias = null;
 		if (procedure.contains("=")) alias = procedure.substring(procedure.indexOf("=")+1, procedure.length());
-		return new Procedure(name, retType, alias, procedure.substring(procedure.indexOf("(") + 1, procedure.lastIndexOf(")")).replace(" ", "").split(","));
+		return new Procedure(name, retType, alias, splitParams(procedure.substring(procedure.indexOf("(") + 1, procedure.lastIndexOf(")")).replace(" ", "")));
 	}
 	
 	/**
@@ -71,7 +285,7 @@ public class Procedure {
 	public String toString() {
 		StringBuilder params = new StringBuilder();
 		for (String s : PARAM) params.append(s + ", ");
-		params.replace(params.length()-2, params.length(), "");
+		if (params.length() > 0) params.replace(params.length()-2, params.length(), "");
 		return RET_TYPE + " " + NAME + "(" + params.toString() + ")" + (ALIAS == null ? "" : "=" + ALIAS);
 	}
 }
@@ -3,84 +3,386 @@ package utils.networking;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
+import utils.Maths;
 import utils.io.ConfigAdapter;
 import utils.io.Logger;
 import utils.io.PropertiesAdapter;
 
 /**
- * 
+ * Loads the active {@link Procedure Procedures} from the <code>dbActiveProcedures</code>-file into a {@link ProcedureRegistry}.</br>
+ * Every (re-)load builds a new {@link ProcedureRegistry} which replaces the old one atomically, so lookups never wait for a reload.
+ * With {@link #startWatching()} the file gets reloaded automatically when it changes.
+ *
  * @author Cedric
  *
  */
 public class ProcedureLoader {
-	
+
 	/**
-	 * 
+	 * Time in milliseconds to wait after a change of the file before reloading, so editors can finish writing.
 	 */
-	private static PropertiesAdapter properties;
+	private static final long RELOAD_DELAY = 250;
+
 	/**
-	 * 
+	 * The current {@link ProcedureRegistry}. Only ever replaced, never changed.
 	 */
-	private static HashMap<String, Procedure[]> activeProcedures;
+	private static volatile ProcedureRegistry registry = ProcedureRegistry.EMPTY;
 	/**
-	 * 
+	 *
 	 */
 	private static final String[] dataTypes;
-	
+	/**
+	 * The {@link Thread} reloading the file on changes or <code>null</code> if it is not watched.
+	 */
+	private static ProcedureWatcher watcher;
+
 	static {
-		dataTypes = new String[] {"NO_RET", "BIT", "TINYINT", "SMALLINT", "INTEGER", "BIGINT", "FLOAT", "DOUBLE", "NUMERIC", "DECIMAL", "CHAR", "VARCHAR", "LONGVARCHAR", "DATE", "TIME", "TIMESTAMP", "BINARY", "VARBINARY", "LONGVARBINARY", "BLOB", "CLOB", "MULTIPLE_RETS"};
+		dataTypes = new String[] {"NO_RET", "BIT", "TINYINT", "SMALLINT", "INTEGER", "BIGINT", "FLOAT", "REAL", "DOUBLE", "NUMERIC", "DECIMAL", "CHAR", "VARCHAR", "LONGVARCHAR", "DATE", "TIME", "TIMESTAMP", "BINARY", "VARBINARY", "LONGVARBINARY", "BLOB", "CLOB", "MULTIPLE_RETS"};
 	}
-	
+
 	/**
-	 * 
+	 * Loads the <code>dbActiveProcedures</code>-file and replaces the current {@link ProcedureRegistry}.</br>
+	 * If the file cannot be read the current {@link ProcedureRegistry} stays active.
+	 *
 	 * @throws FileNotFoundException
 	 * @throws IOException
 	 */
-	public static void initProcedures() throws FileNotFoundException, IOException {
-		properties = new PropertiesAdapter(new File(ConfigAdapter.getDefaultConfig().getConfigString("dbActiveProcedures")));
-		
-		activeProcedures = new HashMap<String, Procedure[]>();
-		
+	public static synchronized void initProcedures() throws FileNotFoundException, IOException {
+		PropertiesAdapter properties = new PropertiesAdapter(getFile());
+
+		LinkedHashMap<String, Procedure[]> activeProcedures = new LinkedHashMap<String, Procedure[]>();
+
 		boolean error = false;
-		
+
 		for (String s : dataTypes) {
-			String configString = properties.getProperty(s).replace("\t", "");
-			if (configString.contains(";")) {
-				ArrayList<Procedure> procedures = new ArrayList<Procedure>();
-				for (String s2 : configString.split(";")) {
+			String configString = properties.getProperty(s);
+			if (configString == null) {
+				Logger.gdL().logWarning("No Procedures declared for datatype " + s + "!");
+				activeProcedures.put(s, new Procedure[] {});
+				continue;
+			}
+			ArrayList<Procedure> procedures = new ArrayList<Procedure>();
+			for (String s2 : configString.replace("\t", "").split(";")) {
+				try {
+					s2 = s2.replace("{", "").replace("}", "").trim();
+					if (!s2.equals("")) procedures.add(Procedure.getFromString(s + " " + s2));
+				} catch(NullPointerException | IndexOutOfBoundsException | IllegalArgumentException e) {
+					Logger.gdL().logError("Procedures for datatype " + s + " failed!");
+					Logger.gdL().logException(e);
+					error = true;
+					continue;
+				}
+			}
+			activeProcedures.put(s, procedures.toArray(new Procedure[procedures.size()]));
+		}
+
+		error |= applyCaching(properties, activeProcedures);
+		error |= applyRouting(properties, activeProcedures);
+
+		registry = new ProcedureRegistry(activeProcedures);
+		Logger.gdL().logInfo("Loaded " + registry.size() + " Procedures");
+
+		if (error) Logger.gdL().logWarning("Could not load all Procedures successful due to config-Errors!");
+	}
+
+	/**
+	 * Applies the caching-options of the <code>CACHE</code>-, <code>INVALIDATES</code>-, <code>COALESCE</code>-, <code>PRECOMPUTE</code>- and <code>READS</code>-entries to the given {@link Procedure Procedures}.</br>
+	 * <code>CACHE={Name=TTL in milliseconds;...}</code> caches the results of a {@link Procedure} in the {@link ResultCache},
+	 * <code>INVALIDATES={Name=CachedName,CachedName;...}</code> drops the cached results of other {@link Procedure Procedures} after a {@link Procedure} ran and
+	 * <code>COALESCE={Name;...}</code> lets identical calls share one running call and <code>PRECOMPUTE={Name=interval in milliseconds;...}</code>
+	 * lets the {@link MultiDatabaseController} compute the result of a {@link Procedure} without arguments in the background.
+	 * <code>READS={Name;...}</code> declares {@link Procedure Procedures} which only read data so they may run on a read-replica. Names can also be aliases.
+	 *
+	 * @return <code>true</code> if an entry could not be applied
+	 */
+	private static boolean applyCaching(PropertiesAdapter properties, LinkedHashMap<String, Procedure[]> activeProcedures) {
+		Map<String, String> names = getNames(activeProcedures);
+
+		boolean error = false;
+		HashMap<String, Long> ttls = new HashMap<String, Long>();
+		HashMap<String, String[]> invalidates = new HashMap<String, String[]>();
+		for (Map.Entry<String, String> entry : parseOptions(properties.getProperty("CACHE")).entrySet()) {
+			try {
+				if (names.get(entry.getKey()) == null) throw new IllegalArgumentException("Unknown Procedure " + entry.getKey());
+				ttls.put(names.get(entry.getKey()), (long) Maths.calculate(entry.getValue()));
+			} catch (RuntimeException e) {
+				Logger.gdL().logError("Caching of " + entry.getKey() + " failed!");
+				Logger.gdL().logException(e);
+				error = true;
+			}
+		}
+		for (Map.Entry<String, String> entry : parseOptions(properties.getProperty("INVALIDATES")).entrySet()) {
+			String[] targets = entry.getValue().split(",");
+			for (int i = 0; i < targets.length; i++) {
+				targets[i] = names.get(targets[i].trim());
+				if (targets[i] == null) {
+					Logger.gdL().logError("Invalidations of " + entry.getKey() + " contain an unknown Procedure!");
+					error = true;
+				}
+			}
+			if (names.get(entry.getKey()) == null) {
+				Logger.gdL().logError("Invalidations for unknown Procedure " + entry.getKey() + "!");
+				error = true;
+			} else invalidates.put(names.get(entry.getKey()), Arrays.stream(targets).filter(t -> t != null).toArray(String[]::new));
+		}
+
+		HashSet<String> coalesce = new HashSet<String>();
+		error |= parseNames(properties.getProperty("COALESCE"), names, coalesce);
+
+		for (Procedure[] ps : activeProcedures.values())
+			for (int i = 0; i < ps.length; i++) {
+				if (!ttls.containsKey(ps[i].NAME) && !invalidates.containsKey(ps[i].NAME) && !coalesce.contains(ps[i].NAME)) continue;
+				String[] targets = invalidates.getOrDefault(ps[i].NAME, new String[0]);
+				try {
+					ps[i] = ps[i].withCaching(ttls.getOrDefault(ps[i].NAME, 0L), coalesce.contains(ps[i].NAME), targets);
+				} catch (IllegalArgumentException e) {
+					Logger.gdL().logError(e.getMessage());
+					ps[i] = ps[i].withCaching(ttls.getOrDefault(ps[i].NAME, 0L), false, targets);
+					error = true;
+				}
+			}
+
+		for (Map.Entry<String, String> entry : parseOptions(properties.getProperty("PRECOMPUTE")).entrySet()) {
+			try {
+				String name = names.get(entry.getKey());
+				if (name == null) throw new IllegalArgumentException("Unknown Procedure " + entry.getKey());
+				long interval = (long) Maths.calculate(entry.getValue());
+				for (Procedure[] ps : activeProcedures.values())
+					for (int i = 0; i < ps.length; i++)
+						if (ps[i].NAME.equals(name)) ps[i] = ps[i].withPrecompute(interval);
+			} catch (RuntimeException e) {
+				Logger.gdL().logError("Precomputing of " + entry.getKey() + " failed!");
+				Logger.gdL().logException(e);
+				error = true;
+			}
+		}
+
+		HashSet<String> reads = new HashSet<String>();
+		error |= parseNames(properties.getProperty("READS"), names, reads);
+		for (Procedure[] ps : activeProcedures.values())
+			for (int i = 0; i < ps.length; i++)
+				if (reads.contains(ps[i].NAME)) {
 					try {
-						s2 = s2.replace("{", "").replace("}", "");
-						if (!s2.equals("")) procedures.add(Procedure.getFromString(s + " " + s2));
-					} catch(NullPointerException | IndexOutOfBoundsException | IllegalArgumentException e) {
-						Logger.gdL().logError("Procedures for datatype " + s + " failed!");
-						Logger.gdL().logException(e);
+						ps[i] = ps[i].withReadOnly(true);
+					} catch (IllegalArgumentException e) {
+						Logger.gdL().logError(e.getMessage());
 						error = true;
-						continue;
 					}
 				}
-				activeProcedures.put(s, procedures.toArray(new Procedure[procedures.size()]));
-			} else if (configString.equals("{}")) activeProcedures.put(s, new Procedure[] {});
-			else activeProcedures.put(s, new Procedure[] {Procedure.getFromString(s + " " + (configString = configString.replace(" ", "")).substring(1, configString.length()-1))});
+		return error;
+	}
+
+	/**
+	 * Applies the <code>SHARDS</code>- and <code>SOURCES</code>-entries to the given {@link Procedure Procedures}.</br>
+	 * <code>SHARDS={Name=number of the parameter;...}</code> lets the {@link ShardedDatabaseController} select the shard by an argument,
+	 * <code>Name=ALL</code> runs a {@link Procedure} on every shard and <code>Name=USER</code>, the default, on the shard of the calling User.
+	 * <code>SOURCES={Name=data source;...}</code> lets the {@link RoutingDatabaseController} run a {@link Procedure} on one of the <code>dbDataSources</code>.
+	 *
+	 * @return <code>true</code> if an entry could not be applied
+	 */
+	private static boolean applyRouting(PropertiesAdapter properties, LinkedHashMap<String, Procedure[]> activeProcedures) {
+		Map<String, String> names = getNames(activeProcedures);
+		boolean error = false;
+		for (Map.Entry<String, String> entry : parseOptions(properties.getProperty("SHARDS")).entrySet()) {
+			try {
+				String name = names.get(entry.getKey());
+				if (name == null) throw new IllegalArgumentException("Unknown Procedure " + entry.getKey());
+				int shardKey = entry.getValue().equals("ALL") ? Procedure.SHARD_ALL
+						: entry.getValue().equals("USER") ? Procedure.SHARD_BY_USER : Integer.parseInt(entry.getValue()) - 1;
+				for (Procedure[] ps : activeProcedures.values())
+					for (int i = 0; i < ps.length; i++)
+						if (ps[i].NAME.equals(name)) ps[i] = ps[i].withShardKey(shardKey);
+			} catch (RuntimeException e) {
+				Logger.gdL().logError("Sharding of " + entry.getKey() + " failed!");
+				Logger.gdL().logException(e);
+				error = true;
+			}
 		}
-		
-		if (error) Logger.gdL().logWarning("Could not load all Procedures successful due to config-Errors!");
+		for (Map.Entry<String, String> entry : parseOptions(properties.getProperty("SOURCES")).entrySet()) {
+			String name = names.get(entry.getKey());
+			if (name == null) {
+				Logger.gdL().logError("Data source for unknown Procedure " + entry.getKey() + "!");
+				error = true;
+				continue;
+			}
+			for (Procedure[] ps : activeProcedures.values())
+				for (int i = 0; i < ps.length; i++)
+					if (ps[i].NAME.equals(name)) ps[i] = ps[i].withDataSource(entry.getValue());
+		}
+
+		// Every data source has its own ResultCache
+		HashMap<String, String> sources = new HashMap<String, String>();
+		for (Procedure[] ps : activeProcedures.values())
+			for (Procedure p : ps)
+				sources.put(p.NAME, p.DATA_SOURCE);
+		for (Procedure[] ps : activeProcedures.values())
+			for (Procedure p : ps)
+				for (String target : p.INVALIDATES)
+					if (!Objects.equals(p.DATA_SOURCE, sources.get(target)))
+						Logger.gdL().logWarning(p.NAME + " cannot invalidate " + target + " because it runs on another data source!");
+		return error;
+	}
+
+	/**
+	 * Maps the {@link Procedure#NAME names} and {@link Procedure#ALIAS aliases} of the given {@link Procedure Procedures} to their {@link Procedure#NAME names}.
+	 */
+	private static Map<String, String> getNames(LinkedHashMap<String, Procedure[]> activeProcedures) {
+		HashMap<String, String> names = new HashMap<String, String>();
+		for (Procedure[] ps : activeProcedures.values())
+			for (Procedure p : ps) {
+				names.put(p.NAME, p.NAME);
+				if (p.ALIAS != null) names.putIfAbsent(p.ALIAS, p.NAME);
+			}
+		return names;
+	}
+
+	/**
+	 * Parses an entry like <code>{Name;...}</code> into the given {@link HashSet} of {@link Procedure#NAME names}.
+	 *
+	 * @return <code>true</code> if an entry names an unknown {@link Procedure}
+	 */
+	private static boolean parseNames(String configString, Map<String, String> names, HashSet<String> result) {
+		boolean error = false;
+		if (configString == null) return error;
+		for (String name : configString.replace("\t", "").replace("{", "").replace("}", "").replace(" ", "").split(";")) {
+			if (name.isEmpty()) continue;
+			if (names.get(name) == null) {
+				Logger.gdL().logError("Unknown Procedure " + name + "!");
+				error = true;
+			} else result.add(names.get(name));
+		}
+		return error;
+	}
+
+	/**
+	 * Parses an entry like <code>{Name=Value;...}</code> into a {@link Map}.
+	 */
+	private static Map<String, String> parseOptions(String configString) {
+		LinkedHashMap<String, String> options = new LinkedHashMap<String, String>();
+		if (configString == null) return options;
+		for (String option : configString.replace("\t", "").replace("{", "").replace("}", "").split(";")) {
+			option = option.replace(" ", "");
+			if (option.contains("=")) options.put(option.substring(0, option.indexOf("=")), option.substring(option.indexOf("=") + 1));
+		}
+		return options;
 	}
 
 	/**
-	 * Returns the {@link Procedure} identified by the given name.</br>
+	 * Returns the {@link Procedure} identified by the given name or alias.</br>
 	 * If the {@link Procedure} is not active <code>null</code> will be returned.
-	 * 
-	 * @param name Name of the {@link Procedure} to be returned
+	 *
+	 * @param name Name or alias of the {@link Procedure} to be returned
 	 * @return {@link Procedure} with the given name
 	 */
 	public static Procedure getProcedureByName(String name) {
-		for (Procedure[] ps : activeProcedures.values())
-			for (Procedure p : ps)
-				if (p.NAME.equals(name) || p.ALIAS.equals(name))
-					return p;
-		return null;
-	}	
+		return registry.get(name);
+	}
+
+	/**
+	 * Returns the current {@link ProcedureRegistry}.
+	 *
+	 * @return the {@link ProcedureRegistry} of the last successful load
+	 */
+	public static ProcedureRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Starts reloading the <code>dbActiveProcedures</code>-file whenever it changes.
+	 *
+	 * @throws IOException if the directory of the file cannot be watched
+	 */
+	public static synchronized void startWatching() throws IOException {
+		if (watcher != null) return;
+		watcher = new ProcedureWatcher(getFile().getAbsoluteFile().toPath());
+		watcher.start();
+	}
+
+	/**
+	 * Stops reloading the <code>dbActiveProcedures</code>-file on changes.
+	 */
+	public static synchronized void stopWatching() {
+		if (watcher == null) return;
+		watcher.shutdown();
+		watcher = null;
+	}
+
+	private static File getFile() {
+		return new File(ConfigAdapter.getDefaultConfig().getConfigString("dbActiveProcedures"));
+	}
+
+	/**
+	 * Watches the directory of the <code>dbActiveProcedures</code>-file and calls {@link ProcedureLoader#initProcedures()} when the file changes.
+	 *
+	 * @author Cedric
+	 */
+	private static class ProcedureWatcher extends Thread {
+
+		private final Path FILE;
+		private final WatchService service;
+
+		private ProcedureWatcher(Path file) throws IOException {
+			this.FILE = file;
+			this.service = FileSystems.getDefault().newWatchService();
+			// Editors often replace the file, so the directory gets watched instead of the file
+			file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			setName("ProcedureWatcher");
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!isInterrupted()) {
+					WatchKey key = service.take();
+					boolean changed = containsFile(key);
+					key.reset();
+					if (!changed) continue;
+					// Collapses the events of one save into one reload
+					Thread.sleep(RELOAD_DELAY);
+					while ((key = service.poll()) != null) key.reset();
+					try {
+						Logger.gdL().logInfo("Reloading changed Procedures");
+						initProcedures();
+					} catch (IOException | RuntimeException e) {
+						Logger.gdL().logError("Could not reload the Procedures! Keeping the old ones.");
+						Logger.gdL().logException(e);
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// Stopped
+			}
+		}
+
+		private boolean containsFile(WatchKey key) {
+			boolean found = false;
+			for (WatchEvent<?> event : key.pollEvents())
+				if (event.context() instanceof Path && FILE.getFileName().equals(event.context())) found = true;
+			return found;
+		}
+
+		private void shutdown() {
+			interrupt();
+			try {
+				service.close();
+			} catch (IOException e) {
+				Logger.gdL().logException(e);
+			}
+		}
+	}
 }
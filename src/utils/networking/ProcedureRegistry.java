@@ -0,0 +1,101 @@
+package utils.networking;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import utils.io.Logger;
+
+/**
+ * An immutable snapshot of all active {@link Procedure Procedures} indexed by {@link Procedure#NAME name} and {@link Procedure#ALIAS alias}.</br>
+ * The {@link ProcedureLoader} builds a new registry on every reload and swaps it atomically, so lookups never lock and
+ * requests which already got their {@link Procedure} keep it until they are done.
+ * 
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public final class ProcedureRegistry {
+
+	/**
+	 * A registry without any {@link Procedure Procedures} used until the first load.
+	 */
+	public static final ProcedureRegistry EMPTY = new ProcedureRegistry(new LinkedHashMap<String, Procedure[]>());
+	
+	/**
+	 * The {@link Procedure Procedures} by name and alias.
+	 */
+	private final Map<String, Procedure> byName;
+	/**
+	 * The {@link Procedure Procedures} by their declared return-type.
+	 */
+	private final Map<String, Procedure[]> byType;
+	/**
+	 * The time in milliseconds at which this registry was built.
+	 */
+	public final long LOADED_AT;
+	
+	/**
+	 * Builds a new registry. Names win over aliases, on duplicates the first {@link Procedure} wins.
+	 * 
+	 * @param byType the {@link Procedure Procedures} by their declared return-type. The arrays must not be changed afterwards.
+	 */
+	public ProcedureRegistry(Map<String, Procedure[]> byType) {
+		HashMap<String, Procedure> names = new HashMap<String, Procedure>();
+		for (Procedure[] ps : byType.values())
+			for (Procedure p : ps)
+				if (names.putIfAbsent(p.NAME, p) != null)
+					Logger.gdL().logWarning("The Procedure " + p.NAME + " is declared more than once!");
+		for (Procedure[] ps : byType.values())
+			for (Procedure p : ps)
+				if (p.ALIAS != null && names.putIfAbsent(p.ALIAS, p) != null && names.get(p.ALIAS) != p)
+					Logger.gdL().logWarning("The alias " + p.ALIAS + " of " + p.NAME + " is already used!");
+		this.byName = Collections.unmodifiableMap(names);
+		this.byType = Collections.unmodifiableMap(new LinkedHashMap<String, Procedure[]>(byType));
+		this.LOADED_AT = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Returns the {@link Procedure} with the given name or alias.
+	 * 
+	 * @param name name or alias of the {@link Procedure}
+	 * @return the {@link Procedure} or <code>null</code> if it is not active
+	 */
+	public Procedure get(String name) {
+		return name == null ? null : byName.get(name);
+	}
+	
+	/**
+	 * Returns the {@link Procedure Procedures} with the given declared return-type.
+	 * 
+	 * @param type the return-type as in the <code>dbActiveProcedures</code>-file, e.g. <code>NO_RET</code>
+	 * @return the {@link Procedure Procedures}, empty if there are none
+	 */
+	public Procedure[] getByType(String type) {
+		Procedure[] ps = byType.get(type);
+		return ps == null ? new Procedure[0] : ps.clone();
+	}
+	
+	/**
+	 * Returns all active {@link Procedure Procedures}.
+	 * 
+	 * @return an unmodifiable view of the {@link Procedure Procedures} by name and alias
+	 */
+	public Collection<Procedure> getAll() {
+		return Collections.unmodifiableCollection(new HashSet<Procedure>(byName.values()));
+	}
+	
+	/**
+	 * Returns the amount of active {@link Procedure Procedures}.
+	 * 
+	 * @return the amount of {@link Procedure Procedures}
+	 */
+	public int size() {
+		int size = 0;
+		for (Procedure[] ps : byType.values()) size += ps.length;
+		return size;
+	}
+}
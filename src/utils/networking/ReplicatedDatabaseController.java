@@ -0,0 +1,308 @@
+package utils.networking;
+
+import java.sql.ResultSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import utils.io.Logger;
+import utils.mechanics.Clock;
+
+/**
+ * Splits the calls between a primary Database and its read-replicas, every one with its own {@link MultiDatabaseController}.</br>
+ * {@link Procedure#isReadOnly() Read-only} {@link Procedure Procedures} and {@link MultiDatabaseController#isReadOnlyQuery(String) read-only queries}
+ * go to the healthy replica with the least outstanding requests whose {@link CircuitBreaker} is not open, everything else goes to the {@link #PRIMARY}.
+ * If no replica is healthy the reads go to the {@link #PRIMARY} as well. A read which fails on a replica gets repeated once on the {@link #PRIMARY}.</br>
+ * {@link Procedure Procedures} with a {@link Procedure#CACHE_TTL} always run on the {@link #PRIMARY}: the replicas share its {@link ResultCache} and a result read
+ * from a lagging replica right after a write invalidated the cache would be cached and served to everyone.</br></br>
+ *
+ * The {@link ReplicaMonitor} checks every replica with <code>SELECT 1</code>. After {@link #MAX_FAILURES} failed checks in a row a replica gets removed from the rotation
+ * and the first successful check puts it back.</br>
+ * <b>Note:</b> Replicas lag behind the primary, so a read directly after a write may not see it yet.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public class ReplicatedDatabaseController implements DatabaseController {
+
+	/**
+	 * The controller of the primary Database which gets all writes.
+	 */
+	public final MultiDatabaseController PRIMARY;
+	/**
+	 * The controllers of the read-replicas.
+	 */
+	public final MultiDatabaseController[] REPLICAS;
+	/**
+	 * The amount of failed health-checks in a row after which a replica gets removed from the rotation.
+	 */
+	public final int MAX_FAILURES;
+	/**
+	 * Time in milliseconds a health-check may take.
+	 */
+	public final long CHECK_TIMEOUT;
+
+	/**
+	 * The requests sent to every replica which are not done yet.
+	 */
+	private final AtomicInteger[] outstanding;
+	/**
+	 * Whether a replica is in the rotation.
+	 */
+	private final AtomicBoolean[] healthy;
+	/**
+	 * The failed health-checks in a row of every replica. Only accessed by the {@link ReplicaMonitor}.
+	 */
+	private final int[] failures;
+	/**
+	 * Statistics.
+	 */
+	private final AtomicLong reads, writes, fallbacks;
+	/**
+	 * Checks the health of the replicas.
+	 */
+	private volatile ReplicaMonitor monitor;
+	/**
+	 * Time in milliseconds between two health-checks.
+	 */
+	private final long checkPeriod;
+
+	/**
+	 * Creates a new {@link ReplicatedDatabaseController} and starts the {@link ReplicaMonitor}. The controllers have to be started already.
+	 *
+	 * @param primary equals {@link #PRIMARY}
+	 * @param replicas equals {@link #REPLICAS}. Create them with the {@link #PRIMARY} as <code>primary</code> so they share its caches.
+	 * @param checkPeriod time in milliseconds between two health-checks
+	 * @param checkTimeout equals {@link #CHECK_TIMEOUT}
+	 * @param maxFailures equals {@link #MAX_FAILURES}
+	 */
+	public ReplicatedDatabaseController(MultiDatabaseController primary, MultiDatabaseController[] replicas, long checkPeriod, long checkTimeout, int maxFailures) {
+		if (primary == null || replicas == null || checkPeriod < 1 || checkTimeout < 1 || maxFailures < 1) throw new IllegalArgumentException("Illogical arguments for the ReplicatedDatabaseController");
+		this.PRIMARY = primary;
+		this.REPLICAS = replicas.clone();
+		this.MAX_FAILURES = maxFailures;
+		this.CHECK_TIMEOUT = checkTimeout;
+		this.checkPeriod = checkPeriod;
+		this.outstanding = new AtomicInteger[replicas.length];
+		this.healthy = new AtomicBoolean[replicas.length];
+		this.failures = new int[replicas.length];
+		for (int i = 0; i < replicas.length; i++) {
+			outstanding[i] = new AtomicInteger();
+			healthy[i] = new AtomicBoolean(true);
+		}
+		this.reads = new AtomicLong();
+		this.writes = new AtomicLong();
+		this.fallbacks = new AtomicLong();
+		startMonitor();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return PRIMARY.isRunning();
+	}
+
+	@Override
+	public boolean isReady() {
+		return PRIMARY.isReady();
+	}
+
+	@Override
+	public synchronized void start() {
+		PRIMARY.start();
+		for (MultiDatabaseController replica : REPLICAS)
+			replica.start();
+		startMonitor();
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (monitor != null) monitor.shutdown();
+		monitor = null;
+		for (MultiDatabaseController replica : REPLICAS)
+			replica.stop();
+		PRIMARY.stop();
+	}
+
+	@Override
+	public Object callProc(Procedure proc, Object...args) {
+		if (!isReplicaRead(proc)) return PRIMARY.callProc(proc, args);
+		int replica = chooseReplica();
+		if (replica < 0) return PRIMARY.callProc(proc, args);
+		return await(withFallback(replica, REPLICAS[replica].callProcAsync(proc, args), () -> PRIMARY.callProcAsync(proc, args)), "the procedure " + proc.NAME);
+	}
+
+	@Override
+	public void callNoRetSql(Procedure proc, Object...args) {
+		writes.incrementAndGet();
+		PRIMARY.callNoRetSql(proc, args);
+	}
+
+	@Override
+	public ResultSet executeSql(String query) {
+		if (!MultiDatabaseController.isReadOnlyQuery(query)) {
+			writes.incrementAndGet();
+			return PRIMARY.executeSql(query);
+		}
+		int replica = chooseReplica();
+		if (replica < 0) return PRIMARY.executeSql(query);
+		return await(withFallback(replica, REPLICAS[replica].executeSqlAsync(query), () -> PRIMARY.executeSqlAsync(query)), "the command " + query);
+	}
+
+	@Override
+	public void executeNoRetSql(String query) {
+		writes.incrementAndGet();
+		PRIMARY.executeNoRetSql(query);
+	}
+
+	@Override
+	public CompletableFuture<Object> callProcAsync(Executor executor, Procedure proc, Object...args) {
+		return callUserProcAsync(null, NO_DEADLINE, executor, proc, args);
+	}
+
+	@Override
+	public CompletableFuture<Object> callUserProcAsync(String user, long deadline, Executor executor, Procedure proc, Object...args) {
+		if (!isReplicaRead(proc)) return PRIMARY.callUserProcAsync(user, deadline, executor, proc, args);
+		int replica = chooseReplica();
+		if (replica < 0) return PRIMARY.callUserProcAsync(user, deadline, executor, proc, args);
+		return withFallback(replica, REPLICAS[replica].callUserProcAsync(user, deadline, executor, proc, args),
+				() -> PRIMARY.callUserProcAsync(user, deadline, executor, proc, args));
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> executeSqlAsync(String query, Executor executor) {
+		if (!MultiDatabaseController.isReadOnlyQuery(query)) {
+			writes.incrementAndGet();
+			return PRIMARY.executeSqlAsync(query, executor);
+		}
+		int replica = chooseReplica();
+		if (replica < 0) return PRIMARY.executeSqlAsync(query, executor);
+		return withFallback(replica, REPLICAS[replica].executeSqlAsync(query, executor), () -> PRIMARY.executeSqlAsync(query, executor));
+	}
+
+	@Override
+	public String getStatistics() {
+		StringBuilder builder = new StringBuilder("ReplicatedDatabaseController:" + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Reads/Writes:", reads.get() + "/" + writes.get()) + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Fallbacks:", fallbacks.get()));
+		for (int i = 0; i < REPLICAS.length; i++)
+			builder.append(Logger.SEPERATOR + String.format("%1$-20s %2$s", "\t- Replica " + i + ":",
+					REPLICAS[i].DB_HOST + ":" + REPLICAS[i].DB_PORT + (healthy[i].get() ? " healthy" : " REMOVED") + ", " + outstanding[i].get() + " outstanding"));
+		builder.append(Logger.SEPERATOR + "Primary:" + Logger.SEPERATOR + PRIMARY.getStatistics());
+		for (int i = 0; i < REPLICAS.length; i++)
+			builder.append(Logger.SEPERATOR + "Replica " + i + ":" + Logger.SEPERATOR + REPLICAS[i].getStatistics());
+		return builder.toString();
+	}
+
+	/**
+	 * Returns whether the given {@link Procedure} may run on a replica and counts it as write otherwise.
+	 *
+	 * @param proc the called {@link Procedure} or <code>null</code>
+	 * @return <code>true</code> for read-only {@link Procedure Procedures} whose results do not get cached
+	 */
+	private boolean isReplicaRead(Procedure proc) {
+		if (proc != null && proc.isReadOnly() && proc.CACHE_TTL <= 0) return true;
+		if (proc == null || !proc.isReadOnly()) writes.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Waits for the result of a synchronous read like {@link MultiDatabaseController#callProc(Procedure, Object...)} does.
+	 *
+	 * @return the result or <code>null</code> if the read failed on the replica and on the {@link #PRIMARY}
+	 */
+	private <T> T await(CompletableFuture<T> future, String request) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Logger.gdL().logError("Could not read " + request + " from a replica nor from the primary");
+			Logger.gdL().logException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the healthy replica with the least outstanding requests and counts the new request, ties get broken randomly.
+	 *
+	 * @return the index of the replica or <code>-1</code> if no replica is healthy
+	 */
+	protected int chooseReplica() {
+		reads.incrementAndGet();
+		int best = -1, ties = 0;
+		for (int i = 0; i < REPLICAS.length; i++) {
+			if (!healthy[i].get() || !REPLICAS[i].isAvailable()) continue;
+			if (best < 0 || outstanding[i].get() < outstanding[best].get()) {
+				best = i;
+				ties = 1;
+			} else if (outstanding[i].get() == outstanding[best].get() && ThreadLocalRandom.current().nextInt(++ties) == 0) best = i;
+		}
+		if (best >= 0) outstanding[best].incrementAndGet();
+		return best;
+	}
+
+	/**
+	 * Counts the request on the replica as done when it completes and repeats it on the {@link #PRIMARY} if it failed on the replica.
+	 * Invalid arguments and timeouts are not repeated.
+	 */
+	private <T> CompletableFuture<T> withFallback(int replica, CompletableFuture<T> future, Supplier<CompletableFuture<T>> onPrimary) {
+		future.whenComplete((result, e) -> outstanding[replica].decrementAndGet());
+		return future.exceptionallyCompose(e -> {
+			Throwable cause = e instanceof CompletionException || e instanceof ExecutionException ? e.getCause() : e;
+			if (cause instanceof IllegalArgumentException || cause instanceof TimeoutException || cause instanceof TimeOutException || future.isCancelled())
+				return CompletableFuture.failedFuture(cause);
+			fallbacks.incrementAndGet();
+			return onPrimary.get();
+		});
+	}
+
+	private synchronized void startMonitor() {
+		if (monitor != null || REPLICAS.length == 0) return;
+		monitor = new ReplicaMonitor(checkPeriod);
+		monitor.start();
+	}
+
+	/**
+	 * Periodically checks every replica with <code>SELECT 1</code> and takes it out of or puts it back into the rotation.
+	 *
+	 * @author Cedric
+	 */
+	private class ReplicaMonitor extends Clock {
+
+		private ReplicaMonitor(long period) {
+			super(period / 1000f);
+			setName("ReplicaMonitor");
+			setDaemon(true);
+		}
+
+		@Override
+		public void tick(float delta) {
+			for (int i = 0; i < REPLICAS.length; i++) {
+				boolean ok;
+				try {
+					ok = REPLICAS[i].isRunning() && REPLICAS[i].executeSqlAsync("SELECT 1").get(CHECK_TIMEOUT, TimeUnit.MILLISECONDS) != null;
+				} catch (InterruptedException e) {
+					return;
+				} catch (ExecutionException | TimeoutException e) {
+					ok = false;
+				}
+				String replica = REPLICAS[i].DB_HOST + ":" + REPLICAS[i].DB_PORT;
+				if (ok) {
+					failures[i] = 0;
+					if (healthy[i].compareAndSet(false, true)) Logger.gdL().logInfo("The replica " + replica + " is healthy again and back in rotation");
+				} else if (++failures[i] >= MAX_FAILURES && healthy[i].compareAndSet(true, false)) {
+					Logger.gdL().logWarning("The replica " + replica + " failed " + failures[i] + " health-checks and got removed from rotation");
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,336 @@
+package utils.networking;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.rowset.CachedRowSet;
+
+import utils.io.Logger;
+
+/**
+ * Caches the results of read-only {@link Procedure Procedures} keyed by {@link Procedure} and arguments.</br>
+ * A result stays valid for {@link Procedure#CACHE_TTL} milliseconds. If the estimated size of all results exceeds {@link #MAX_BYTES}
+ * the least recently used ones get evicted. Procedures which change data declare in {@link Procedure#INVALIDATES} which cached results get dropped after they ran.</br></br>
+ *
+ * Results are stored as detached {@link CachedRowSet} and every caller gets its own {@link CachedRowSet#createCopy() copy}, so cursors never interfere.</br>
+ * To never store a result which was read before an invalidating write finished every {@link Procedure} has a {@link #getGeneration(Procedure) generation}
+ * which gets increased by {@link #invalidate(String)}. Results of an older generation are not stored.</br></br>
+ *
+ * With a {@link PersistentResultCache} every stored result also gets written to disk and results missing in memory get read from it,
+ * so the cache survives restarts.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public class ResultCache {
+
+	/**
+	 * Returned by {@link #get(Procedure, Object[])} if there is no valid result. <code>null</code> is a valid result.
+	 */
+	public static final Object MISS = new Object();
+
+	/**
+	 * The maximal estimated size of all cached results in bytes.
+	 */
+	public final long MAX_BYTES;
+
+	/**
+	 * The cached results in least-recently-used order.
+	 */
+	private final LinkedHashMap<Key, Entry> entries;
+	/**
+	 * The statistics and keys per {@link Procedure#NAME}.
+	 */
+	private final HashMap<String, Stats> stats;
+	/**
+	 * The estimated size of all cached results in bytes.
+	 */
+	private long bytes;
+	/**
+	 * The on-disk tier or <code>null</code>.
+	 */
+	private final PersistentResultCache disk;
+
+	/**
+	 * Creates a new {@link ResultCache} which only keeps the results in memory.
+	 *
+	 * @param maxBytes equals {@link #MAX_BYTES}
+	 */
+	public ResultCache(long maxBytes) {
+		this(maxBytes, null);
+	}
+
+	/**
+	 * Creates a new {@link ResultCache}.
+	 *
+	 * @param maxBytes equals {@link #MAX_BYTES}
+	 * @param disk the on-disk tier or <code>null</code>
+	 */
+	public ResultCache(long maxBytes, PersistentResultCache disk) {
+		this.MAX_BYTES = maxBytes;
+		this.disk = disk;
+		this.entries = new LinkedHashMap<Key, Entry>(64, 0.75f, true);
+		this.stats = new HashMap<String, Stats>();
+	}
+
+	/**
+	 * Returns a copy of the cached result of the given call.
+	 *
+	 * @param proc the called {@link Procedure}
+	 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments
+	 * @return the result or {@link #MISS}
+	 */
+	public Object get(Procedure proc, Object[] args) {
+		Entry entry;
+		long generation;
+		synchronized (this) {
+			Stats s = getStats(proc.NAME);
+			Key key = new Key(proc.NAME, args);
+			entry = entries.get(key);
+			if (entry != null && entry.EXPIRES_AT <= System.currentTimeMillis()) {
+				remove(key, entry);
+				entry = null;
+			}
+			if (entry == null && disk == null) {
+				s.misses++;
+				return MISS;
+			}
+			if (entry != null) s.hits++;
+			generation = s.generation;
+		}
+		try {
+			if (entry != null) return copy(entry.VALUE);
+			Object[] stored = disk.get(proc, args);
+			synchronized (this) {
+				Stats s = getStats(proc.NAME);
+				if (stored == null) {
+					s.misses++;
+					return MISS;
+				}
+				s.hits++;
+				s.diskHits++;
+			}
+			store(proc.NAME, args, stored[0], estimateSize(stored[0]), (Long) stored[1], generation);
+			return copy(stored[0]);
+		} catch (SQLException e) {
+			Logger.gdL().logException(e);
+			return MISS;
+		}
+	}
+
+	/**
+	 * Returns the current generation of the given {@link Procedure}. Take it before the {@link Procedure} gets executed and pass it to {@link #put(Procedure, Object[], Object, long)}.
+	 *
+	 * @param proc the {@link Procedure}
+	 * @return the generation
+	 */
+	public synchronized long getGeneration(Procedure proc) {
+		return getStats(proc.NAME).generation;
+	}
+
+	/**
+	 * Stores the result of the given call if the {@link Procedure} was not {@link #invalidate(String) invalidated} since <code>generation</code> was taken.
+	 *
+	 * @param proc the called {@link Procedure}
+	 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments
+	 * @param result the result of the call
+	 * @param generation the {@link #getGeneration(Procedure) generation} taken before the call
+	 * @return the result for the caller, the cache keeps its own copy
+	 * @throws SQLException if a {@link ResultSet} cannot be copied
+	 */
+	public Object put(Procedure proc, Object[] args, Object result, long generation) throws SQLException {
+		if (proc.CACHE_TTL <= 0 || (result instanceof ResultSet && !(result instanceof CachedRowSet))) return result;
+		Object stored = copy(result);
+		long expiresAt = System.currentTimeMillis() + proc.CACHE_TTL;
+		if (!store(proc.NAME, args, stored, estimateSize(stored), expiresAt, generation) || disk == null) return result;
+		disk.put(proc, args, stored, expiresAt);
+		synchronized (this) {
+			// Invalidated while it was written to disk
+			if (getStats(proc.NAME).generation != generation) disk.invalidate(proc.NAME);
+		}
+		return result;
+	}
+
+	/**
+	 * Puts the given result into memory if the {@link Procedure} was not invalidated since <code>generation</code> was taken and evicts the least recently used results if needed.
+	 *
+	 * @return <code>true</code> if it was stored
+	 */
+	private synchronized boolean store(String name, Object[] args, Object stored, long size, long expiresAt, long generation) {
+		Stats s = getStats(name);
+		if (size > MAX_BYTES || s.generation != generation) return false;
+		Key key = new Key(name, args);
+		Entry old = entries.get(key);
+		if (old != null) remove(key, old);
+		entries.put(key, new Entry(stored, size, expiresAt));
+		s.keys.add(key);
+		s.bytes += size;
+		bytes += size;
+		Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+		while (bytes > MAX_BYTES && it.hasNext()) {
+			Map.Entry<Key, Entry> eldest = it.next();
+			it.remove();
+			forget(eldest.getKey(), eldest.getValue());
+			stats.get(eldest.getKey().NAME).evictions++;
+		}
+		return true;
+	}
+
+	/**
+	 * Drops all cached results of the {@link Procedure} with the given name and prevents results of running calls from being stored.
+	 *
+	 * @param name the {@link Procedure#NAME} of the {@link Procedure}
+	 */
+	public synchronized void invalidate(String name) {
+		Stats s = getStats(name);
+		s.generation++;
+		s.invalidations++;
+		for (Key key : s.keys.toArray(new Key[s.keys.size()]))
+			remove(key, entries.get(key));
+		if (disk != null) disk.invalidate(name);
+	}
+
+	/**
+	 * Drops all cached results.
+	 */
+	public synchronized void clear() {
+		for (Stats s : stats.values()) {
+			s.generation++;
+			s.keys.clear();
+			s.bytes = 0;
+		}
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns the hit-ratio and the memory-use per {@link Procedure} as readable {@link String}.
+	 *
+	 * @return statistics for the logs
+	 */
+	public synchronized String getStatistics() {
+		StringBuilder builder = new StringBuilder("ResultCache: " + entries.size() + " results, " + bytes / 1024 + " of " + MAX_BYTES / 1024 + " KiB");
+		for (Map.Entry<String, Stats> e : stats.entrySet()) {
+			Stats s = e.getValue();
+			long calls = s.hits + s.misses;
+			builder.append(Logger.SEPERATOR + String.format("%1$-25s %2$s", "\t- " + e.getKey() + ":",
+					String.format("%.1f%% hits of %d (%d from disk), %d results, %d KiB, %d evicted, %d invalidated",
+							calls == 0 ? 0d : s.hits * 100d / calls, calls, s.diskHits, s.keys.size(), s.bytes / 1024, s.evictions, s.invalidations)));
+		}
+		if (disk != null) builder.append(Logger.SEPERATOR + disk.getStatistics());
+		return builder.toString();
+	}
+
+	private Stats getStats(String name) {
+		Stats s = stats.get(name);
+		if (s == null) stats.put(name, s = new Stats());
+		return s;
+	}
+
+	private void remove(Key key, Entry entry) {
+		if (entry == null) return;
+		entries.remove(key);
+		forget(key, entry);
+	}
+
+	private void forget(Key key, Entry entry) {
+		Stats s = stats.get(key.NAME);
+		s.keys.remove(key);
+		s.bytes -= entry.BYTES;
+		bytes -= entry.BYTES;
+	}
+
+	/**
+	 * Returns a copy of the given result which the caller may use freely.
+	 *
+	 * @param value a result of a {@link Procedure} or query
+	 * @return a copy for {@link CachedRowSet CachedRowSets} and byte-arrays, the value itself otherwise
+	 * @throws SQLException if a {@link CachedRowSet} cannot be copied
+	 */
+	static Object copy(Object value) throws SQLException {
+		if (value instanceof CachedRowSet) return ((CachedRowSet) value).createCopy();
+		if (value instanceof byte[]) return ((byte[]) value).clone();
+		return value;
+	}
+
+	/**
+	 * Estimates the memory used by the given result in bytes.
+	 */
+	private static long estimateSize(Object value) throws SQLException {
+		if (!(value instanceof CachedRowSet)) return 64 + estimateValue(value);
+		CachedRowSet set = (CachedRowSet) value;
+		int columns = set.getMetaData().getColumnCount();
+		long size = 256 + columns * 128;
+		set.beforeFirst();
+		while (set.next()) {
+			size += 64;
+			for (int i = 1; i <= columns; i++) size += estimateValue(set.getObject(i));
+		}
+		set.beforeFirst();
+		return size;
+	}
+
+	private static long estimateValue(Object value) {
+		if (value == null) return 8;
+		if (value instanceof String) return 40 + 2 * ((String) value).length();
+		if (value instanceof byte[]) return 16 + ((byte[]) value).length;
+		return 24;
+	}
+
+	/**
+	 * A call of a {@link Procedure} with its arguments.
+	 */
+	static final class Key {
+		final String NAME;
+		private final Object[] ARGS;
+		private final int HASH;
+
+		Key(String name, Object[] args) {
+			this.NAME = name;
+			this.ARGS = args.clone();
+			this.HASH = 31 * name.hashCode() + Arrays.deepHashCode(args);
+		}
+
+		@Override
+		public int hashCode() {
+			return HASH;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key k = (Key) o;
+			return HASH == k.HASH && NAME.equals(k.NAME) && Arrays.deepEquals(ARGS, k.ARGS);
+		}
+	}
+
+	/**
+	 * A cached result.
+	 */
+	private static final class Entry {
+		private final Object VALUE;
+		private final long BYTES;
+		private final long EXPIRES_AT;
+
+		private Entry(Object value, long bytes, long expiresAt) {
+			this.VALUE = value;
+			this.BYTES = bytes;
+			this.EXPIRES_AT = expiresAt;
+		}
+	}
+
+	/**
+	 * The statistics and the cached keys of one {@link Procedure}.
+	 */
+	private static final class Stats {
+		private final HashSet<Key> keys = new HashSet<Key>();
+		private long hits, misses, diskHits, evictions, invalidations, bytes, generation;
+	}
+}
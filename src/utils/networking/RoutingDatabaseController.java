@@ -0,0 +1,132 @@
+package utils.networking;
+
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import utils.io.Logger;
+
+/**
+ * Runs every {@link Procedure} on the data source named by its {@link Procedure#DATA_SOURCE}, every one with its own {@link DatabaseController}.</br>
+ * Every data source has its own connections, workers and timeouts, so slow calls like the ones of an analytics- or archive-Database
+ * cannot take the connections of the {@link #MAIN} Database. {@link Procedure Procedures} without data source and all SQL-Queries run on the {@link #MAIN} Database.</br>
+ * A {@link Procedure} assigned to a data source which is not configured gets rejected with an {@link IllegalStateException} instead of running on the wrong Database.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public class RoutingDatabaseController implements DatabaseController {
+
+	/**
+	 * The controller of the main Database.
+	 */
+	public final DatabaseController MAIN;
+	/**
+	 * The controllers of the further data sources by name.
+	 */
+	public final Map<String, DatabaseController> SOURCES;
+
+	/**
+	 * Creates a new {@link RoutingDatabaseController}. The controllers have to be started already.
+	 *
+	 * @param main equals {@link #MAIN}
+	 * @param sources equals {@link #SOURCES}
+	 */
+	public RoutingDatabaseController(DatabaseController main, Map<String, DatabaseController> sources) {
+		if (main == null || sources == null) throw new IllegalArgumentException("Illogical arguments for the RoutingDatabaseController");
+		this.MAIN = main;
+		this.SOURCES = Collections.unmodifiableMap(new LinkedHashMap<String, DatabaseController>(sources));
+	}
+
+	@Override
+	public boolean isRunning() {
+		return MAIN.isRunning();
+	}
+
+	@Override
+	public boolean isReady() {
+		if (!MAIN.isReady()) return false;
+		for (DatabaseController source : SOURCES.values())
+			if (!source.isReady()) return false;
+		return true;
+	}
+
+	@Override
+	public synchronized void start() {
+		MAIN.start();
+		for (DatabaseController source : SOURCES.values())
+			source.start();
+	}
+
+	@Override
+	public synchronized void stop() {
+		for (DatabaseController source : SOURCES.values())
+			source.stop();
+		MAIN.stop();
+	}
+
+	@Override
+	public Object callProc(Procedure proc, Object...args) {
+		return getSource(proc).callProc(proc, args);
+	}
+
+	@Override
+	public void callNoRetSql(Procedure proc, Object...args) {
+		getSource(proc).callNoRetSql(proc, args);
+	}
+
+	@Override
+	public ResultSet executeSql(String query) {
+		return MAIN.executeSql(query);
+	}
+
+	@Override
+	public void executeNoRetSql(String query) {
+		MAIN.executeNoRetSql(query);
+	}
+
+	@Override
+	public CompletableFuture<Object> callProcAsync(Executor executor, Procedure proc, Object...args) {
+		return callUserProcAsync(null, NO_DEADLINE, executor, proc, args);
+	}
+
+	@Override
+	public CompletableFuture<Object> callUserProcAsync(String user, long deadline, Executor executor, Procedure proc, Object...args) {
+		try {
+			return getSource(proc).callUserProcAsync(user, deadline, executor, proc, args);
+		} catch (IllegalStateException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> executeSqlAsync(String query, Executor executor) {
+		return MAIN.executeSqlAsync(query, executor);
+	}
+
+	@Override
+	public String getStatistics() {
+		StringBuilder builder = new StringBuilder("Main Database:" + Logger.SEPERATOR + MAIN.getStatistics());
+		for (Map.Entry<String, DatabaseController> source : SOURCES.entrySet())
+			builder.append(Logger.SEPERATOR + "Data source " + source.getKey() + ":" + Logger.SEPERATOR + source.getValue().getStatistics());
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the controller of the data source of the given {@link Procedure}.
+	 *
+	 * @param proc the called {@link Procedure} or <code>null</code>
+	 * @return the controller, {@link #MAIN} if the {@link Procedure} has no {@link Procedure#DATA_SOURCE}
+	 * @throws IllegalStateException if the {@link Procedure#DATA_SOURCE} is not configured
+	 */
+	private DatabaseController getSource(Procedure proc) {
+		if (proc == null || proc.DATA_SOURCE == null) return MAIN;
+		DatabaseController source = SOURCES.get(proc.DATA_SOURCE);
+		if (source == null) throw new IllegalStateException(proc.NAME + " runs on the unknown data source " + proc.DATA_SOURCE);
+		return source;
+	}
+}
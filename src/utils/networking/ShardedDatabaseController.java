@@ -0,0 +1,320 @@
+package utils.networking;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+
+import utils.io.Logger;
+
+/**
+ * Spreads the data over several Databases, the shards, every one with its own {@link DatabaseController}.</br>
+ * Every call runs on the shard of its shard-key which is the argument selected by {@link Procedure#SHARD_KEY} or the name of the calling User.
+ * The keys get mapped to the shards by consistent hashing: every shard owns {@link #VIRTUAL_NODES} points on a ring of 64-bit hashes
+ * and a key belongs to the shard of the next point. Adding a shard only moves about <code>1/n</code> of the keys.
+ * The points depend on the index of a shard, so new shards have to be appended.</br></br>
+ *
+ * {@link Procedure Procedures} with {@link Procedure#SHARD_ALL} run on every shard and the results get merged:
+ * the rows of {@link ResultSet ResultSets} get concatenated and numbers get summed up, other scalar results are taken from the first shard.
+ * Calls without shard-key and SQL-Queries run on the first shard, the home shard.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public class ShardedDatabaseController implements DatabaseController {
+
+	/**
+	 * Creates the {@link CachedRowSet CachedRowSets} the merged results get copied into.
+	 */
+	private static final RowSetFactory ROW_SET_FACTORY;
+
+	static {
+		try {
+			ROW_SET_FACTORY = RowSetProvider.newFactory();
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The controllers of the shards. The first one is the home shard.
+	 */
+	public final DatabaseController[] SHARDS;
+	/**
+	 * The names of the shards for the logs.
+	 */
+	public final String[] NAMES;
+	/**
+	 * The amount of points every shard owns on the ring.
+	 */
+	public final int VIRTUAL_NODES;
+
+	/**
+	 * The sorted hashes of the points on the ring.
+	 */
+	private final long[] ring;
+	/**
+	 * The index of the shard owning the point at the same position in {@link #ring}.
+	 */
+	private final int[] owners;
+	/**
+	 * The calls routed to every shard.
+	 */
+	private final AtomicLong[] routed;
+	/**
+	 * Statistics.
+	 */
+	private final AtomicLong scattered, unkeyed;
+
+	/**
+	 * Creates a new {@link ShardedDatabaseController}. The controllers have to be started already.
+	 *
+	 * @param shards equals {@link #SHARDS}
+	 * @param names equals {@link #NAMES}
+	 * @param virtualNodes equals {@link #VIRTUAL_NODES}
+	 */
+	public ShardedDatabaseController(DatabaseController[] shards, String[] names, int virtualNodes) {
+		if (shards == null || shards.length == 0 || names == null || names.length != shards.length || virtualNodes < 1)
+			throw new IllegalArgumentException("Illogical arguments for the ShardedDatabaseController");
+		this.SHARDS = shards.clone();
+		this.NAMES = names.clone();
+		this.VIRTUAL_NODES = virtualNodes;
+		this.routed = new AtomicLong[shards.length];
+		for (int i = 0; i < shards.length; i++)
+			routed[i] = new AtomicLong();
+		this.scattered = new AtomicLong();
+		this.unkeyed = new AtomicLong();
+
+		// Every point is the hash and the owner packed into a long-pair so both get sorted together
+		long[][] points = new long[shards.length * virtualNodes][];
+		for (int shard = 0; shard < shards.length; shard++)
+			for (int node = 0; node < virtualNodes; node++)
+				points[shard * virtualNodes + node] = new long[] {hash("shard-" + shard + "#" + node), shard};
+		Arrays.sort(points, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+		this.ring = new long[points.length];
+		this.owners = new int[points.length];
+		for (int i = 0; i < points.length; i++) {
+			ring[i] = points[i][0];
+			owners[i] = (int) points[i][1];
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		for (DatabaseController shard : SHARDS)
+			if (!shard.isRunning()) return false;
+		return true;
+	}
+
+	@Override
+	public boolean isReady() {
+		for (DatabaseController shard : SHARDS)
+			if (!shard.isReady()) return false;
+		return true;
+	}
+
+	@Override
+	public synchronized void start() {
+		for (DatabaseController shard : SHARDS)
+			shard.start();
+	}
+
+	@Override
+	public synchronized void stop() {
+		for (DatabaseController shard : SHARDS)
+			shard.stop();
+	}
+
+	@Override
+	public Object callProc(Procedure proc, Object...args) {
+		if (proc == null) return null;
+		if (proc.SHARD_KEY != Procedure.SHARD_ALL) return SHARDS[route(proc, null, args)].callProc(proc, args);
+		// A shard which fails has to fail the whole call instead of leaving its rows out
+		try {
+			return callUserProcAsync(null, NO_DEADLINE, null, proc, args).join();
+		} catch (CompletionException | CancellationException e) {
+			Logger.gdL().logError("Could not call " + proc.NAME + " on all shards");
+			Logger.gdL().logException(e.getCause() == null ? e : e.getCause());
+			return null;
+		}
+	}
+
+	@Override
+	public void callNoRetSql(Procedure proc, Object...args) {
+		if (proc == null) return;
+		if (proc.SHARD_KEY != Procedure.SHARD_ALL) {
+			SHARDS[route(proc, null, args)].callNoRetSql(proc, args);
+			return;
+		}
+		scattered.incrementAndGet();
+		for (DatabaseController shard : SHARDS)
+			shard.callNoRetSql(proc, args);
+	}
+
+	@Override
+	public ResultSet executeSql(String query) {
+		routed[0].incrementAndGet();
+		return SHARDS[0].executeSql(query);
+	}
+
+	@Override
+	public void executeNoRetSql(String query) {
+		routed[0].incrementAndGet();
+		SHARDS[0].executeNoRetSql(query);
+	}
+
+	@Override
+	public CompletableFuture<Object> callProcAsync(Executor executor, Procedure proc, Object...args) {
+		return callUserProcAsync(null, NO_DEADLINE, executor, proc, args);
+	}
+
+	@Override
+	public CompletableFuture<Object> callUserProcAsync(String user, long deadline, Executor executor, Procedure proc, Object...args) {
+		if (proc == null) return CompletableFuture.completedFuture(null);
+		if (proc.SHARD_KEY != Procedure.SHARD_ALL) {
+			try {
+				return SHARDS[route(proc, user, args)].callUserProcAsync(user, deadline, executor, proc, args);
+			} catch (IllegalArgumentException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		scattered.incrementAndGet();
+		List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>(SHARDS.length);
+		for (DatabaseController shard : SHARDS)
+			futures.add(shard.callUserProcAsync(user, deadline, proc, args));
+		CompletableFuture<Object> merged = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> {
+			Object[] results = new Object[futures.size()];
+			for (int i = 0; i < results.length; i++)
+				results[i] = futures.get(i).join();
+			try {
+				return merge(results);
+			} catch (SQLException e) {
+				throw new CompletionException(e);
+			}
+		});
+		CompletableFuture<Object> result = executor == null ? merged : merged.thenApplyAsync(r -> r, executor);
+		// Cancelling the merged call removes the calls which did not run yet from the queues of the shards
+		result.whenComplete((r, e) -> {
+			if (result.isCancelled()) for (CompletableFuture<Object> future : futures) future.cancel(false);
+		});
+		return result;
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> executeSqlAsync(String query, Executor executor) {
+		routed[0].incrementAndGet();
+		return SHARDS[0].executeSqlAsync(query, executor);
+	}
+
+	@Override
+	public String getStatistics() {
+		StringBuilder builder = new StringBuilder("ShardedDatabaseController: " + SHARDS.length + " shards with " + VIRTUAL_NODES + " virtual nodes each" + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Scattered:", scattered.get()) + Logger.SEPERATOR
+				+ String.format("%1$-20s %2$s", "\t- Without key:", unkeyed.get()));
+		for (int i = 0; i < SHARDS.length; i++)
+			builder.append(Logger.SEPERATOR + String.format("%1$-20s %2$s", "\t- Shard " + i + ":", NAMES[i] + ", " + routed[i].get() + " routed"));
+		for (int i = 0; i < SHARDS.length; i++)
+			builder.append(Logger.SEPERATOR + "Shard " + i + ":" + Logger.SEPERATOR + SHARDS[i].getStatistics());
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the shard the given key belongs to.
+	 *
+	 * @param key the shard-key or <code>null</code>
+	 * @return the index of the shard in {@link #SHARDS}, <code>0</code> for <code>null</code>
+	 */
+	public int getShard(String key) {
+		if (key == null) return 0;
+		int i = Arrays.binarySearch(ring, hash(key));
+		if (i < 0) i = -i - 1;
+		return owners[i == ring.length ? 0 : i];
+	}
+
+	/**
+	 * Selects the shard of a call which does not run on every shard and counts it.
+	 *
+	 * @throws IllegalArgumentException if the arguments do not match the {@link Procedure#PARAM_TYPES}
+	 */
+	private int route(Procedure proc, String user, Object[] args) {
+		String key = user;
+		if (proc.SHARD_KEY >= 0) {
+			// Converted first, so "007" and "7" end up on the same shard
+			Object arg = proc.convertArguments(args)[proc.SHARD_KEY];
+			key = arg instanceof byte[] ? Arrays.toString((byte[]) arg) : arg == null ? null : arg.toString();
+		}
+		if (key == null) unkeyed.incrementAndGet();
+		int shard = getShard(key);
+		routed[shard].incrementAndGet();
+		return shard;
+	}
+
+	/**
+	 * Merges the results of a {@link Procedure} which ran on every shard.
+	 *
+	 * @param results the result of every shard
+	 * @return the concatenated rows, the sum of numbers or the first non-null result
+	 * @throws SQLException if the rows cannot be copied
+	 */
+	private static Object merge(Object[] results) throws SQLException {
+		Object merged = null;
+		for (Object result : results) {
+			if (result == null) continue;
+			if (merged == null) {
+				if (!(result instanceof ResultSet)) merged = result;
+				else {
+					CachedRowSet rows = ROW_SET_FACTORY.createCachedRowSet();
+					rows.populate((ResultSet) result);
+					merged = rows;
+				}
+			} else if (merged instanceof CachedRowSet) {
+				CachedRowSet rows = (CachedRowSet) merged;
+				ResultSet set = (ResultSet) result;
+				int columns = set.getMetaData().getColumnCount();
+				while (set.next()) {
+					rows.moveToInsertRow();
+					for (int i = 1; i <= columns; i++)
+						rows.updateObject(i, set.getObject(i));
+					rows.insertRow();
+					rows.moveToCurrentRow();
+				}
+			} else if (merged instanceof BigDecimal) merged = ((BigDecimal) merged).add((BigDecimal) result);
+			else if (merged instanceof Double || merged instanceof Float) merged = ((Number) merged).doubleValue() + ((Number) result).doubleValue();
+			else if (merged instanceof Number) merged = ((Number) merged).longValue() + ((Number) result).longValue();
+			else break;
+		}
+		// The inserted rows never get written back, they are only read like the populated ones
+		if (merged instanceof CachedRowSet) ((CachedRowSet) merged).beforeFirst();
+		return merged;
+	}
+
+	/**
+	 * Hashes the given key with 64-bit FNV-1a and the finalizer of MurmurHash3, so similar keys spread over the whole ring.
+	 */
+	private static long hash(String key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
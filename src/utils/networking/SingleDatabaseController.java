@@ -1,11 +1,24 @@
 package utils.networking;
 
+import java.net.SocketTimeoutException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
 
 import utils.io.ConfigAdapter;
 import utils.io.Logger;
@@ -34,7 +47,35 @@ public class SingleDatabaseController {
 	// **********
 	private long timeout;
 	private Connection con;
-	private Exception thrownException;
+	/**
+	 * The time in milliseconds the {@link #con} got established.
+	 */
+	private volatile long connectedAt;
+	/**
+	 * The time in milliseconds the {@link #con} was used the last time.
+	 */
+	private volatile long lastUsed;
+	/**
+	 * The prepared statements of the {@link #con} in least-recently-used order, keyed by SQL-text or by {@link Procedure} and amount of arguments.
+	 * The eldest statement gets closed if there are more than {@link #STATEMENT_CACHE_SIZE}.
+	 */
+	private final LinkedHashMap<String, PreparedStatement> statements;
+	/**
+	 * The amount of executions which could reuse a statement of the {@link #statements} and which had to prepare a new one.
+	 */
+	private volatile long statementHits, statementMisses;
+	/**
+	 * The absolute time in milliseconds the running call has to be finished or <code>0</code> to only use the {@link #timeout} (see {@link #setDeadline(long)}).
+	 */
+	private long deadline;
+	/**
+	 * The statement which is executed right now or <code>null</code>. Guarded by {@link #cancelLock} so {@link #cancel()} can reach it from another {@link Thread}.
+	 */
+	private Statement running;
+	/**
+	 * Guards {@link #running}. It is never held while waiting for the monitor of this {@link SingleDatabaseController}.
+	 */
+	private final Object cancelLock = new Object();
 
 	// *********************
 	// * Public Attributes *
@@ -47,9 +88,23 @@ public class SingleDatabaseController {
 	public final String CONNECTION_DETAILS;
 	
 	public final static String DEFAULT_CONNECTION_ARGUMENTS;
+	/**
+	 * The maximal amount of prepared statements kept open per connection.
+	 */
+	public final static int STATEMENT_CACHE_SIZE;
+	/**
+	 * Creates the {@link CachedRowSet CachedRowSets} results get copied into before they are returned.
+	 */
+	private final static RowSetFactory ROW_SET_FACTORY;
 	
 	static {
 		DEFAULT_CONNECTION_ARGUMENTS = ConfigAdapter.getDefaultConfig().getConfigString("dbDefaultConnectionArguments");
+		STATEMENT_CACHE_SIZE = Integer.parseInt(ConfigAdapter.getDefaultConfig().getConfigString("dbStatementCacheSize"));
+		try {
+			ROW_SET_FACTORY = RowSetProvider.newFactory();
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
 	}
 
 	// ****************
@@ -130,6 +185,16 @@ public class SingleDatabaseController {
 		this.DATABASE_NAME = databaseName;
 		if (connectionArgs == null) CONNECTION_DETAILS = "jdbc:mysql://" + host + ":" + port + "/" + databaseName + DEFAULT_CONNECTION_ARGUMENTS;
 		else CONNECTION_DETAILS = "jdbc:mysql://" + host + ":" + port + "/" + databaseName + connectionArgs;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() <= STATEMENT_CACHE_SIZE) return false;
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+		};
 	}
 
 	// *******************
@@ -137,8 +202,124 @@ public class SingleDatabaseController {
 	// *******************
 
 	/**
-	 * Internal method for connecting to the Database.</br>
-	 * Please use an own {@link Thread} for connecting as it may take up to 20 sec.</br></br>
+	 * Closes the given statement and logs errors instead of throwing them.
+	 */
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			Logger.gdL().logWarning("Could not close a cached statement");
+			Logger.gdL().logException(e);
+		}
+	}
+	
+	/**
+	 * Closes all {@link #statements}.
+	 */
+	private void closeStatements() {
+		for (Iterator<PreparedStatement> it = statements.values().iterator(); it.hasNext();) {
+			closeQuietly(it.next());
+			it.remove();
+		}
+	}
+	
+	/**
+	 * Returns the cached statement for the given key or prepares a new one with the SQL-text built by <code>sql</code>.
+	 * 
+	 * @param key identifies the statement in the {@link #statements}
+	 * @param sql the SQL-text, only evaluated if the statement is not cached
+	 * @param call whether the statement calls a procedure
+	 * @return an open statement with cleared parameters
+	 * @throws SQLException if the statement cannot be prepared
+	 */
+	private PreparedStatement prepare(String key, Supplier<String> sql, boolean call) throws SQLException {
+		PreparedStatement statement = statements.get(key);
+		if (statement != null && !statement.isClosed()) {
+			statementHits++;
+			statement.clearParameters();
+			return statement;
+		}
+		statementMisses++;
+		statement = call ? con.prepareCall(sql.get()) : con.prepareStatement(sql.get());
+		statements.put(key, statement);
+		return statement;
+	}
+	
+	/**
+	 * Executes the given statement with the time left until the {@link #deadline} as query-timeout, so the time a call waited in a queue is subtracted.
+	 * While it runs it can be stopped by {@link #cancel()}.
+	 * 
+	 * @param statement the prepared statement with bound parameters
+	 * @throws SQLTimeoutException if the {@link #deadline} already passed
+	 * @throws SQLException if the execution fails or got cancelled
+	 */
+	private void execute(PreparedStatement statement) throws SQLException {
+		execute(statement, false);
+	}
+	
+	/**
+	 * Executes the given statement or its batch like {@link #execute(PreparedStatement)}.
+	 * 
+	 * @param statement the statement with bound parameters or added batch
+	 * @param batch whether to execute the batch of the statement
+	 * @return the update-counts of the batch or <code>null</code> if <code>batch</code> is <code>false</code>
+	 * @throws SQLTimeoutException if the {@link #deadline} already passed
+	 * @throws SQLException if the execution fails or got cancelled
+	 */
+	private int[] execute(Statement statement, boolean batch) throws SQLException {
+		long left = deadline > 0 ? deadline - System.currentTimeMillis() : Long.MAX_VALUE;
+		if (left <= 0) throw new SQLTimeoutException("The deadline passed before the statement was executed");
+		long limit = timeout > 0 ? Math.min(timeout, left) : left;
+		// JDBC only knows whole seconds and 0 means no limit. Rounded up, the exact deadline is kept by cancel()
+		statement.setQueryTimeout(limit == Long.MAX_VALUE ? 0 : (int) Math.min(Integer.MAX_VALUE, (limit + 999) / 1000));
+		synchronized (cancelLock) {
+			running = statement;
+		}
+		try {
+			if (batch) return statement.executeBatch();
+			((PreparedStatement) statement).execute();
+			return null;
+		} finally {
+			synchronized (cancelLock) {
+				running = null;
+			}
+		}
+	}
+	
+	/**
+	 * Copies the given result into a {@link CachedRowSet} and closes it, so it stays readable when the statement gets executed again.
+	 * 
+	 * @param set the result of a cached statement
+	 * @return a detached copy of the result or <code>null</code> if <code>set</code> is <code>null</code>
+	 * @throws SQLException if the result cannot be read
+	 */
+	private static ResultSet detach(ResultSet set) throws SQLException {
+		if (set == null) return null;
+		try {
+			CachedRowSet rowSet = ROW_SET_FACTORY.createCachedRowSet();
+			rowSet.populate(set);
+			return rowSet;
+		} finally {
+			set.close();
+		}
+	}
+	
+	/**
+	 * Returns whether the given exception was caused by a timeout of the network.
+	 */
+	private static boolean isTimeout(Throwable e) {
+		for (; e != null; e = e.getCause())
+			if (e instanceof SocketTimeoutException || e instanceof SQLTimeoutException) return true;
+		return false;
+	}
+	
+	// ******************
+	// * Public Methods *
+	// ******************
+
+	/**
+	 * Connects to the Database in the calling {@link Thread}.</br>
+	 * The driver gives up after {@link #timeout} milliseconds, so set the timeout with {@link #setTimeout(long)} first.</br></br>
 	 * <i><b>Note:</b></br>
 	 * This method needs a JDBC Controller installed to run. If there is no Controller there cannot be established a Connection.</i>
 	 *
@@ -148,57 +329,31 @@ public class SingleDatabaseController {
 	 * @throws InstantiationException Gets thrown if SQL-Driver couldn't be loaded or is not installed
 	 * @throws TimeOutException Gets thrown if host does not answer
 	 */
-	private void connect() throws SQLException, ClassNotFoundException, InstantiationException, IllegalAccessException, TimeOutException {
-		thrownException = null;
+	public synchronized void connect() throws SQLException, ClassNotFoundException, InstantiationException, IllegalAccessException, TimeOutException {
 		// You will need a JDBC Controller
 		Class.forName("com.mysql.cj.jdbc.Driver").newInstance();
-		Object lock = new Object();
-		
-		Thread connectingThread = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					// TODO: Show password-Hash
-					Logger.gdL().logInfo("Trying to bind Server to Database '" + DATABASE_NAME + "' (" + CONNECTION_DETAILS + " with usr: " + USR + ")");
-					con = DriverManager.getConnection(CONNECTION_DETAILS, USR, PWD);
-					Logger.gdL().logInfo("Successfully connected to Database '" + DATABASE_NAME + "'");
-				} catch (SQLException exception) {
-					thrownException = exception;
-				} finally {
-					synchronized(lock) {
-						lock.notifyAll();
-					}
-				}
-			}
-		});
-		
-		connectingThread.start();
-		
-		synchronized(lock) {
-			try {
-				lock.wait(timeout);
-				Thread.sleep(100);						// Ensures that Thread really dies.
-				if (connectingThread.isAlive()) {
-					Logger.gdL().logError("Connection to Database '" + DATABASE_NAME + "' failed");
-					connectingThread.interrupt();
-					throw new TimeOutException("It took longer than " + (int)(timeout/1000) + " seconds to establish a Connection");
-				}
-			} catch (InterruptedException e) {
-				Logger.gdL().logWarning("Something interrupted the waiting... The Server may behave differently");
-				Logger.gdL().logException(e);
-			}
+		Properties properties = new Properties();
+		properties.setProperty("user", USR);
+		properties.setProperty("password", PWD);
+		properties.setProperty("connectTimeout", Long.toString(timeout));
+		// TODO: Show password-Hash
+		Logger.gdL().logInfo("Trying to bind Server to Database '" + DATABASE_NAME + "' (" + CONNECTION_DETAILS + " with usr: " + USR + ")");
+		// Statements of an old connection cannot be reused
+		closeStatements();
+		try {
+			con = DriverManager.getConnection(CONNECTION_DETAILS, properties);
+		} catch (SQLException e) {
+			if (!isTimeout(e)) throw e;
+			Logger.gdL().logError("Connection to Database '" + DATABASE_NAME + "' failed");
+			throw new TimeOutException("It took longer than " + (int)(timeout/1000) + " seconds to establish a Connection", e);
 		}
-		
-		if (thrownException instanceof SQLException) throw (SQLException) thrownException;
+		connectedAt = lastUsed = System.currentTimeMillis();
+		Logger.gdL().logInfo("Successfully connected to Database '" + DATABASE_NAME + "'");
 	}
 
-	
-	// ******************
-	// * Public Methods *
-	// ******************
-
 	/**
-	 * Executes given SQL-queries and returns the result in a {@link ResultSet}.
+	 * Executes given SQL-queries and returns the result in a {@link ResultSet}.</br>
+	 * The statement stays {@link #statements cached} for the next execution of the same query and the result is a detached {@link CachedRowSet}.
 	 *
 	 * @param query The SQL-query which gets executed
 	 * @return the result of that SQL-query
@@ -210,16 +365,19 @@ public class SingleDatabaseController {
 	 */
 	public synchronized ResultSet executeSQL(String query) throws SQLException, ClassNotFoundException, InstantiationException, IllegalAccessException, TimeOutException {
 		if (!isConnected()) connect();
-		Statement st = con.createStatement();
-		st.setQueryTimeout((int) timeout / 1000);
-		return st.executeQuery(query);
+		PreparedStatement st = prepare(query, () -> query, false);
+		lastUsed = System.currentTimeMillis();
+		execute(st);
+		return detach(st.getResultSet());
 	}
 	
 	/**
+	 * Calls the given {@link Procedure} with the given arguments.</br>
+	 * The {@link CallableStatement} stays {@link #statements cached} per {@link Procedure} and amount of arguments and the result is a detached {@link CachedRowSet}.
 	 * 
-	 * @param proc
-	 * @param args
-	 * @return
+	 * @param proc the {@link Procedure} to call
+	 * @param args the arguments for the {@link Procedure}
+	 * @return the first result of the {@link Procedure} or <code>null</code> if it has none
 	 * @throws SQLException
 	 * @throws ClassCastException
 	 * @throws NumberFormatException
@@ -227,16 +385,103 @@ public class SingleDatabaseController {
 	 * @throws IndexOutOfBoundsException
 	 */
 	public synchronized ResultSet executeResultSetProcedure(Procedure proc, Object...args) throws SQLException, ClassCastException, NumberFormatException, NullPointerException, IndexOutOfBoundsException {
+		PreparedStatement call = prepare("CALL " + proc.NAME + "/" + args.length, () -> getCall(proc, args.length), true);
+		bindArguments(call, 1, proc, args);
+		lastUsed = System.currentTimeMillis();
+		execute(call);
+		return detach(call.getResultSet());
+	}
+	
+	/**
+	 * Calls the given {@link Procedure} once for every entry of <code>calls</code> in one batch, so all calls share one round trip.</br>
+	 * The {@link CallableStatement} is the same {@link #statements cached} one {@link #executeResultSetProcedure(Procedure, Object...)} uses.
+	 * Only use this for {@link Procedure Procedures} without results.
+	 * 
+	 * @param proc the {@link Procedure} to call
+	 * @param calls the {@link Procedure#convertArguments(Object...) converted} arguments of every call, all of the same length
+	 * @return the update-counts of the calls
+	 * @throws java.sql.BatchUpdateException if one of the calls fails
+	 * @throws SQLException if the batch cannot be executed
+	 */
+	public synchronized int[] executeProcedureBatch(Procedure proc, List<Object[]> calls) throws SQLException {
+		int count = calls.get(0).length;
+		PreparedStatement call = prepare("CALL " + proc.NAME + "/" + count, () -> getCall(proc, count), true);
+		try {
+			for (Object[] args : calls) {
+				bindArguments(call, 1, proc, args);
+				call.addBatch();
+			}
+			lastUsed = System.currentTimeMillis();
+			return execute(call, true);
+		} finally {
+			call.clearBatch();
+		}
+	}
+	
+	/**
+	 * Executes the given SQL-queries in one batch, so all of them share one round trip. They run in the given order.</br>
+	 * Only use this for queries without results.
+	 * 
+	 * @param queries the SQL-queries to execute
+	 * @return the update-counts of the queries
+	 * @throws java.sql.BatchUpdateException if one of the queries fails
+	 * @throws SQLException if the batch cannot be executed
+	 * @throws ClassNotFoundException Gets thrown if SQL-Driver couldn't be loaded
+	 * @throws IllegalAccessException Gets thrown if SQL-Driver couldn't be loaded
+	 * @throws InstantiationException Gets thrown if SQL-Driver couldn't be loaded
+	 * @throws TimeOutException Gets thrown if host does not answer
+	 */
+	public synchronized int[] executeSQLBatch(List<String> queries) throws SQLException, ClassNotFoundException, InstantiationException, IllegalAccessException, TimeOutException {
+		if (!isConnected()) connect();
+		try (Statement st = con.createStatement()) {
+			for (String query : queries)
+				st.addBatch(query);
+			lastUsed = System.currentTimeMillis();
+			return execute(st, true);
+		}
+	}
+	
+	/**
+	 * Returns the SQL-text calling the given {@link Procedure} with the given amount of arguments.
+	 */
+	private static String getCall(Procedure proc, int count) {
 		StringBuilder b = new StringBuilder();
-		if (args.length > 0) b.append("(");
-		for (int i = 0; i < args.length-1; i++) b.append("?, ");
-		if (args.length > 0) b.append("?)");
-		CallableStatement call = con.prepareCall("{CALL " + proc.NAME + b.toString() + "}");
+		if (count > 0) b.append("(");
+		for (int i = 0; i < count-1; i++) b.append("?, ");
+		if (count > 0) b.append("?)");
+		return "{CALL " + proc.NAME + b.toString() + "}";
+	}
+	
+	/**
+	 * Calls the given scalar {@link Procedure} as <code>{? = CALL name(...)}</code> and reads the result as out-parameter with the getter of its {@link Procedure#RETURN type},
+	 * so no {@link ResultSet} gets created.
+	 * 
+	 * @param proc the scalar {@link Procedure} to call
+	 * @param args the {@link Procedure#convertArguments(Object...) converted} arguments for the {@link Procedure}
+	 * @return the result of the {@link Procedure}
+	 * @throws SQLException if the call fails
+	 */
+	public synchronized Object executeScalarProcedure(Procedure proc, Object...args) throws SQLException {
+		CallableStatement call = (CallableStatement) prepare("? = CALL " + proc.NAME + "/" + args.length, () -> {
+			StringBuilder b = new StringBuilder("(");
+			for (int i = 0; i < args.length; i++) b.append(i == 0 ? "?" : ", ?");
+			return "{? = CALL " + proc.NAME + b.append(")").toString() + "}";
+		}, true);
+		call.registerOutParameter(1, proc.RETURN.TYPE);
+		bindArguments(call, 2, proc, args);
+		lastUsed = System.currentTimeMillis();
+		execute(call);
+		return proc.RETURN.read(call, 1);
+	}
+	
+	/**
+	 * Binds the given arguments with the setters of the {@link Procedure#PARAM_TYPES}.</br>
+	 * Arguments of procedures without declared types get bound with {@link PreparedStatement#setObject(int, Object)}.
+	 */
+	private static void bindArguments(PreparedStatement call, int first, Procedure proc, Object[] args) throws SQLException {
 		for (int i = 0; i < args.length; i++)
-			call.setObject(i + 1, args[i]);
-		call.setQueryTimeout((int)timeout/1000);
-		call.execute();
-		return call.getResultSet();
+			if (i < proc.PARAM_TYPES.length) proc.PARAM_TYPES[i].bind(call, first + i, args[i]);
+			else call.setObject(first + i, args[i]);
 	}
 	
 	/**
@@ -251,14 +496,98 @@ public class SingleDatabaseController {
 	}
 
 	/**
-	 * Closes the {@link Connection} {@link #con} to the Database.
+	 * Asks the Database whether the {@link Connection} {@link #con} still works.</br>
+	 * Unlike {@link #isConnected()} this also detects connections the Database closed on its own, e.g. after MySQL's <code>wait_timeout</code>.
+	 *
+	 * @param seconds time to wait for the answer of the Database
+	 * @return whether the connection still works
+	 */
+	public synchronized boolean isValid(int seconds) {
+		try {
+			if (con == null || !con.isValid(seconds)) return false;
+			lastUsed = System.currentTimeMillis();
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns the time in milliseconds the connection got established.
+	 * 
+	 * @return {@link #connectedAt}
+	 */
+	public long getConnectedAt() {
+		return connectedAt;
+	}
+	
+	/**
+	 * Returns the time in milliseconds the connection was used or {@link #isValid(int) validated} the last time.
+	 * 
+	 * @return {@link #lastUsed}
+	 */
+	public long getLastUsed() {
+		return lastUsed;
+	}
+
+	/**
+	 * Returns how often a cached statement could be reused.
+	 * 
+	 * @return {@link #statementHits}
+	 */
+	public long getStatementHits() {
+		return statementHits;
+	}
+	
+	/**
+	 * Returns how often a new statement had to be prepared.
+	 * 
+	 * @return {@link #statementMisses}
+	 */
+	public long getStatementMisses() {
+		return statementMisses;
+	}
+
+	/**
+	 * Closes all cached {@link #statements} and the {@link Connection} {@link #con} to the Database.
 	 *
 	 * @throws SQLException Gets throws if an error occurs while disconnecting
 	 */
 	public synchronized void disconnect() throws SQLException {
+		closeStatements();
 		con.close();
 	}
 	
+	/**
+	 * Sets the absolute time in milliseconds the next calls have to be finished. The query-timeout of every call is the time left until then.
+	 * 
+	 * @param deadline the time in milliseconds or <code>0</code> to only use the {@link #timeout}
+	 */
+	public synchronized void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+	
+	/**
+	 * Cancels the statement which is executed right now, e.g. because its caller gave up. The connection stays usable.</br>
+	 * This may be called from any {@link Thread} and does not wait for the running call.
+	 * 
+	 * @return <code>true</code> if a running statement got cancelled
+	 */
+	public boolean cancel() {
+		synchronized (cancelLock) {
+			if (running == null) return false;
+			try {
+				// Held until the cancel is done, so it cannot hit the next statement of this connection
+				running.cancel();
+				return true;
+			} catch (SQLException e) {
+				Logger.gdL().logWarning("Could not cancel a running statement");
+				Logger.gdL().logException(e);
+				return false;
+			}
+		}
+	}
+	
 	/**
 	 * Sets a new {@link #timeout} in milliseconds.
 	 * 
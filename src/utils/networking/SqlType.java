@@ -0,0 +1,201 @@
+package utils.networking;
+
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Base64;
+
+/**
+ * The SQL-datatypes a {@link Procedure} can take and return as declared in the <code>dbActiveProcedures</code>-file.</br>
+ * Every type knows its {@link Types JDBC-type}, how arguments get {@link #convert(Object, int) converted} before a connection is borrowed,
+ * how they get {@link #bind(PreparedStatement, int, Object) bound} with the matching setter and how a scalar result gets {@link #read(CallableStatement, int) read}.</br></br>
+ *
+ * Arguments can be given as their Java-type or as {@link String} like they arrive from the Clients.
+ * Binary types take Base64-{@link String Strings}.
+ *
+ * @author Cedric
+ * @version 1.0
+ * @category utils.network
+ */
+public enum SqlType {
+	BIT(Types.BIT),
+	TINYINT(Types.TINYINT),
+	SMALLINT(Types.SMALLINT),
+	INTEGER(Types.INTEGER),
+	BIGINT(Types.BIGINT),
+	FLOAT(Types.FLOAT),
+	REAL(Types.REAL),
+	DOUBLE(Types.DOUBLE),
+	NUMERIC(Types.NUMERIC),
+	DECIMAL(Types.DECIMAL),
+	CHAR(Types.CHAR),
+	VARCHAR(Types.VARCHAR),
+	LONGVARCHAR(Types.LONGVARCHAR),
+	DATE(Types.DATE),
+	TIME(Types.TIME),
+	TIMESTAMP(Types.TIMESTAMP),
+	BINARY(Types.BINARY),
+	VARBINARY(Types.VARBINARY),
+	LONGVARBINARY(Types.LONGVARBINARY),
+	BLOB(Types.BLOB),
+	CLOB(Types.CLOB);
+
+	/**
+	 * The {@link Types JDBC-type} of this type.
+	 */
+	public final int TYPE;
+
+	private SqlType(int type) {
+		this.TYPE = type;
+	}
+
+	/**
+	 * Returns the type for a declaration like <code>VARCHAR(1000)</code> or <code>INT</code>.
+	 *
+	 * @param declaration the declared type with an optional size
+	 * @return the matching {@link SqlType}
+	 * @throws IllegalArgumentException if the type is unknown
+	 */
+	public static SqlType parse(String declaration) {
+		String name = declaration.contains("(") ? declaration.substring(0, declaration.indexOf("(")) : declaration;
+		name = name.trim().toUpperCase();
+		if (name.equals("INT")) return INTEGER;
+		if (name.equals("BOOLEAN") || name.equals("BOOL")) return BIT;
+		return valueOf(name);
+	}
+
+	/**
+	 * Returns the size of a declaration like <code>VARCHAR(1000)</code>.
+	 *
+	 * @param declaration the declared type with an optional size
+	 * @return the size or <code>0</code> if none is declared
+	 * @throws NumberFormatException if the size is not a number
+	 */
+	public static int parseSize(String declaration) {
+		if (!declaration.contains("(")) return 0;
+		String size = declaration.substring(declaration.indexOf("(") + 1, declaration.lastIndexOf(")"));
+		// DECIMAL(10,2) only limits the precision
+		if (size.contains(",")) size = size.substring(0, size.indexOf(","));
+		return Integer.parseInt(size.trim());
+	}
+
+	/**
+	 * Converts the given argument into the Java-type of this type.
+	 *
+	 * @param arg the argument as Java-type or as {@link String}
+	 * @param size the declared size, <code>0</code> for none. Character- and binary-arguments must not be longer.
+	 * @return the converted argument or <code>null</code> if <code>arg</code> is <code>null</code>
+	 * @throws IllegalArgumentException if the argument cannot be converted or is too long
+	 */
+	public Object convert(Object arg, int size) {
+		if (arg == null) return null;
+		String s = arg.toString().trim();
+		try {
+			switch (this) {
+			case BIT:
+				if (arg instanceof Boolean) return arg;
+				if (s.equals("1") || s.equalsIgnoreCase("true")) return true;
+				if (s.equals("0") || s.equalsIgnoreCase("false")) return false;
+				throw new IllegalArgumentException(s + " is no " + this);
+			case TINYINT: return arg instanceof Byte ? arg : Byte.parseByte(s);
+			case SMALLINT: return arg instanceof Short ? arg : Short.parseShort(s);
+			case INTEGER: return arg instanceof Integer ? arg : Integer.parseInt(s);
+			case BIGINT: return arg instanceof Long ? arg : Long.parseLong(s);
+			case FLOAT:
+			case REAL: return arg instanceof Float ? arg : Float.parseFloat(s);
+			case DOUBLE: return arg instanceof Double ? arg : Double.parseDouble(s);
+			case NUMERIC:
+			case DECIMAL: return arg instanceof BigDecimal ? arg : new BigDecimal(s);
+			case DATE: return arg instanceof Date ? arg : Date.valueOf(s);
+			case TIME: return arg instanceof Time ? arg : Time.valueOf(s);
+			case TIMESTAMP: return arg instanceof Timestamp ? arg : Timestamp.valueOf(s);
+			case BINARY:
+			case VARBINARY:
+			case LONGVARBINARY:
+			case BLOB:
+				byte[] bytes = arg instanceof byte[] ? (byte[]) arg : Base64.getDecoder().decode(s);
+				if (size > 0 && bytes.length > size) throw new IllegalArgumentException(bytes.length + " bytes are too long for " + this + "(" + size + ")");
+				return bytes;
+			default:
+				String string = arg.toString();
+				if (size > 0 && string.length() > size) throw new IllegalArgumentException(string.length() + " characters are too long for " + this + "(" + size + ")");
+				return string;
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(s + " is no " + this, e);
+		}
+	}
+
+	/**
+	 * Binds the given {@link #convert(Object, int) converted} argument with the setter of this type.
+	 *
+	 * @param statement the statement to bind to
+	 * @param index the index of the parameter, starting at 1
+	 * @param arg the converted argument
+	 * @throws SQLException if the argument cannot be bound
+	 */
+	public void bind(PreparedStatement statement, int index, Object arg) throws SQLException {
+		if (arg == null) {
+			statement.setNull(index, TYPE);
+			return;
+		}
+		switch (this) {
+		case BIT: statement.setBoolean(index, (Boolean) arg); break;
+		case TINYINT: statement.setByte(index, (Byte) arg); break;
+		case SMALLINT: statement.setShort(index, (Short) arg); break;
+		case INTEGER: statement.setInt(index, (Integer) arg); break;
+		case BIGINT: statement.setLong(index, (Long) arg); break;
+		case FLOAT:
+		case REAL: statement.setFloat(index, (Float) arg); break;
+		case DOUBLE: statement.setDouble(index, (Double) arg); break;
+		case NUMERIC:
+		case DECIMAL: statement.setBigDecimal(index, (BigDecimal) arg); break;
+		case DATE: statement.setDate(index, (Date) arg); break;
+		case TIME: statement.setTime(index, (Time) arg); break;
+		case TIMESTAMP: statement.setTimestamp(index, (Timestamp) arg); break;
+		case BINARY:
+		case VARBINARY:
+		case LONGVARBINARY:
+		case BLOB: statement.setBytes(index, (byte[]) arg); break;
+		default: statement.setString(index, (String) arg);
+		}
+	}
+
+	/**
+	 * Reads the registered out-parameter with the getter of this type.
+	 *
+	 * @param statement the executed statement
+	 * @param index the index of the out-parameter, starting at 1
+	 * @return the value or <code>null</code> if it was SQL-<code>NULL</code>
+	 * @throws SQLException if the value cannot be read
+	 */
+	public Object read(CallableStatement statement, int index) throws SQLException {
+		Object value;
+		switch (this) {
+		case BIT: value = statement.getBoolean(index); break;
+		case TINYINT: value = statement.getByte(index); break;
+		case SMALLINT: value = statement.getShort(index); break;
+		case INTEGER: value = statement.getInt(index); break;
+		case BIGINT: value = statement.getLong(index); break;
+		case FLOAT:
+		case REAL: value = statement.getFloat(index); break;
+		case DOUBLE: value = statement.getDouble(index); break;
+		case NUMERIC:
+		case DECIMAL: value = statement.getBigDecimal(index); break;
+		case DATE: value = statement.getDate(index); break;
+		case TIME: value = statement.getTime(index); break;
+		case TIMESTAMP: value = statement.getTimestamp(index); break;
+		case BINARY:
+		case VARBINARY:
+		case LONGVARBINARY:
+		case BLOB: value = statement.getBytes(index); break;
+		default: value = statement.getString(index);
+		}
+		return statement.wasNull() ? null : value;
+	}
+}